@@ -1,12 +1,16 @@
 package de.ulb.digital.derivans;
 
 import java.nio.file.Path;
+import java.util.List;
 
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
 
+import de.ulb.digital.derivans.config.DefaultConfiguration;
 import de.ulb.digital.derivans.config.DerivansConfiguration;
 import de.ulb.digital.derivans.config.DerivansParameter;
+import de.ulb.digital.derivans.generate.MemoryBudget;
+import de.ulb.digital.derivans.generate.WorkerPool;
 
 /**
  * 
@@ -37,15 +41,63 @@ public class App {
 			dp.setPathConfig(pathConfig);
 		}
 		
+		if (dp.getCores() != null) {
+			WorkerPool.setBudget(dp.getCores());
+		}
+		if (dp.getMemoryBudget() != null) {
+			MemoryBudget.setBudget(dp.getMemoryBudget() * 1024L * 1024L);
+		}
+
 		// evaluate configuration and start derivans
 		try {
 			DerivansConfiguration conf = new DerivansConfiguration(dp);
-			Derivans derivans = new Derivans(conf);
-			derivans.init(dp.getPathInput());
-			derivans.forward();
+			if (dp.isDaemon()) {
+				App.daemon(dp);
+			} else if (dp.isBatch()) {
+				App.batch(dp, conf);
+			} else {
+				Derivans derivans = new Derivans(conf);
+				derivans.init(dp.getPathInput());
+				derivans.forward();
+			}
 		} catch (DigitalDerivansException e) {
 			Derivans.LOGGER.error(e.getLocalizedMessage());
 			throw new DigitalDerivansException(e);
 		}
 	}
+
+	private static void daemon(DerivansParameter dp) throws DigitalDerivansException, InterruptedException {
+		DerivansDaemon daemon = new DerivansDaemon(dp, dp.getPathInput());
+		if (dp.getPort() != null) {
+			daemon.setPort(dp.getPort());
+		}
+		if (dp.getHost() != null) {
+			daemon.setHost(dp.getHost());
+		}
+		if (dp.getWorks() != null) {
+			daemon.setWorkers(dp.getWorks());
+		}
+		daemon.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+		daemon.awaitStop();
+	}
+
+	private static void batch(DerivansParameter dp, DerivansConfiguration conf) throws DigitalDerivansException {
+		DerivansBatch batch = new DerivansBatch(conf);
+		if (dp.getWorks() != null) {
+			batch.setWorks(dp.getWorks());
+		}
+		Path pathSummary = dp.getPathSummary();
+		if (pathSummary == null) {
+			pathSummary = Path.of(DefaultConfiguration.DEFAULT_BATCH_SUMMARY_FILE);
+		}
+		batch.setPathSummary(pathSummary);
+		List<Path> inputs = DerivansBatch.collectInputs(dp.getPathInput());
+		List<DerivansBatch.WorkResult> results = batch.run(inputs);
+		long nFailed = results.stream().filter(r -> !r.isSuccess()).count();
+		if (nFailed > 0) {
+			throw new DigitalDerivansException(
+					String.format("%d of %d works failed, see %s", nFailed, results.size(), pathSummary));
+		}
+	}
 }
@@ -6,21 +6,30 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import de.ulb.digital.derivans.config.DerivansConfiguration;
 import de.ulb.digital.derivans.generate.Generator;
+import de.ulb.digital.derivans.generate.DerivativeCache;
+import de.ulb.digital.derivans.generate.GeneratorImage;
 import de.ulb.digital.derivans.generate.GeneratorImageJPG;
 import de.ulb.digital.derivans.generate.GeneratorImageJPGFooter;
 import de.ulb.digital.derivans.generate.GeneratorPDF;
+import de.ulb.digital.derivans.generate.OCRPrefetch;
+import de.ulb.digital.derivans.generate.PagePipeline;
+import de.ulb.digital.derivans.generate.WorkerPool;
 import de.ulb.digital.derivans.model.DerivateFS;
 import de.ulb.digital.derivans.model.DerivateMD;
 import de.ulb.digital.derivans.model.DigitalType;
 import de.ulb.digital.derivans.model.IDerivate;
 import de.ulb.digital.derivans.model.step.DerivateStep;
+import de.ulb.digital.derivans.model.step.DerivateStepPDF;
 
 /**
  * Derive digital entities like pages with footer information and PDF from given
@@ -42,10 +51,19 @@ public class Derivans {
 
     private final DerivansConfiguration config;
 
+    private DerivativeCache cache;
+
+    /**
+     * Reads ocr data ahead until work is forwarded
+     */
+    private OCRPrefetch prefetch;
+
     boolean footerDerivatesRendered;
 
     boolean footerDerivatesForPDFRendered;
 
+    private final Map<String, Duration> timings = Collections.synchronizedMap(new LinkedHashMap<>());
+
     /**
      * Initialize Derivans Instance with according {@link DerivansConfiguration}.
      *
@@ -60,7 +78,11 @@ public class Derivans {
             LOGGER.error(msg);
             throw new DigitalDerivansException(msg);
         }
-        this.steps = new ArrayList<>(this.config.getDerivateSteps());
+        // work on copies, since steps get enriched with work specific data
+        this.steps = new ArrayList<>();
+        for (DerivateStep step : confSteps) {
+            this.steps.add(step.copy());
+        }
     }
 
     /**
@@ -95,6 +117,11 @@ public class Derivans {
             throw new DigitalDerivansException(msg);
         }
         this.generators = new ArrayList<>();
+        this.cache = null;
+        if (this.config.getPathCache().isPresent()) {
+            this.cache = DerivativeCache.get(this.config.getPathCache().get(),
+                    this.config.getCacheSize() * 1024L * 1024L);
+        }
         for (DerivateStep step : this.steps) {
             if (!this.derivate.isInited()) {
                 if (step.getInputType() == DigitalType.TIF) {
@@ -105,16 +132,62 @@ public class Derivans {
             Generator theGenerator = Derivans.createGenerator(step);
             theGenerator.setDerivate(derivate); // first set derivate ...
             theGenerator.setStep(step); // .. then set step object
+            if (theGenerator instanceof GeneratorImage) {
+                ((GeneratorImage) theGenerator).setResume(this.config.isResume());
+                ((GeneratorImage) theGenerator).setCache(this.cache);
+            }
             this.generators.add(theGenerator);
         }
+        // ocr data is only consumed by pdf steps, but read ahead
+        // while preceeding steps are still running
+        boolean requiresOcr = this.steps.stream().anyMatch(DerivateStepPDF.class::isInstance);
+        if (requiresOcr && this.derivate.isInited()) {
+            int parallelism = WorkerPool.get().getThreads(WorkerPool.Lane.CPU);
+            int ocrPoolsize = this.steps.stream().filter(DerivateStepPDF.class::isInstance)
+                    .mapToInt(s -> ((DerivateStepPDF) s).getOcrPoolsize()).max().orElse(0);
+            if (ocrPoolsize > 0) {
+                parallelism = Math.min(parallelism, ocrPoolsize);
+            }
+            this.prefetch = new OCRPrefetch(this.derivate.allPagesSorted(), parallelism);
+            this.prefetch.start();
+        }
         return this.generators;
     }
 
     public void forward() throws DigitalDerivansException {
-        for (Generator generator : this.generators) {
+        try {
+            this.forwardSteps();
+        } finally {
+            // drop ocr data not consumed, i.e. due failures
+            if (this.prefetch != null) {
+                this.prefetch.stop();
+            }
+        }
+    }
+
+    private void forwardSteps() throws DigitalDerivansException {
+        if (this.config.isPipeline()) {
+            Instant start = Instant.now();
+            int nSteps = new PagePipeline(this.generators).run();
+            Instant finish = Instant.now();
+            this.timings.put(PagePipeline.class.getSimpleName(), Duration.between(start, finish));
+            LOGGER.info("finished %02d pipelined steps in %02dm%02ds", nSteps,
+                    Duration.between(start, finish).toMinutesPart(),
+                    Duration.between(start, finish).toSecondsPart());
+            LOGGER.info("finished %02d steps at %s", this.steps.size(),
+                    this.derivate.getRootDir());
+            if (this.cache != null) {
+                LOGGER.info("cache %s", this.cache);
+            }
+            return;
+        }
+        for (int i = 0; i < this.generators.size(); i++) {
+            Generator generator = this.generators.get(i);
             Instant start = Instant.now();
             int results = generator.create();
             Instant finish = Instant.now();
+            this.timings.put(String.format("%02d_%s", i + 1, generator.getClass().getSimpleName()),
+                    Duration.between(start, finish));
             long secsElapsed = Duration.between(start, finish).toSecondsPart();
             long minsElapsed = Duration.between(start, finish).toMinutesPart();
             if (results > 0) {
@@ -127,6 +200,9 @@ public class Derivans {
 
         LOGGER.info("finished %02d steps at %s", this.steps.size(),
                 this.derivate.getRootDir());
+        if (this.cache != null) {
+            LOGGER.info("cache %s", this.cache);
+        }
     }
 
     public static Generator createGenerator(DerivateStep step) throws DigitalDerivansException {
@@ -146,6 +222,17 @@ public class Derivans {
         throw new DigitalDerivansException("Unknown type " + step);
     }
 
+    /**
+     * 
+     * Durations of all steps forwarded so far, labeled
+     * by step number and generator in order of execution
+     * 
+     * @return
+     */
+    public Map<String, Duration> getTimings() {
+        return this.timings;
+    }
+
     /**
      * 
      * Access member just for testing purposes
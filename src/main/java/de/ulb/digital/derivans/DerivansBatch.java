@@ -0,0 +1,250 @@
+package de.ulb.digital.derivans;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.ulb.digital.derivans.config.DerivansConfiguration;
+import de.ulb.digital.derivans.data.image.ImageCodecs;
+
+/**
+ *
+ * Process many works within a single JVM
+ *
+ * All works share the same {@link DerivansConfiguration}, whereas
+ * each work gets it's own {@link Derivans} instance. Works are
+ * processed in parallel by a fixed number of workers, and page-level
+ * parallelism is still governed by the poolsize of each step.
+ *
+ * Inputs can be provided as
+ * <ul>
+ * <li>list file with one METS-file or work directory per line</li>
+ * <li>glob pattern, like <code>/data/*&#47;mets.xml</code></li>
+ * <li>directory containing METS-files or, if none, work directories</li>
+ * </ul>
+ *
+ * @author hartwig
+ *
+ */
+public class DerivansBatch {
+
+	public static final Logger LOGGER = LogManager.getFormatterLogger(DerivansBatch.class);
+
+	private static final String GLOB_CHARS = "*?[{";
+
+	private final DerivansConfiguration config;
+
+	private int nWorks = 1;
+
+	private Path pathSummary;
+
+	public DerivansBatch(DerivansConfiguration conf) {
+		this.config = conf;
+	}
+
+	public void setWorks(int nWorks) {
+		if (nWorks > 0) {
+			this.nWorks = nWorks;
+		}
+	}
+
+	public int getWorks() {
+		return this.nWorks;
+	}
+
+	public void setPathSummary(Path pathSummary) {
+		this.pathSummary = pathSummary;
+	}
+
+	/**
+	 *
+	 * Collect all work inputs
+	 *
+	 * @param input list file, glob pattern or directory
+	 * @return sorted inputs
+	 * @throws DigitalDerivansException
+	 */
+	public static List<Path> collectInputs(Path input) throws DigitalDerivansException {
+		String inputLabel = input.toString();
+		try {
+			if (inputLabel.chars().anyMatch(c -> GLOB_CHARS.indexOf(c) > -1)) {
+				return DerivansBatch.collectGlob(input);
+			} else if (Files.isDirectory(input)) {
+				return DerivansBatch.collectDirectory(input);
+			} else if (Files.isRegularFile(input)) {
+				return DerivansBatch.collectList(input);
+			}
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+		throw new DigitalDerivansException("Invalid batch input " + input);
+	}
+
+	private static List<Path> collectList(Path listFile) throws IOException {
+		Path parent = listFile.toAbsolutePath().getParent();
+		try (Stream<String> lines = Files.lines(listFile)) {
+			return lines.map(String::strip)
+					.filter(l -> !l.isEmpty() && !l.startsWith("#"))
+					.map(l -> parent.resolve(l).normalize())
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static List<Path> collectGlob(Path pattern) throws IOException {
+		Path absPattern = pattern.toAbsolutePath();
+		Path root = absPattern.getRoot();
+		Path base = root;
+		for (Path segment : absPattern) {
+			if (segment.toString().chars().anyMatch(c -> GLOB_CHARS.indexOf(c) > -1)) {
+				break;
+			}
+			base = base.resolve(segment);
+		}
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + absPattern);
+		try (Stream<Path> paths = Files.walk(base)) {
+			return paths.filter(matcher::matches).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static List<Path> collectDirectory(Path dir) throws IOException {
+		List<Path> metsFiles;
+		try (Stream<Path> paths = Files.list(dir)) {
+			metsFiles = paths.filter(Files::isRegularFile)
+					.filter(p -> p.getFileName().toString().endsWith(".xml"))
+					.sorted().collect(Collectors.toList());
+		}
+		if (!metsFiles.isEmpty()) {
+			return metsFiles;
+		}
+		try (Stream<Path> paths = Files.list(dir)) {
+			return paths.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 *
+	 * Process all inputs and write summary, if requested
+	 *
+	 * @param inputs
+	 * @return result for each input in order of inputs
+	 * @throws DigitalDerivansException
+	 */
+	public List<WorkResult> run(List<Path> inputs) throws DigitalDerivansException {
+		int nWorkers = Math.max(1, Math.min(this.nWorks, inputs.size()));
+		LOGGER.info("process %d works with %d workers", inputs.size(), nWorkers);
+		ExecutorService executor = Executors.newFixedThreadPool(nWorkers);
+		List<WorkResult> results = new ArrayList<>();
+		try {
+			List<Future<WorkResult>> futures = new ArrayList<>();
+			for (Path input : inputs) {
+				futures.add(executor.submit(() -> this.process(input)));
+			}
+			for (Future<WorkResult> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DigitalDerivansException(e);
+		} catch (ExecutionException e) {
+			throw new DigitalDerivansException(e.getMessage(), e.getCause());
+		} finally {
+			executor.shutdownNow();
+			ImageCodecs.disposeIdle();
+		}
+		long nFailed = results.stream().filter(r -> !r.isSuccess()).count();
+		LOGGER.info("processed %d works: %d succeeded, %d failed", results.size(),
+				results.size() - nFailed, nFailed);
+		for (WorkResult result : results) {
+			if (!result.isSuccess()) {
+				LOGGER.warn("failed %s: %s", result.getInput(), result.getMessage());
+			}
+		}
+		if (this.pathSummary != null) {
+			this.writeSummary(results);
+		}
+		return results;
+	}
+
+	private WorkResult process(Path input) {
+		long start = System.currentTimeMillis();
+		try {
+			Derivans derivans = new Derivans(this.config);
+			derivans.init(input);
+			derivans.forward();
+			return new WorkResult(input, true, System.currentTimeMillis() - start, "");
+		} catch (Exception e) {
+			LOGGER.error("work %s: %s", input, e.getMessage());
+			String msg = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+			return new WorkResult(input, false, System.currentTimeMillis() - start, msg);
+		}
+	}
+
+	private void writeSummary(List<WorkResult> results) throws DigitalDerivansException {
+		List<String> lines = new ArrayList<>();
+		lines.add(String.join("\t", "input", "status", "millis", "message"));
+		for (WorkResult result : results) {
+			String status = result.isSuccess() ? "OK" : "FAILED";
+			String msg = result.getMessage().replaceAll("\\s+", " ");
+			lines.add(String.join("\t", result.getInput().toString(), status,
+					String.valueOf(result.getMillis()), msg));
+		}
+		try {
+			Files.write(this.pathSummary, lines);
+			LOGGER.info("wrote batch summary %s", this.pathSummary);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+	}
+
+	/**
+	 *
+	 * Outcome of a single work
+	 *
+	 */
+	public static class WorkResult {
+
+		private final Path input;
+
+		private final boolean success;
+
+		private final long millis;
+
+		private final String message;
+
+		public WorkResult(Path input, boolean success, long millis, String message) {
+			this.input = input;
+			this.success = success;
+			this.millis = millis;
+			this.message = message;
+		}
+
+		public Path getInput() {
+			return this.input;
+		}
+
+		public boolean isSuccess() {
+			return this.success;
+		}
+
+		public long getMillis() {
+			return this.millis;
+		}
+
+		public String getMessage() {
+			return this.message;
+		}
+	}
+}
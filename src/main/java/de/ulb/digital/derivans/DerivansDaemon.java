@@ -0,0 +1,649 @@
+package de.ulb.digital.derivans;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.ulb.digital.derivans.config.DefaultConfiguration;
+import de.ulb.digital.derivans.config.DerivansConfiguration;
+import de.ulb.digital.derivans.config.DerivansParameter;
+import de.ulb.digital.derivans.data.image.ImageCodecs;
+import de.ulb.digital.derivans.generate.GeneratorPDF;
+import de.ulb.digital.derivans.generate.WorkerPool;
+
+/**
+ *
+ * Resident Derivans service
+ *
+ * Accepts jobs, i.e. path to METS-file or local work directory
+ * with optional overrides of {@link DerivansParameter}, either via
+ * HTTP or via job files dropped into a spool directory. Fonts,
+ * color profiles, PDF/A validation and ImageIO codecs stay loaded
+ * between jobs, thus startup costs are paid only once.
+ *
+ * HTTP endpoints:
+ * <ul>
+ * <li><code>POST /jobs?input=...&amp;images=...</code> submit job, parameters
+ * might also be sent form-encoded as request body</li>
+ * <li><code>GET /jobs</code> all known jobs</li>
+ * <li><code>GET /jobs/&lt;id&gt;</code> state and step timings of single job</li>
+ * <li><code>GET /status</code> queue depths and job counts</li>
+ * </ul>
+ *
+ * HTTP is bound to the loopback interface unless another address
+ * is set explicitly, since jobs aren't authenticated and might
+ * read and write any path accessible to the process.
+ *
+ * Spool directory: files with extension <code>.job</code> in properties
+ * format with the same keys. Each file is claimed by renaming it to
+ * <code>.running</code> and finally renamed to <code>.done</code> or
+ * <code>.failed</code>.
+ *
+ * @author hartwig
+ *
+ */
+public class DerivansDaemon {
+
+	public static final Logger LOGGER = LogManager.getFormatterLogger(DerivansDaemon.class);
+
+	public static final String KEY_INPUT = "input";
+	public static final String KEY_CONFIG = "config";
+	public static final String KEY_IMAGES = "images";
+	public static final String KEY_OCR = "ocr";
+	public static final String KEY_NAME_PDF = "name-pdf";
+	public static final String KEY_FOOTER = "footer";
+	public static final String KEY_DEBUG_RENDER = "debug-render";
+	public static final String KEY_PIPELINE = "pipeline";
+	public static final String KEY_THREADS = "threads";
+	public static final String KEY_RESUME = "resume";
+	public static final String KEY_FORCE = "force";
+
+	public static final String SPOOL_JOB = ".job";
+	public static final String SPOOL_RUNNING = ".running";
+	public static final String SPOOL_DONE = ".done";
+	public static final String SPOOL_FAILED = ".failed";
+
+	/**
+	 * Finished jobs kept for status requests
+	 */
+	public static final int MAX_FINISHED_JOBS = 10_000;
+
+	private static final Set<String> KEYS = Set.of(KEY_INPUT, KEY_CONFIG, KEY_IMAGES, KEY_OCR, KEY_NAME_PDF,
+			KEY_FOOTER, KEY_DEBUG_RENDER, KEY_PIPELINE, KEY_THREADS, KEY_RESUME, KEY_FORCE);
+
+	private final DerivansParameter baseParameter;
+
+	private final Path spoolDir;
+
+	private InetAddress host = InetAddress.getLoopbackAddress();
+
+	private int port = DefaultConfiguration.DEFAULT_DAEMON_PORT;
+
+	private int nWorkers = 1;
+
+	private int queueCapacity = DefaultConfiguration.DEFAULT_DAEMON_QUEUE_CAPACITY;
+
+	private HttpServer server;
+
+	private ThreadPoolExecutor executor;
+
+	private ScheduledExecutorService spooler;
+
+	private final AtomicLong jobCounter = new AtomicLong();
+
+	private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+	private final Queue<String> finished = new ConcurrentLinkedQueue<>();
+
+	private final CountDownLatch stopped = new CountDownLatch(1);
+
+	/**
+	 *
+	 * @param parameter defaults for all jobs
+	 * @param spoolDir  directory to poll for job files, might be null
+	 */
+	public DerivansDaemon(DerivansParameter parameter, Path spoolDir) {
+		this.baseParameter = parameter;
+		this.spoolDir = spoolDir;
+	}
+
+	public void setPort(int port) {
+		this.port = port;
+	}
+
+	public int getPort() {
+		return this.port;
+	}
+
+	/**
+	 *
+	 * Bind HTTP to given address instead of loopback,
+	 * i.e. "0.0.0.0" for all interfaces
+	 *
+	 * @param host name or address
+	 * @throws DigitalDerivansException if host can't be resolved
+	 */
+	public void setHost(String host) throws DigitalDerivansException {
+		try {
+			this.host = InetAddress.getByName(host);
+		} catch (UnknownHostException e) {
+			throw new DigitalDerivansException("Invalid daemon host " + host);
+		}
+	}
+
+	public InetAddress getHost() {
+		return this.host;
+	}
+
+	public void setWorkers(int nWorkers) {
+		if (nWorkers > 0) {
+			this.nWorkers = nWorkers;
+		}
+	}
+
+	public void setQueueCapacity(int capacity) {
+		if (capacity > 0) {
+			this.queueCapacity = capacity;
+		}
+	}
+
+	/**
+	 *
+	 * Warm up shared resources and start accepting jobs
+	 *
+	 * @throws DigitalDerivansException
+	 */
+	public void start() throws DigitalDerivansException {
+		if (this.spoolDir != null && !Files.isDirectory(this.spoolDir)) {
+			throw new DigitalDerivansException("Invalid spool directory " + this.spoolDir);
+		}
+		DerivansDaemon.warmUp();
+		try {
+			this.server = HttpServer.create(new InetSocketAddress(this.host, this.port), 0);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+		if (!this.host.isLoopbackAddress()) {
+			LOGGER.warn("daemon accepts jobs from any host reaching %s", this.host);
+		}
+		this.executor = new ThreadPoolExecutor(this.nWorkers, this.nWorkers, 0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(this.queueCapacity));
+		this.server.createContext("/jobs", this::handleJobs);
+		this.server.createContext("/status", this::handleStatus);
+		this.server.setExecutor(Executors.newFixedThreadPool(2));
+		this.server.start();
+		this.port = this.server.getAddress().getPort();
+		if (this.spoolDir != null) {
+			this.spooler = Executors.newSingleThreadScheduledExecutor();
+			int interval = DefaultConfiguration.DEFAULT_DAEMON_SPOOL_INTERVAL_SECS;
+			this.spooler.scheduleWithFixedDelay(this::pollSpool, 0, interval, TimeUnit.SECONDS);
+		}
+		LOGGER.info("daemon listening on %s:%d with %d workers (spool: %s)", this.host.getHostAddress(),
+				this.port, this.nWorkers, this.spoolDir);
+	}
+
+	/**
+	 *
+	 * Stop accepting jobs, wait for running ones
+	 *
+	 */
+	public void stop() {
+		if (this.spooler != null) {
+			this.spooler.shutdownNow();
+		}
+		if (this.server != null) {
+			this.server.stop(0);
+			((ExecutorService) this.server.getExecutor()).shutdownNow();
+		}
+		if (this.executor != null) {
+			this.executor.shutdown();
+			try {
+				this.executor.awaitTermination(1, TimeUnit.HOURS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		ImageCodecs.disposeIdle();
+		this.stopped.countDown();
+		LOGGER.info("daemon stopped");
+	}
+
+	public void awaitStop() throws InterruptedException {
+		this.stopped.await();
+	}
+
+	/**
+	 *
+	 * Load everything which is expensive and can be
+	 * shared by all jobs
+	 *
+	 */
+	static void warmUp() {
+		ImageIO.scanForPlugins();
+		ImageIO.getImageReadersByFormatName("jpeg").forEachRemaining(r -> r.dispose());
+		ImageIO.getImageWritersByFormatName("jpeg").forEachRemaining(w -> w.dispose());
+		ImageIO.getImageReadersByFormatName("tiff").forEachRemaining(r -> r.dispose());
+		GeneratorPDF.initialiseValidation();
+	}
+
+	/**
+	 *
+	 * Enqueue new job
+	 *
+	 * @param params input and optional parameter overrides
+	 * @return job enqueued
+	 * @throws DigitalDerivansException   if parameters are invalid
+	 * @throws RejectedExecutionException if queue is full
+	 */
+	public Job submit(Map<String, String> params) throws DigitalDerivansException {
+		return this.submit(params, j -> {
+		});
+	}
+
+	private Job submit(Map<String, String> params, Consumer<Job> onFinish) throws DigitalDerivansException {
+		for (String key : params.keySet()) {
+			if (!KEYS.contains(key)) {
+				throw new DigitalDerivansException("Unknown job parameter '" + key + "'");
+			}
+		}
+		String input = params.get(KEY_INPUT);
+		if (input == null || input.isBlank()) {
+			throw new DigitalDerivansException("Missing job parameter '" + KEY_INPUT + "'");
+		}
+		DerivansParameter jobParameter = DerivansDaemon.toParameter(this.baseParameter, params);
+		String id = String.valueOf(this.jobCounter.incrementAndGet());
+		Job job = new Job(id, jobParameter.getPathInput(), params);
+		this.jobs.put(id, job);
+		try {
+			this.executor.execute(() -> {
+				this.process(job, jobParameter);
+				onFinish.accept(job);
+			});
+		} catch (RejectedExecutionException e) {
+			this.jobs.remove(id);
+			throw e;
+		}
+		LOGGER.info("job %s queued: %s", id, input);
+		return job;
+	}
+
+	static DerivansParameter toParameter(DerivansParameter base, Map<String, String> params)
+			throws DigitalDerivansException {
+		DerivansParameter jobParameter = new DerivansParameter(base);
+		jobParameter.setPathInput(Path.of(params.get(KEY_INPUT)));
+		try {
+			for (var entry : params.entrySet()) {
+				String value = entry.getValue();
+				switch (entry.getKey()) {
+				case KEY_CONFIG:
+					jobParameter.setPathConfig(Path.of(value));
+					break;
+				case KEY_IMAGES:
+					jobParameter.setImages(value);
+					break;
+				case KEY_OCR:
+					jobParameter.setOcr(value);
+					break;
+				case KEY_NAME_PDF:
+					jobParameter.setNamePDF(value);
+					break;
+				case KEY_FOOTER:
+					jobParameter.setPathFooter(Path.of(value));
+					break;
+				case KEY_DEBUG_RENDER:
+					jobParameter.setDebugPdfRender(Boolean.parseBoolean(value));
+					break;
+				case KEY_PIPELINE:
+					jobParameter.setPipeline(Boolean.parseBoolean(value));
+					break;
+				case KEY_THREADS:
+					jobParameter.setThreads(Integer.valueOf(value));
+					break;
+				case KEY_RESUME:
+					jobParameter.setResume(Boolean.parseBoolean(value));
+					break;
+				case KEY_FORCE:
+					jobParameter.setForce(Boolean.parseBoolean(value));
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (NumberFormatException e) {
+			throw new DigitalDerivansException("Invalid job parameter: " + e.getMessage());
+		}
+		return jobParameter;
+	}
+
+	private void process(Job job, DerivansParameter jobParameter) {
+		job.started = Instant.now();
+		job.state = JobState.RUNNING;
+		LOGGER.info("job %s started: %s", job.id, job.input);
+		try {
+			DerivansConfiguration conf = new DerivansConfiguration(jobParameter);
+			Derivans derivans = new Derivans(conf);
+			derivans.init(jobParameter.getPathInput());
+			job.timings = derivans.getTimings();
+			derivans.forward();
+			job.state = JobState.DONE;
+		} catch (Exception e) {
+			LOGGER.error("job %s failed: %s", job.id, e.getMessage());
+			job.message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+			job.state = JobState.FAILED;
+		} finally {
+			job.finished = Instant.now();
+			LOGGER.info("job %s %s in %dms", job.id, job.state, job.getDuration().toMillis());
+			this.finished.add(job.id);
+			while (this.finished.size() > MAX_FINISHED_JOBS) {
+				String oldest = this.finished.poll();
+				if (oldest != null) {
+					this.jobs.remove(oldest);
+				}
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Claim job files in order of their names
+	 * as long as the queue has capacity left
+	 *
+	 */
+	private void pollSpool() {
+		List<Path> jobFiles;
+		try (Stream<Path> paths = Files.list(this.spoolDir)) {
+			jobFiles = paths.filter(p -> p.getFileName().toString().endsWith(SPOOL_JOB))
+					.sorted().collect(Collectors.toList());
+		} catch (IOException e) {
+			LOGGER.error("spool %s: %s", this.spoolDir, e.getMessage());
+			return;
+		}
+		for (Path jobFile : jobFiles) {
+			if (this.executor.getQueue().remainingCapacity() == 0) {
+				return;
+			}
+			String baseName = jobFile.getFileName().toString();
+			baseName = baseName.substring(0, baseName.length() - SPOOL_JOB.length());
+			Path running = jobFile.resolveSibling(baseName + SPOOL_RUNNING);
+			try {
+				Files.move(jobFile, running, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// claimed by someone else
+				continue;
+			}
+			this.submitSpooled(running, baseName);
+		}
+	}
+
+	private void submitSpooled(Path running, String baseName) {
+		Properties props = new Properties();
+		try (Reader reader = Files.newBufferedReader(running)) {
+			props.load(reader);
+			Map<String, String> params = new LinkedHashMap<>();
+			for (String key : props.stringPropertyNames()) {
+				params.put(key, props.getProperty(key).strip());
+			}
+			this.submit(params, job -> {
+				String suffix = job.state == JobState.DONE ? SPOOL_DONE : SPOOL_FAILED;
+				DerivansDaemon.moveQuietly(running, running.resolveSibling(baseName + suffix));
+			});
+		} catch (RejectedExecutionException e) {
+			DerivansDaemon.moveQuietly(running, running.resolveSibling(baseName + SPOOL_JOB));
+		} catch (IOException | DigitalDerivansException e) {
+			LOGGER.error("invalid job file %s: %s", running, e.getMessage());
+			DerivansDaemon.moveQuietly(running, running.resolveSibling(baseName + SPOOL_FAILED));
+		}
+	}
+
+	private static void moveQuietly(Path source, Path target) {
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			LOGGER.error("can't move %s to %s: %s", source, target, e.getMessage());
+		}
+	}
+
+	private void handleJobs(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			String method = exchange.getRequestMethod();
+			String path = exchange.getRequestURI().getPath();
+			String jobId = path.replaceFirst("^/jobs/?", "");
+			if ("POST".equals(method) && jobId.isEmpty()) {
+				Map<String, String> params = DerivansDaemon.parseQuery(exchange.getRequestURI().getRawQuery());
+				try (InputStream in = exchange.getRequestBody()) {
+					params.putAll(DerivansDaemon.parseQuery(new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+				}
+				try {
+					Job job = this.submit(params);
+					DerivansDaemon.respond(exchange, 202, job.toJson());
+				} catch (DigitalDerivansException e) {
+					DerivansDaemon.respond(exchange, 400, DerivansDaemon.error(e.getMessage()));
+				} catch (RejectedExecutionException e) {
+					DerivansDaemon.respond(exchange, 503, DerivansDaemon.error("queue full"));
+				}
+			} else if ("GET".equals(method) && jobId.isEmpty()) {
+				List<Job> all = new ArrayList<>(this.jobs.values());
+				all.sort((a, b) -> Long.compare(Long.parseLong(a.id), Long.parseLong(b.id)));
+				DerivansDaemon.respond(exchange, 200, DerivansDaemon.toJson(all));
+			} else if ("GET".equals(method)) {
+				Job job = this.jobs.get(jobId);
+				if (job == null) {
+					DerivansDaemon.respond(exchange, 404, DerivansDaemon.error("unknown job " + jobId));
+				} else {
+					DerivansDaemon.respond(exchange, 200, job.toJson());
+				}
+			} else {
+				DerivansDaemon.respond(exchange, 405, DerivansDaemon.error("unsupported " + method));
+			}
+		}
+	}
+
+	private void handleStatus(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			DerivansDaemon.respond(exchange, 200, this.getStatus());
+		}
+	}
+
+	/**
+	 *
+	 * Current queue depth and job counts as JSON
+	 *
+	 * @return
+	 */
+	public String getStatus() {
+		Map<JobState, Long> counts = this.jobs.values().stream()
+				.collect(Collectors.groupingBy(j -> j.state, Collectors.counting()));
+		StringBuilder sb = new StringBuilder("{");
+		sb.append("\"queueDepth\":").append(this.executor.getQueue().size());
+		sb.append(",\"workers\":").append(this.nWorkers);
+		WorkerPool pool = WorkerPool.get();
+		sb.append(",\"cores\":").append(pool.getBudget());
+		sb.append(",\"cpuQueueDepth\":").append(pool.getQueueDepth(WorkerPool.Lane.CPU));
+		sb.append(",\"ioQueueDepth\":").append(pool.getQueueDepth(WorkerPool.Lane.IO));
+		for (JobState state : JobState.values()) {
+			sb.append(",\"").append(state.name().toLowerCase()).append("\":")
+					.append(counts.getOrDefault(state, 0L));
+		}
+		return sb.append("}").toString();
+	}
+
+	public Job getJob(String id) {
+		return this.jobs.get(id);
+	}
+
+	static Map<String, String> parseQuery(String query) {
+		Map<String, String> params = new LinkedHashMap<>();
+		if (query == null || query.isBlank()) {
+			return params;
+		}
+		for (String pair : query.strip().split("&")) {
+			int i = pair.indexOf('=');
+			String key = i > 0 ? pair.substring(0, i) : pair;
+			String value = i > 0 ? pair.substring(i + 1) : "";
+			params.put(URLDecoder.decode(key, StandardCharsets.UTF_8),
+					URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return params;
+	}
+
+	private static void respond(HttpExchange exchange, int code, String json) throws IOException {
+		byte[] data = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(code, data.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(data);
+		}
+	}
+
+	private static String error(String message) {
+		return "{\"error\":" + DerivansDaemon.quote(message) + "}";
+	}
+
+	private static String toJson(Collection<Job> jobs) {
+		return jobs.stream().map(Job::toJson).collect(Collectors.joining(",", "[", "]"));
+	}
+
+	static String quote(String value) {
+		if (value == null) {
+			return "null";
+		}
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	public enum JobState {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	/**
+	 *
+	 * Single job with it's current state
+	 *
+	 */
+	public static class Job {
+
+		private final String id;
+
+		private final Path input;
+
+		private final Map<String, String> params;
+
+		private final Instant submitted = Instant.now();
+
+		private volatile Instant started;
+
+		private volatile Instant finished;
+
+		private volatile JobState state = JobState.QUEUED;
+
+		private volatile String message;
+
+		private volatile Map<String, Duration> timings = Map.of();
+
+		Job(String id, Path input, Map<String, String> params) {
+			this.id = id;
+			this.input = input;
+			this.params = params;
+		}
+
+		public String getId() {
+			return this.id;
+		}
+
+		public JobState getState() {
+			return this.state;
+		}
+
+		public String getMessage() {
+			return this.message;
+		}
+
+		public Map<String, Duration> getTimings() {
+			return this.timings;
+		}
+
+		public Duration getDuration() {
+			if (this.started == null) {
+				return Duration.ZERO;
+			}
+			Instant end = this.finished != null ? this.finished : Instant.now();
+			return Duration.between(this.started, end);
+		}
+
+		public String toJson() {
+			StringBuilder sb = new StringBuilder("{");
+			sb.append("\"id\":").append(quote(this.id));
+			sb.append(",\"input\":").append(quote(this.input.toString()));
+			sb.append(",\"state\":").append(quote(this.state.name()));
+			sb.append(",\"submitted\":").append(quote(this.submitted.toString()));
+			sb.append(",\"started\":").append(quote(this.started != null ? this.started.toString() : null));
+			sb.append(",\"finished\":").append(quote(this.finished != null ? this.finished.toString() : null));
+			sb.append(",\"millis\":").append(this.getDuration().toMillis());
+			sb.append(",\"message\":").append(quote(this.message));
+			sb.append(",\"params\":{");
+			sb.append(this.params.entrySet().stream()
+					.map(e -> quote(e.getKey()) + ":" + quote(e.getValue()))
+					.collect(Collectors.joining(",")));
+			sb.append("},\"timings\":{");
+			// copy, since timings might be written by running job
+			Map<String, Duration> current = new LinkedHashMap<>();
+			synchronized (this.timings) {
+				current.putAll(this.timings);
+			}
+			sb.append(current.entrySet().stream()
+					.map(e -> quote(e.getKey()) + ":" + e.getValue().toMillis())
+					.collect(Collectors.joining(",")));
+			return sb.append("}}").toString();
+		}
+	}
+}
@@ -31,10 +31,23 @@ public class DefaultConfiguration {
 
 		public static final String PDF_CONFORMANCE = "pdf_conformance";
 
+		public static final String PIPELINE = "pipeline";
+
+		public static final String RESUME = "resume";
+
+		public static final String CACHE_DIR = "cache_dir";
+
+		public static final String CACHE_SIZE = "cache_size";
+
 		private Key() {}
 	}
 
 	public static final Integer DEFAULT_QUALITY = 80;
+
+	/*
+	 * Upper bound of image result cache in MB
+	 */
+	public static final long DEFAULT_CACHE_SIZE_MB = 10240;
 	
 	public static final Integer DEFAULT_QUALITY_FOOTER = 95;
 
@@ -53,11 +66,37 @@ public class DefaultConfiguration {
 	
 	public static final Integer DEFAULT_POOLSIZE = 2;
 
+	/*
+	 * Prepare PDF pages sequentially unless configured otherwise
+	 */
+	public static final int DEFAULT_POOLSIZE_PDF = 1;
+
+	/*
+	 * Keep text of all pages in PDF result unless configured otherwise
+	 */
+	public static final Boolean DEFAULT_LOW_MEMORY_PDF = Boolean.FALSE;
+
+	/*
+	 * Read OCR files ahead with all workers of the CPU lane
+	 * unless configured otherwise
+	 */
+	public static final int DEFAULT_OCR_POOLSIZE_PDF = 0;
+
 	/*
 	 * Restricted by used PDF-rendering component (itextpdf5)
 	 */
 	public static final Integer DEFAULT_MAXIMAL = 14400; 
 
+	/**
+	 * Single bicubic pass when scaling image data
+	 */
+	public static final String DEFAULT_RESAMPLING = "bicubic";
+
+	/**
+	 * Always re-encode JPEG input
+	 */
+	public static final Boolean DEFAULT_PASSTHROUGH = Boolean.FALSE;
+
 	public static final Path DEFAULT_MAX_FOOTER_OUTPUT_SUB_PATH = Path.of("FOOTER_MAX");
 	
 	public static final Path DEFAULT_FOOTER_MIN_OUTPUT_SUB_PATH = Path.of(IDerivans.IMAGE_Q80);
@@ -71,6 +110,14 @@ public class DefaultConfiguration {
 
 	public static final String DEFAULT_CONFIG_FILE_LABEL = "derivans.ini";
 
+	public static final String DEFAULT_BATCH_SUMMARY_FILE = "derivans_batch_summary.tsv";
+
+	public static final int DEFAULT_DAEMON_PORT = 8088;
+
+	public static final int DEFAULT_DAEMON_QUEUE_CAPACITY = 1000;
+
+	public static final int DEFAULT_DAEMON_SPOOL_INTERVAL_SECS = 2;
+
 	public static final TypeConfiguration DEFAULT_RENDER_LEVEL = TypeConfiguration.RENDER_LEVEL_LINE;
 
 	public static final TypeConfiguration DEFAULT_RENDER_VISIBILTY = TypeConfiguration.RENDER_MODUS_HIDE;
@@ -51,6 +51,14 @@ public class DerivansConfiguration {
 
 	private Integer defaultPoolsize = DefaultConfiguration.DEFAULT_POOLSIZE;
 
+	private boolean pipeline;
+
+	private boolean resume;
+
+	private Path pathCache;
+
+	private long cacheSize = DefaultConfiguration.DEFAULT_CACHE_SIZE_MB;
+
 	private List<DerivateStep> derivateSteps = new ArrayList<>();
 
 	/**
@@ -143,6 +151,31 @@ public class DerivansConfiguration {
 				LOGGER.warn("refuse to set {} - no PDF step present", pdfName);
 			}
 		}
+		if (params.getThreads() != null && params.getThreads() > 0) {
+			int nThreads = params.getThreads();
+			LOGGER.info("set poolsize of all steps to {}", nThreads);
+			for (DerivateStep step : this.derivateSteps) {
+				if (step instanceof DerivateStepImage) {
+					((DerivateStepImage) step).setPoolsize(nThreads);
+				} else if (step instanceof DerivateStepPDF) {
+					((DerivateStepPDF) step).setPoolsize(nThreads);
+				}
+			}
+		}
+		if (Boolean.TRUE.equals(params.isPipeline())) {
+			LOGGER.info("enable pipelined page processing");
+			this.pipeline = true;
+		}
+		if (Boolean.TRUE.equals(params.isResume())) {
+			this.resume = true;
+		}
+		if (params.getPathCache() != null) {
+			this.pathCache = params.getPathCache();
+		}
+		if (Boolean.TRUE.equals(params.isForce())) {
+			LOGGER.info("force processing of all pages");
+			this.resume = false;
+		}
 		var theStep = this.firstStepByClazz("DerivateStepImageFooter");
 		if (params.getPathFooter() != null) {
 			var newTemplate = params.getPathFooter();
@@ -173,6 +206,64 @@ public class DerivansConfiguration {
 		this.defaultPoolsize = poolsize;
 	}
 
+	/**
+	 * 
+	 * Whether pages shall be streamed through all
+	 * steps rather than step by step
+	 * 
+	 * @return
+	 */
+	public boolean isPipeline() {
+		return this.pipeline;
+	}
+
+	public void setPipeline(boolean pipeline) {
+		this.pipeline = pipeline;
+	}
+
+	/**
+	 * 
+	 * Whether pages with still valid results of a previous
+	 * run, according to their step manifest, shall be skipped
+	 * 
+	 * @return
+	 */
+	public boolean isResume() {
+		return this.resume;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	/**
+	 * 
+	 * Directory of cache for image results, if any
+	 * 
+	 * @return
+	 */
+	public Optional<Path> getPathCache() {
+		return Optional.ofNullable(this.pathCache);
+	}
+
+	public void setPathCache(Path pathCache) {
+		this.pathCache = pathCache;
+	}
+
+	/**
+	 * 
+	 * Upper bound of cache size in MB
+	 * 
+	 * @return
+	 */
+	public long getCacheSize() {
+		return this.cacheSize;
+	}
+
+	public void setCacheSize(long cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+
 	public List<DerivateStep> getDerivateSteps() {
 		return derivateSteps;
 	}
@@ -199,6 +290,22 @@ public class DerivansConfiguration {
 		if (conf.containsKey("default_poolsize")) {
 			this.defaultPoolsize = conf.getInt("default_poolsize");
 		}
+		if (conf.containsKey(DefaultConfiguration.Key.PIPELINE)) {
+			this.pipeline = conf.getBoolean(DefaultConfiguration.Key.PIPELINE);
+		}
+		if (conf.containsKey(DefaultConfiguration.Key.RESUME)) {
+			this.resume = conf.getBoolean(DefaultConfiguration.Key.RESUME);
+		}
+		if (conf.containsKey(DefaultConfiguration.Key.CACHE_DIR)) {
+			Path cacheDir = Path.of(conf.getString(DefaultConfiguration.Key.CACHE_DIR));
+			if (!cacheDir.isAbsolute()) {
+				cacheDir = this.pathConfigFile.getParent().resolve(cacheDir);
+			}
+			this.pathCache = cacheDir;
+		}
+		if (conf.containsKey(DefaultConfiguration.Key.CACHE_SIZE)) {
+			this.cacheSize = conf.getLong(DefaultConfiguration.Key.CACHE_SIZE);
+		}
 		if (conf.containsKey("logger_configuration_file")) {
 			String logFile = conf.getString("logger_configuration_file");
 			Path pathLogFile = Path.of(logFile);
@@ -334,6 +441,12 @@ public class DerivansConfiguration {
 		if (optMaximal.isPresent()) {
 			step.setMaximal(optMaximal.get()); // might raise Exception
 		}
+		// resampling filter when scaling
+		String keyResampling = stepSection + ".resampling";
+		extractValue(conf, keyResampling, String.class).ifPresent(step::setResampling);
+		// take JPEG input as it is, if it already satisfies quality and maximal
+		String keyPassthrough = stepSection + ".passthrough";
+		extractValue(conf, keyPassthrough, Boolean.class).ifPresent(step::setPassthrough);
 	}
 
 	protected void enrichImageFooterInformation(DerivateStepImageFooter step, INIConfiguration conf,
@@ -385,6 +498,15 @@ public class DerivansConfiguration {
 		if (optImageDpi.isPresent()) {
 			step.setImageDpi(Integer.valueOf(optImageDpi.get()));
 		}
+		// number of workers to prepare pages in parallel
+		String keyPdfPoolsize = section + ".poolsize";
+		extractValue(conf, keyPdfPoolsize, Integer.class).ifPresent(step::setPoolsize);
+		// keep only summary of written pages for very large volumes
+		String keyPdfLowMemory = section + ".low_memory";
+		extractValue(conf, keyPdfLowMemory, Boolean.class).ifPresent(step::setLowMemory);
+		// number of ocr files read ahead in parallel
+		String keyPdfOcrPoolsize = section + ".ocr_poolsize";
+		extractValue(conf, keyPdfOcrPoolsize, Integer.class).ifPresent(step::setOcrPoolsize);
 		// on which level optional text to render: per word, per line ... ?
 		String keyPdfRenderLvl = section + ".render_text_level";
 		Optional<String> optRenderLvl = extractValue(conf, keyPdfRenderLvl, String.class);
@@ -62,6 +62,109 @@ public class DerivansParameter {
 			"(No default).\n")
 	private Path pathFooter;
 
+	@Option(name = "-p", aliases = { "--pipeline" }, required = false, usage = "Stream pages through all steps.\n" +
+			"Pass images in memory from step to step and into PDF\n" +
+			"instead of processing each step for all pages at once.\n" +
+			"(default: false)")
+	private Boolean pipeline;
+
+	@Option(name = "-r", aliases = { "--resume" }, required = false, usage = "Skip pages which results of a previous run\n" +
+			"are still valid, according to their step manifest.\n" +
+			"(default: false)")
+	private Boolean resume;
+
+	@Option(name = "-F", aliases = { "--force" }, required = false, usage = "Process all pages, even if configured\n" +
+			"to resume. (default: false)")
+	private Boolean force;
+
+	@Option(name = "-k", aliases = { "--cache-dir" }, required = false, usage = "Directory of cache for image results\n" +
+			"shared by all works and runs.\n" +
+			"Overwrites cache_dir of configuration.\n" +
+			"(No default).\n")
+	private Path pathCache;
+
+	@Option(name = "-b", aliases = { "--batch" }, required = false, usage = "Process many works in one run.\n" +
+			"Input path then stands for a list file with one METS-file\n" +
+			"or work directory per line, a glob pattern or a directory\n" +
+			"containing METS-files or work directories.\n" +
+			"(default: false)")
+	private Boolean batch;
+
+	@Option(name = "-w", aliases = { "--works" }, required = false, usage = "Number of works processed in parallel.\n" +
+			"Only used in batch mode.\n" +
+			"(default: 1)")
+	private Integer works;
+
+	@Option(name = "-t", aliases = { "--threads" }, required = false, usage = "Number of page workers per work.\n" +
+			"Overwrites poolsize of all image and PDF steps.\n" +
+			"(No default).\n")
+	private Integer threads;
+
+	@Option(name = "-C", aliases = { "--cores" }, required = false, usage = "Global budget of cores for all page workers.\n" +
+			"Shared by all steps and works running in parallel.\n" +
+			"(default: available cores minus one)")
+	private Integer cores;
+
+	@Option(name = "-M", aliases = { "--memory-budget" }, required = false, usage = "Global budget of heap in MB for\n" +
+			"decoded page images. Large pages run with fewer peers.\n" +
+			"(default: 75% of maximum heap)")
+	private Integer memoryBudget;
+
+	@Option(name = "-s", aliases = { "--summary" }, required = false, usage = "Path of batch summary file.\n" +
+			"(default: '" + DEFAULT_BATCH_SUMMARY_FILE + "')")
+	private Path pathSummary;
+
+	@Option(name = "-D", aliases = { "--daemon" }, required = false, usage = "Run as resident service accepting jobs\n" +
+			"via HTTP and spool directory.\n" +
+			"Input path then stands for the spool directory.\n" +
+			"Use -w to set number of jobs processed in parallel.\n" +
+			"(default: false)")
+	private Boolean daemon;
+
+	@Option(name = "-P", aliases = { "--port" }, required = false, usage = "HTTP port in daemon mode.\n" +
+			"(default: " + DEFAULT_DAEMON_PORT + ")")
+	private Integer port;
+
+	@Option(name = "-H", aliases = { "--host" }, required = false, usage = "Address to bind HTTP in daemon mode,\n" +
+			"i.e. 0.0.0.0 for all interfaces. Jobs aren't\n" +
+			"authenticated, thus only use with care.\n" +
+			"(default: loopback only)")
+	private String host;
+
+	public DerivansParameter() {
+		// required by args4j
+	}
+
+	/**
+	 * 
+	 * Copy all parameters, for example to
+	 * overwrite some of them for a single job
+	 * 
+	 * @param another
+	 */
+	public DerivansParameter(DerivansParameter another) {
+		this.pathInput = another.pathInput;
+		this.pathConfig = another.pathConfig;
+		this.images = another.images;
+		this.ocr = another.ocr;
+		this.debugPdfRender = another.debugPdfRender;
+		this.namePDF = another.namePDF;
+		this.pathFooter = another.pathFooter;
+		this.pipeline = another.pipeline;
+		this.resume = another.resume;
+		this.force = another.force;
+		this.pathCache = another.pathCache;
+		this.batch = another.batch;
+		this.works = another.works;
+		this.threads = another.threads;
+		this.cores = another.cores;
+		this.memoryBudget = another.memoryBudget;
+		this.pathSummary = another.pathSummary;
+		this.daemon = another.daemon;
+		this.port = another.port;
+		this.host = another.host;
+	}
+
 	/**
 	 * 
 	 * Set specific Parser Information
@@ -129,4 +232,108 @@ public class DerivansParameter {
 	public void setPathFooter(Path pathFooter) {
 		this.pathFooter = pathFooter;
 	}
+
+	public Boolean isPipeline() {
+		return this.pipeline != null && this.pipeline;
+	}
+
+	public void setPipeline(boolean isRequired) {
+		this.pipeline = isRequired;
+	}
+
+	public Boolean isBatch() {
+		return this.batch != null && this.batch;
+	}
+
+	public void setBatch(boolean isRequired) {
+		this.batch = isRequired;
+	}
+
+	public Integer getWorks() {
+		return this.works;
+	}
+
+	public void setWorks(Integer works) {
+		this.works = works;
+	}
+
+	public Integer getThreads() {
+		return this.threads;
+	}
+
+	public void setThreads(Integer threads) {
+		this.threads = threads;
+	}
+
+	public Path getPathSummary() {
+		return this.pathSummary;
+	}
+
+	public void setPathSummary(Path pathSummary) {
+		this.pathSummary = pathSummary;
+	}
+
+	public Boolean isDaemon() {
+		return this.daemon != null && this.daemon;
+	}
+
+	public void setDaemon(boolean isRequired) {
+		this.daemon = isRequired;
+	}
+
+	public Integer getPort() {
+		return this.port;
+	}
+
+	public void setPort(Integer port) {
+		this.port = port;
+	}
+
+	public String getHost() {
+		return this.host;
+	}
+
+	public void setHost(String host) {
+		this.host = host;
+	}
+
+	public Integer getCores() {
+		return this.cores;
+	}
+
+	public void setCores(Integer cores) {
+		this.cores = cores;
+	}
+
+	public Integer getMemoryBudget() {
+		return this.memoryBudget;
+	}
+
+	public void setMemoryBudget(Integer memoryBudget) {
+		this.memoryBudget = memoryBudget;
+	}
+
+	public Boolean isResume() {
+		return this.resume != null && this.resume;
+	}
+
+	public void setResume(boolean isRequired) {
+		this.resume = isRequired;
+	}
+
+	public Boolean isForce() {
+		return this.force != null && this.force;
+	}
+
+	public void setForce(boolean isRequired) {
+		this.force = isRequired;
+	}
+
+	public Path getPathCache() {
+		return this.pathCache;
+	}
+
+	public void setPathCache(Path pathCache) {
+		this.pathCache = pathCache;
+	}
 }
@@ -0,0 +1,236 @@
+package de.ulb.digital.derivans.data.image;
+
+import java.io.IOException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.spi.IIORegistry;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ *
+ * Process-wide pool of image readers and writers
+ *
+ * Creating ImageIO codecs is expensive, since JPEG codecs
+ * allocate native state, which is only released if they're
+ * disposed or, much later, finalized. Therefore codecs are
+ * borrowed from this pool for a single page and returned
+ * afterwards, being reset in between.
+ *
+ * Readers are pooled per service provider, selected by
+ * peeking at the input without creating new instances.
+ * Codecs exceeding {@link #MAX_IDLE} per provider are
+ * disposed instead of being kept.
+ *
+ * @author hartwig
+ *
+ */
+public final class ImageCodecs {
+
+	private static final Logger LOGGER = LogManager.getLogger(ImageCodecs.class);
+
+	/**
+	 * Idle codecs kept per service provider
+	 */
+	public static final int MAX_IDLE = 32;
+
+	public static final String FORMAT_JPEG = "jpeg";
+
+	private static final Map<Object, Deque<ImageReader>> READERS = new ConcurrentHashMap<>();
+
+	private static final Map<Object, Deque<ImageWriter>> WRITERS = new ConcurrentHashMap<>();
+
+	private static final AtomicLong CREATED = new AtomicLong();
+
+	private static final AtomicLong REUSED = new AtomicLong();
+
+	private ImageCodecs() {
+	}
+
+	/**
+	 *
+	 * Borrowed codec, returned to the pool when closed
+	 *
+	 * @param <T> ImageReader or ImageWriter
+	 */
+	public static final class Codec<T> implements AutoCloseable {
+
+		private final T codec;
+
+		private final Consumer<T> giveBack;
+
+		private boolean isReturned;
+
+		private Codec(T codec, Consumer<T> giveBack) {
+			this.codec = codec;
+			this.giveBack = giveBack;
+		}
+
+		public T get() {
+			return this.codec;
+		}
+
+		@Override
+		public void close() {
+			if (!this.isReturned) {
+				this.isReturned = true;
+				this.giveBack.accept(this.codec);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Borrow reader able to decode given input, with the
+	 * input already set to be read forward only and
+	 * ignoring metadata
+	 *
+	 * @param iis
+	 * @return reader, null if no reader matches
+	 * @throws IOException
+	 */
+	public static Codec<ImageReader> reader(ImageInputStream iis) throws IOException {
+		return ImageCodecs.reader(iis, true);
+	}
+
+	/**
+	 *
+	 * Borrow reader able to decode given input, with
+	 * the input already set to be read forward only
+	 *
+	 * @param iis
+	 * @param ignoreMetadata
+	 * @return reader, null if no reader matches
+	 * @throws IOException
+	 */
+	public static Codec<ImageReader> reader(ImageInputStream iis, boolean ignoreMetadata) throws IOException {
+		ImageReaderSpi spi = iis != null ? ImageCodecs.readerProvider(iis) : null;
+		if (spi == null) {
+			return null;
+		}
+		Deque<ImageReader> idle = READERS.computeIfAbsent(spi.getClass(), k -> new ConcurrentLinkedDeque<>());
+		ImageReader reader = idle.pollFirst();
+		if (reader == null) {
+			reader = spi.createReaderInstance();
+			CREATED.incrementAndGet();
+		} else {
+			REUSED.incrementAndGet();
+		}
+		reader.setInput(iis, true, ignoreMetadata);
+		return new Codec<>(reader, r -> ImageCodecs.giveBack(r, idle));
+	}
+
+	/**
+	 *
+	 * Borrow writer for JPEG
+	 *
+	 * @return writer
+	 */
+	public static Codec<ImageWriter> jpegWriter() {
+		Deque<ImageWriter> idle = WRITERS.computeIfAbsent(FORMAT_JPEG, k -> new ConcurrentLinkedDeque<>());
+		ImageWriter writer = idle.pollFirst();
+		if (writer == null) {
+			writer = ImageIO.getImageWritersByFormatName(FORMAT_JPEG).next();
+			CREATED.incrementAndGet();
+		} else {
+			REUSED.incrementAndGet();
+		}
+		return new Codec<>(writer, w -> ImageCodecs.giveBack(w, idle));
+	}
+
+	private static ImageReaderSpi readerProvider(ImageInputStream iis) throws IOException {
+		Iterator<ImageReaderSpi> providers = IIORegistry.getDefaultInstance()
+				.getServiceProviders(ImageReaderSpi.class, true);
+		while (providers.hasNext()) {
+			ImageReaderSpi spi = providers.next();
+			iis.mark();
+			try {
+				if (spi.canDecodeInput(iis)) {
+					return spi;
+				}
+			} finally {
+				iis.reset();
+			}
+		}
+		return null;
+	}
+
+	private static void giveBack(ImageReader reader, Deque<ImageReader> idle) {
+		reader.reset();
+		if (idle.size() < MAX_IDLE) {
+			idle.offerFirst(reader);
+		} else {
+			reader.dispose();
+		}
+	}
+
+	private static void giveBack(ImageWriter writer, Deque<ImageWriter> idle) {
+		writer.reset();
+		if (idle.size() < MAX_IDLE) {
+			idle.offerFirst(writer);
+		} else {
+			writer.dispose();
+		}
+	}
+
+	/**
+	 *
+	 * Dispose all idle codecs, i.e. release their native
+	 * resources right now
+	 *
+	 */
+	public static void disposeIdle() {
+		int nDisposed = 0;
+		for (Deque<ImageReader> idle : READERS.values()) {
+			ImageReader reader;
+			while ((reader = idle.pollFirst()) != null) {
+				reader.dispose();
+				nDisposed++;
+			}
+		}
+		for (Deque<ImageWriter> idle : WRITERS.values()) {
+			ImageWriter writer;
+			while ((writer = idle.pollFirst()) != null) {
+				writer.dispose();
+				nDisposed++;
+			}
+		}
+		LOGGER.debug("disposed {} idle codecs (created: {}, reused: {})", nDisposed, CREATED.get(), REUSED.get());
+	}
+
+	/**
+	 *
+	 * Number of idle codecs currently pooled
+	 *
+	 */
+	public static int getNumberOfIdle() {
+		int n = 0;
+		for (Deque<ImageReader> idle : READERS.values()) {
+			n += idle.size();
+		}
+		for (Deque<ImageWriter> idle : WRITERS.values()) {
+			n += idle.size();
+		}
+		return n;
+	}
+
+	public static long getCreated() {
+		return CREATED.get();
+	}
+
+	public static long getReused() {
+		return REUSED.get();
+	}
+}
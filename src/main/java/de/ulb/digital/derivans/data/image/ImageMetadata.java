@@ -144,15 +144,36 @@ public class ImageMetadata {
 	 * @throws DigitalDerivansException
 	 */
 	public void enrichFrom(Path pathIn) throws IOException, DigitalDerivansException {
-		ImageInputStream iis = ImageIO.createImageInputStream(pathIn.toFile());
-		Iterator<ImageReader> readerator = ImageIO.getImageReaders(iis);
-		if (!readerator.hasNext()) {
-			throw new DigitalDerivansException("Unable to recognize image '" + pathIn + "'!");
+		try (ImageInputStream iis = ImageIO.createImageInputStream(pathIn.toFile());
+				var reader = ImageCodecs.reader(iis, false)) {
+			if (reader == null) {
+				throw new DigitalDerivansException("Unable to recognize image '" + pathIn + "'!");
+			}
+			this.enrichFrom(reader.get(), pathIn);
+		}
+	}
+
+	/**
+	 * 
+	 * Like {@link #enrichFrom(Path)}, but gather metadata of
+	 * preceeding image from a reader already set to it's input,
+	 * which must not ignore metadata. This way pixels and
+	 * metadata can be read within a single pass.
+	 * 
+	 * @param inputReader
+	 * @param label       Identify input in case of errors
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public void enrichFrom(ImageReader inputReader, Object label) throws IOException, DigitalDerivansException {
+		try (var writer = ImageCodecs.jpegWriter()) {
+			this.enrichFrom(inputReader, writer.get(), label);
 		}
-		ImageReader inputReader = readerator.next();
-		inputReader.setInput(iis);
+	}
+
+	private void enrichFrom(ImageReader inputReader, ImageWriter jpgWriter, Object label)
+			throws IOException, DigitalDerivansException {
 		ImageTypeSpecifier imageType = inputReader.getImageTypes(0).next();
-		ImageWriter jpgWriter = ImageIO.getImageWritersBySuffix(FILE_EXT_JPEG).next();
 		ImageWriteParam defaultParams = jpgWriter.getDefaultWriteParam();
 		// imgType considers only Colorspace and SampleModel, so it's
 		// okay to re-use this, even for conversions from TIFF to JPEG
@@ -173,7 +194,7 @@ public class ImageMetadata {
 			}
 			// enrich and sanitize if source determined
 			if (sourceTree == null) {
-				throw new DigitalDerivansException("no valid metadata source for " + pathIn + "!");
+				throw new DigitalDerivansException("no valid metadata source for " + label + "!");
 			}
 			enrichMetadata(jfif, sourceTree);
 			sanitizeMetadata(jfif);
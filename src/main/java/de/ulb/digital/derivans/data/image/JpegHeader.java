@@ -0,0 +1,186 @@
+package de.ulb.digital.derivans.data.image;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * Frame information of a JPEG, read from it's markers
+ * up to the first scan without decoding anything.
+ *
+ * Besides dimensions this reveals whether the data can be
+ * embedded as it is into other formats, i.e. PDF with
+ * DCTDecode filter, which requires a Huffman coded frame
+ * with 8 bit samples in a device colorspace. Data with an
+ * embedded ICC profile or Adobe color transform is reported
+ * as not embeddable, since it's colors must be interpreted
+ * differently.
+ *
+ * @author hartwig
+ *
+ */
+public final class JpegHeader {
+
+	static final int MARKER_SOI = 0xD8;
+
+	static final int MARKER_SOS = 0xDA;
+
+	static final int MARKER_APP2 = 0xE2;
+
+	static final int MARKER_APP14 = 0xEE;
+
+	private static final byte[] ICC_PROFILE = "ICC_PROFILE\0".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] ADOBE = "Adobe".getBytes(StandardCharsets.US_ASCII);
+
+	private int frameMarker = -1;
+
+	private int width;
+
+	private int height;
+
+	private int precision;
+
+	private int components;
+
+	private boolean hasIccProfile;
+
+	private boolean hasAdobeMarker;
+
+	private JpegHeader() {
+	}
+
+	/**
+	 *
+	 * Read header from given input, which is consumed
+	 * up to the start of the first scan
+	 *
+	 * @param input
+	 * @return header or null if input isn't JPEG
+	 *         or contains no frame before first scan
+	 * @throws IOException
+	 */
+	public static JpegHeader read(InputStream input) throws IOException {
+		DataInputStream in = new DataInputStream(input);
+		try {
+			if (in.readUnsignedByte() != 0xFF || in.readUnsignedByte() != MARKER_SOI) {
+				return null;
+			}
+			JpegHeader header = new JpegHeader();
+			while (true) {
+				int marker = JpegHeader.nextMarker(in);
+				if (marker == MARKER_SOS) {
+					return header.frameMarker < 0 ? null : header;
+				}
+				if (JpegHeader.isStandalone(marker)) {
+					continue;
+				}
+				int length = in.readUnsignedShort() - 2;
+				if (length < 0) {
+					return null;
+				}
+				if (JpegHeader.isFrame(marker)) {
+					header.frameMarker = marker;
+					header.precision = in.readUnsignedByte();
+					header.height = in.readUnsignedShort();
+					header.width = in.readUnsignedShort();
+					header.components = in.readUnsignedByte();
+					JpegHeader.skip(in, length - 6);
+				} else if (marker == MARKER_APP2) {
+					header.hasIccProfile |= JpegHeader.startsWith(in, length, ICC_PROFILE);
+				} else if (marker == MARKER_APP14) {
+					header.hasAdobeMarker |= JpegHeader.startsWith(in, length, ADOBE);
+				} else {
+					JpegHeader.skip(in, length);
+				}
+			}
+		} catch (EOFException e) {
+			return null;
+		}
+	}
+
+	private static int nextMarker(DataInputStream in) throws IOException {
+		int b = in.readUnsignedByte();
+		while (b != 0xFF) {
+			b = in.readUnsignedByte();
+		}
+		// skip fill bytes
+		while (b == 0xFF) {
+			b = in.readUnsignedByte();
+		}
+		return b;
+	}
+
+	private static void skip(DataInputStream in, int n) throws IOException {
+		int remaining = n;
+		while (remaining > 0) {
+			int skipped = in.skipBytes(remaining);
+			if (skipped < 1) {
+				in.readUnsignedByte();
+				skipped = 1;
+			}
+			remaining -= skipped;
+		}
+	}
+
+	/**
+	 * Markers without length, i.e. TEM and RST0-7
+	 */
+	private static boolean isStandalone(int marker) {
+		return marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7);
+	}
+
+	/**
+	 * SOF0-SOF15 except DHT, JPG and DAC
+	 */
+	private static boolean isFrame(int marker) {
+		return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+	}
+
+	/**
+	 * Consume segment data of given length and check
+	 * if it starts with given identifier
+	 */
+	private static boolean startsWith(DataInputStream in, int length, byte[] identifier) throws IOException {
+		byte[] data = new byte[length];
+		in.readFully(data);
+		if (length < identifier.length) {
+			return false;
+		}
+		for (int i = 0; i < identifier.length; i++) {
+			if (data[i] != identifier[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public int getWidth() {
+		return this.width;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+
+	public int getComponents() {
+		return this.components;
+	}
+
+	/**
+	 *
+	 * Check if data can be embedded as it is with DCTDecode
+	 * filter in DeviceGray or DeviceRGB colorspace
+	 *
+	 * @return
+	 */
+	public boolean isEmbeddable() {
+		boolean isHuffman = this.frameMarker >= 0xC0 && this.frameMarker <= 0xC2;
+		return isHuffman && this.precision == 8 && this.width > 0 && this.height > 0
+				&& (this.components == 1 || this.components == 3)
+				&& !this.hasIccProfile && !this.hasAdobeMarker;
+	}
+}
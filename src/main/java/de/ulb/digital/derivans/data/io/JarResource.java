@@ -7,8 +7,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import de.ulb.digital.derivans.Derivans;
 import de.ulb.digital.derivans.DigitalDerivansException;
@@ -22,6 +25,8 @@ import de.ulb.digital.derivans.DigitalDerivansException;
  */
 public class JarResource {
 
+	private static final Map<String, Path> EXTRACTED = new ConcurrentHashMap<>();
+
 	private String resPath;
 
 	private Path tmpPath;
@@ -48,6 +53,13 @@ public class JarResource {
 	public String extract(String prefix, String suffix) throws DigitalDerivansException {
 		ClassLoader cl = this.getClass().getClassLoader();
 		if (cl.getResource(this.resPath) != null) {
+			// extract each resource only once per JVM
+			String cacheKey = prefix + this.resPath + suffix;
+			Path extracted = EXTRACTED.get(cacheKey);
+			if (extracted != null && Files.exists(extracted)) {
+				this.tmpPath = extracted;
+				return extracted.toString();
+			}
 			try (InputStream input = cl.getResourceAsStream(this.resPath)) {
 				File file = File.createTempFile(prefix, suffix);
 				this.tmpPath = file.toPath();
@@ -59,6 +71,7 @@ public class JarResource {
 					}
 				}
 				file.deleteOnExit();
+				EXTRACTED.put(cacheKey, this.tmpPath);
 				return file.toString();
 			} catch (IOException e) {
 				throw new DigitalDerivansException(e);
@@ -1,86 +1,160 @@
 package de.ulb.digital.derivans.data.ocr;
 
 import java.awt.Dimension;
-import java.awt.Rectangle;
+import java.io.InputStream;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
-import org.jdom2.Element;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
-import de.ulb.digital.derivans.data.xml.XMLHandler;
 import de.ulb.digital.derivans.model.ocr.OCRData;
-import de.ulb.digital.derivans.model.text.Textline;
-import de.ulb.digital.derivans.model.text.Word;
+import de.ulb.digital.derivans.model.text.PageText;
 
 /**
- * 
+ *
  * Transform ALTO OCR data into domain OCR data
- * 
+ *
+ * ALTO is streamed rather than built into a document, since
+ * only page dimension, lines and their words are required.
+ * Lines and words are added to {@link PageText compact text}
+ * directly while reading, whereas contents of words, i.e. glyphs
+ * and alternatives, are skipped and any other element is passed
+ * without creating anything.
+ *
  * @author u.hartwig
  *
  */
 public class ALTOReader implements OCRReader {
 
-	private XMLHandler handler;
-
 	public static final Predicate<String> VALID_TEXT = new ValidTextPredicate();
 
-	protected Type type;
+	static final String ALTO_PAGE = "Page";
+
+	static final String ALTO_TEXTLINE = "TextLine";
+
+	static final String ALTO_STRING = "String";
+
+	/**
+	 * Factory is only configured once, creating
+	 * stream readers is safe from any thread
+	 */
+	private static final XMLInputFactory FACTORY = ALTOReader.createFactory();
+
+	protected final Type type;
 
 	public ALTOReader(Type type) {
 		this.type = type;
 	}
 
-	@Override
-	public OCRData get(Path pathOcr) throws DigitalDerivansException {
-		this.handler = new XMLHandler(pathOcr);
-		var dim = extractPageDimension();
-		var lines = extractTextLines();
-		return new OCRData(lines, dim);
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		// please sonarqube "Disable access to external entities in XML parsing"
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		return factory;
 	}
 
-	private Dimension extractPageDimension() throws DigitalDerivansException{
-		List<Element> pages = this.handler.extractElements("Page");
-		if (pages.isEmpty()) {
-			var filePath = this.handler.getFilePath();
-			throw new DigitalDerivansException("No Page data: " + filePath);
+	@Override
+	public OCRData get(InputStream input, Path pathOcr) throws DigitalDerivansException {
+		try {
+			XMLStreamReader reader = FACTORY.createXMLStreamReader(input);
+			try {
+				return this.read(reader, pathOcr);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new DigitalDerivansException(e);
 		}
-		var page = pages.get(0);
-		int w = Integer.parseInt(page.getAttributeValue("WIDTH"));
-		int h = Integer.parseInt(page.getAttributeValue("HEIGHT"));
-		return new Dimension(w, h);
 	}
 
-	protected List<Textline> extractTextLines() {
-		List<Textline> lines = new ArrayList<>();
-		List<Element> altoLines = this.handler.extractElements("TextLine");
-		for (Element el : altoLines) {
-			List<Element> strings = el.getChildren("String", getType().toNS());
-			var texts = strings.parallelStream()
-					.filter(e -> VALID_TEXT.test(e.getAttributeValue("CONTENT")))
-					.map(ALTOReader::toText)
-					.filter(Word::hasPrintableChars)
-					.collect(Collectors.toList());
-			if (!texts.isEmpty()) {
-				Textline line = new Textline(texts);
-				lines.add(line);
+	/**
+	 *
+	 * Take dimension of first page and all lines in document order,
+	 * with words being direct children in namespace of this type
+	 *
+	 */
+	private OCRData read(XMLStreamReader reader, Path pathOcr) throws XMLStreamException, DigitalDerivansException {
+		String namespace = this.type.toNS().getURI();
+		Dimension dim = null;
+		PageText.Builder text = new PageText.Builder();
+		int depth = 0;
+		int lineDepth = -1;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				String name = reader.getLocalName();
+				if (lineDepth > 0 && depth == lineDepth + 1 && ALTO_STRING.equals(name)
+						&& namespace.equals(reader.getNamespaceURI())) {
+					ALTOReader.addWord(reader, text);
+					ALTOReader.skipElement(reader);
+					depth--;
+				} else if (ALTO_TEXTLINE.equals(name)) {
+					lineDepth = depth;
+				} else if (dim == null && ALTO_PAGE.equals(name)) {
+					int w = Integer.parseInt(reader.getAttributeValue(null, "WIDTH"));
+					int h = Integer.parseInt(reader.getAttributeValue(null, "HEIGHT"));
+					dim = new Dimension(w, h);
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == lineDepth) {
+					if (text.getPendingWords() > 0) {
+						text.endLine();
+					}
+					lineDepth = -1;
+				}
+				depth--;
 			}
 		}
-		return lines;
+		if (dim == null) {
+			throw new DigitalDerivansException("No Page data: " + pathOcr);
+		}
+		return new OCRData(text.build(), dim);
+	}
+
+	/**
+	 *
+	 * Add word from attributes of current String element,
+	 * unless it's content isn't valid, thus not printable
+	 *
+	 * @param reader positioned at start of String element
+	 * @param text
+	 */
+	static void addWord(XMLStreamReader reader, PageText.Builder text) {
+		String content = reader.getAttributeValue(null, "CONTENT");
+		if (!VALID_TEXT.test(content)) {
+			return;
+		}
+		int x = Integer.parseInt(reader.getAttributeValue(null, "HPOS"));
+		int y = Integer.parseInt(reader.getAttributeValue(null, "VPOS"));
+		int width = Integer.parseInt(reader.getAttributeValue(null, "WIDTH"));
+		int height = Integer.parseInt(reader.getAttributeValue(null, "HEIGHT"));
+		text.addWord(content, x, y, width, height);
 	}
 
-	static Word toText(Element word) {
-		String content = word.getAttributeValue("CONTENT");
-		int x = Integer.parseInt(word.getAttributeValue("HPOS"));
-		int y = Integer.parseInt(word.getAttributeValue("VPOS"));
-		int width = Integer.parseInt(word.getAttributeValue("WIDTH"));
-		int height = Integer.parseInt(word.getAttributeValue("HEIGHT"));
-		Rectangle rect = new Rectangle(x, y, width, height);
-		return new Word(content, rect);
+	/**
+	 *
+	 * Pass contents of current element up to it's end
+	 *
+	 * @param reader positioned at start of element
+	 * @throws XMLStreamException
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int level = 1;
+		while (level > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				level++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				level--;
+			}
+		}
 	}
 
 	@Override
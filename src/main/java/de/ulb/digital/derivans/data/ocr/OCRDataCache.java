@@ -0,0 +1,247 @@
+package de.ulb.digital.derivans.data.ocr;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.model.ocr.OCRData;
+
+/**
+ *
+ * Process-wide bounded cache of OCR data read from files
+ *
+ * Pages only refer to their OCR files, and data is read into
+ * this cache when it's requested. Each file is read exactly once,
+ * even if requested by several workers at the same time, since
+ * concurrent requests for missing data wait for the first one.
+ *
+ * Data is evicted as soon as it's consumer is done with it, or if
+ * it's least recently used when the cache exceeds it's capacity.
+ * Therefore heap usage doesn't grow with the total amount of OCR
+ * data of a work, and evicted data is simply read again if it's
+ * requested once more.
+ *
+ * Each work reading ahead {@link #reserve(int) reserves} additional
+ * room for it's pages, thus works running in parallel don't evict
+ * each other's data. Data is only taken from the cache if size and
+ * modification time of it's file are still the same, since files
+ * might be corrected between jobs of a long running process.
+ *
+ * @author hartwig
+ *
+ */
+public class OCRDataCache {
+
+	/**
+	 * Pages kept at most besides those reserved, also
+	 * pages read ahead by a single work at most
+	 */
+	public static final int DEFAULT_CAPACITY = 64;
+
+	private static OCRDataCache instance;
+
+	private final int capacity;
+
+	private final Map<Path, Entry> entries;
+
+	private int reserved;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	public OCRDataCache(int capacity) {
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+				boolean isFull = this.size() > OCRDataCache.this.getBound();
+				if (isFull) {
+					OCRDataCache.this.evictions.incrementAndGet();
+				}
+				return isFull;
+			}
+		};
+	}
+
+	/**
+	 *
+	 * Shared instance, created on first use
+	 * with {@link #DEFAULT_CAPACITY}
+	 *
+	 * @return
+	 */
+	public static synchronized OCRDataCache get() {
+		if (instance == null) {
+			instance = new OCRDataCache(DEFAULT_CAPACITY);
+		}
+		return instance;
+	}
+
+	/**
+	 *
+	 * Get data of given OCR file, read it if missing
+	 *
+	 * @param ocrPath
+	 * @return data
+	 * @throws DigitalDerivansException if file can't be read,
+	 *                                  which isn't cached
+	 */
+	public OCRData get(Path ocrPath) throws DigitalDerivansException {
+		BasicFileAttributes attributes;
+		try {
+			attributes = Files.readAttributes(ocrPath, BasicFileAttributes.class);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+		Entry entry;
+		synchronized (this.entries) {
+			entry = this.entries.get(ocrPath);
+			if (entry == null || !entry.isSameFile(attributes)) {
+				entry = new Entry(attributes);
+				this.entries.put(ocrPath, entry);
+				this.misses.incrementAndGet();
+			} else {
+				this.hits.incrementAndGet();
+			}
+		}
+		try {
+			return entry.get(ocrPath);
+		} catch (DigitalDerivansException e) {
+			synchronized (this.entries) {
+				this.entries.remove(ocrPath, entry);
+			}
+			throw e;
+		}
+	}
+
+	public boolean contains(Path ocrPath) {
+		synchronized (this.entries) {
+			return this.entries.containsKey(ocrPath);
+		}
+	}
+
+	/**
+	 *
+	 * Drop data of given OCR file, since it's consumed
+	 *
+	 * @param ocrPath
+	 */
+	public void evict(Path ocrPath) {
+		synchronized (this.entries) {
+			this.entries.remove(ocrPath);
+		}
+	}
+
+	/**
+	 *
+	 * Reserve room for pages read ahead by a work
+	 *
+	 * @param nPages
+	 */
+	public void reserve(int nPages) {
+		synchronized (this.entries) {
+			this.reserved += nPages;
+		}
+	}
+
+	/**
+	 *
+	 * Return room reserved before, evict least recently
+	 * used data if cache exceeds it's bound afterwards
+	 *
+	 * @param nPages
+	 */
+	public void unreserve(int nPages) {
+		synchronized (this.entries) {
+			this.reserved = Math.max(0, this.reserved - nPages);
+			var it = this.entries.entrySet().iterator();
+			while (this.entries.size() > this.getBound() && it.hasNext()) {
+				it.next();
+				it.remove();
+				this.evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 *
+	 * Capacity including all reserved room
+	 *
+	 * @return
+	 */
+	public int getBound() {
+		synchronized (this.entries) {
+			return this.capacity + this.reserved;
+		}
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public long getEvictions() {
+		return this.evictions.get();
+	}
+
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("hits: %d, misses: %d, evictions: %d", this.getHits(), this.getMisses(),
+				this.getEvictions());
+	}
+
+	/**
+	 *
+	 * Data read at most once from file with
+	 * given size and modification time
+	 *
+	 */
+	private static class Entry {
+
+		private final long size;
+
+		private final FileTime modified;
+
+		private OCRData data;
+
+		Entry(BasicFileAttributes attributes) {
+			this.size = attributes.size();
+			this.modified = attributes.lastModifiedTime();
+		}
+
+		boolean isSameFile(BasicFileAttributes attributes) {
+			return this.size == attributes.size() && this.modified.equals(attributes.lastModifiedTime());
+		}
+
+		synchronized OCRData get(Path ocrPath) throws DigitalDerivansException {
+			if (this.data == null) {
+				this.data = OCRReaderFactory.read(ocrPath);
+			}
+			return this.data;
+		}
+	}
+}
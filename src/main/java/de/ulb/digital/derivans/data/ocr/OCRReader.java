@@ -1,5 +1,9 @@
 package de.ulb.digital.derivans.data.ocr;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
@@ -10,10 +14,18 @@ import de.ulb.digital.derivans.model.ocr.OCRData;
  * 
  * Interface for reading OCR-Data from a given resource.
  * 
+ * Readers don't keep any state of a read document, therefore
+ * a single reader might be used concurrently.
+ * 
  * @author u.hartwig
  *
  */
 public interface OCRReader {
+
+	/**
+	 * Size of buffer used to read OCR files
+	 */
+	int READ_BUFFER_SIZE = 1 << 16;
 	
 	/**
 	 * 
@@ -23,7 +35,25 @@ public interface OCRReader {
 	 * @return ocr data
 	 * @throws DigitalDerivansException
 	 */
-	OCRData get(Path pathOcr) throws DigitalDerivansException;
+	default OCRData get(Path pathOcr) throws DigitalDerivansException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(pathOcr), READ_BUFFER_SIZE)) {
+			return this.get(in, pathOcr);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+	}
+
+	/**
+	 * 
+	 * Read OCR-Data from stream already opened for given {@link Path},
+	 * which is left open.
+	 * 
+	 * @param input
+	 * @param pathOcr used for messages
+	 * @return ocr data
+	 * @throws DigitalDerivansException
+	 */
+	OCRData get(InputStream input, Path pathOcr) throws DigitalDerivansException;
 
 	/**
 	 * 
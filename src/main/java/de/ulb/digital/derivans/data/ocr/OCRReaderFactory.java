@@ -1,49 +1,94 @@
 package de.ulb.digital.derivans.data.ocr;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.model.ocr.OCRData;
 
 /**
- * 
+ *
  * Create {@link OCRReader} depending on provided data
- * 
+ *
+ * Format is sniffed from the first bytes of a file, which are
+ * read into the very same buffer later used for parsing, so each
+ * file is opened only once.
+ *
  * @author u.hartwig
  *
  */
 public class OCRReaderFactory {
 
-	private static List<OCRReader> readers = new ArrayList<>();
+	/**
+	 * Bytes inspected to detect format, which contain the
+	 * root element with it's namespace declarations
+	 */
+	static final int PRELUDE_SIZE = 1024;
 
-	static {
-		readers.add(new ALTOReader(Type.ALTO_V4));
-		readers.add(new ALTOReader(Type.ALTO_V3));
-		readers.add(new PAGEReader(Type.PAGE_2019));
-	}
-	
 	private OCRReaderFactory() {}
-	
+
+	/**
+	 *
+	 * Create reader matching format of given file. Readers
+	 * don't keep state of a read document, therefore they
+	 * might be used concurrently for different works
+	 *
+	 * @param path
+	 * @return
+	 * @throws DigitalDerivansException
+	 */
 	public static OCRReader from(Path path) throws DigitalDerivansException {
-		
-		String prelude = readStart(path);
-		Type type = mapToType(prelude);
-		if(type != Type.UNKNOWN) {
-			for (OCRReader r : readers) {
-				if(r.getType() == type) {
-					return r;
-				}
-			}
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path), PRELUDE_SIZE)) {
+			return OCRReaderFactory.from(in, path);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+	}
+
+	/**
+	 *
+	 * Read given file with reader matching it's format
+	 * from a single stream
+	 *
+	 * @param path
+	 * @return ocr data
+	 * @throws DigitalDerivansException
+	 */
+	public static OCRData read(Path path) throws DigitalDerivansException {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path), OCRReader.READ_BUFFER_SIZE)) {
+			return OCRReaderFactory.from(in, path).get(in, path);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+	}
+
+	/**
+	 *
+	 * Detect format from start of stream, which is reset
+	 * afterwards to be read again
+	 *
+	 */
+	private static OCRReader from(InputStream in, Path path) throws IOException, DigitalDerivansException {
+		in.mark(PRELUDE_SIZE);
+		byte[] prelude = in.readNBytes(PRELUDE_SIZE);
+		in.reset();
+		// namespaces and element names are plain ASCII
+		String start = new String(prelude, StandardCharsets.ISO_8859_1);
+		Type type = OCRReaderFactory.mapToType(start);
+		if (type == Type.ALTO_V4 || type == Type.ALTO_V3) {
+			return new ALTOReader(type);
+		} else if (type == Type.PAGE_2019) {
+			return new PAGEReader(type);
 		}
-		
+
 		throw new DigitalDerivansException("Unknown OCR-Data format detected in "+path);
 	}
 
-	private static Type mapToType(String prelude) {
+	static Type mapToType(String prelude) {
 		if(prelude.contains("<alto ")) {
 			if(prelude.contains("alto/ns-v4")) {
 				return Type.ALTO_V4;
@@ -55,15 +100,4 @@ public class OCRReaderFactory {
 		}
 		return Type.UNKNOWN;
 	}
-
-	private static String readStart(Path path) throws DigitalDerivansException {
-		try (FileReader reader = new FileReader(path.toString());
-		     BufferedReader bufferedReader = new BufferedReader(reader, 256)) {
-		  char[] cBuff = new char[256];
-		  bufferedReader.read(cBuff);
-		  return String.valueOf(cBuff);
-		} catch (IOException e) {
-			throw new DigitalDerivansException(e);
-		}
-	}
 }
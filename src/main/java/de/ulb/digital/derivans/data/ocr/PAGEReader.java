@@ -2,104 +2,269 @@ package de.ulb.digital.derivans.data.ocr;
 
 import java.awt.Dimension;
 import java.awt.Rectangle;
-import java.awt.Polygon;
+import java.io.InputStream;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
-import org.jdom2.Element;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
-import de.ulb.digital.derivans.data.xml.XMLHandler;
 import de.ulb.digital.derivans.model.ocr.OCRData;
-import de.ulb.digital.derivans.model.text.Textline;
-import de.ulb.digital.derivans.model.text.Word;
+import de.ulb.digital.derivans.model.text.PageText;
 
 /**
- * 
+ *
  * Transform PAGE 2019-07-15 OCR data into domain OCR data
- * 
+ *
+ * PAGE is streamed like {@link ALTOReader ALTO}, since only page
+ * dimension, lines and their words are required. Coords and
+ * transcription are taken from direct children of a line or word,
+ * whereas contents of words, i.e. glyphs, are skipped.
+ * Lines and words are added to {@link PageText compact text}.
+ * Bounding boxes are computed while scanning the points of
+ * Coords, without creating intermediate arrays or polygons.
+ *
  * @author u.hartwig
  *
  */
 public class PAGEReader implements OCRReader {
 
+	static final String PAGE_PAGE = "Page";
+
+	static final String PAGE_TEXTLINE = "TextLine";
+
+	static final String PAGE_WORD = "Word";
+
+	static final String PAGE_COORDS = "Coords";
+
 	private static final String PAGE_UNICODE = "Unicode";
 
 	private static final String PAGE_TEXT_EQUIV = "TextEquiv";
 
-	private XMLHandler handler;
-
 	public static final Predicate<String> VALID_TEXT = new ValidTextPredicate();
 
-	protected Type type;
+	/**
+	 * Factory is only configured once, creating
+	 * stream readers is safe from any thread
+	 */
+	private static final XMLInputFactory FACTORY = PAGEReader.createFactory();
+
+	protected final Type type;
 
 	public PAGEReader(Type type) {
 		this.type = type;
 	}
 
-	@Override
-	public OCRData get(Path pathOcr) throws DigitalDerivansException {
-		this.handler = new XMLHandler(pathOcr);
-		var lines = extractTextLines();
-		var dim = extractPageDimension();
-		return new OCRData(lines, dim);
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newFactory();
+		// please sonarqube "Disable access to external entities in XML parsing"
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+		return factory;
 	}
 
-	private Dimension extractPageDimension() {
-		Element page = this.handler.extractElements("Page").get(0);
-		int w = Integer.parseInt(page.getAttributeValue("imageWidth"));
-		int h = Integer.parseInt(page.getAttributeValue("imageHeight"));
-		return new Dimension(w, h);
+	@Override
+	public OCRData get(InputStream input, Path pathOcr) throws DigitalDerivansException {
+		try {
+			XMLStreamReader reader = FACTORY.createXMLStreamReader(input);
+			try {
+				return this.read(reader, pathOcr);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new DigitalDerivansException(e);
+		}
 	}
 
-	protected List<Textline> extractTextLines() {
-		List<Textline> ocrLines = new ArrayList<>();
-		List<Element> pgLines = this.handler.extractElements("TextLine");
-		for (Element el : pgLines) {
-			List<Element> words = el.getChildren("Word", getType().toNS());
-			if (!words.isEmpty()) {
-				var texts = words.parallelStream()
-						.filter(e -> VALID_TEXT.test(e.getChild(PAGE_TEXT_EQUIV, getType().toNS())
-								.getChild(PAGE_UNICODE, getType().toNS()).getTextTrim()))
-						.map(this::toText).filter(Word::hasPrintableChars).collect(Collectors.toList());
-				Textline line = new Textline(texts);
-				ocrLines.add(line);
-			} else {
-				String transcription = el.getChild(PAGE_TEXT_EQUIV, getType().toNS())
-						.getChild(PAGE_UNICODE, getType().toNS()).getTextTrim();
-				if (VALID_TEXT.test(transcription)) {
-					var ocrData = this.toText(el);
-					if (ocrData.hasPrintableChars()) {
-						ocrLines.add(new Textline(List.of(ocrData)));
+	/**
+	 *
+	 * Take dimension of first page and all lines in document order.
+	 *
+	 * If a line contains words, which are direct children in namespace
+	 * of this type, it's words are taken, otherwise the line's own
+	 * transcription forms a single word.
+	 *
+	 */
+	private OCRData read(XMLStreamReader reader, Path pathOcr) throws XMLStreamException, DigitalDerivansException {
+		String namespace = this.type.toNS().getURI();
+		Dimension dim = null;
+		PageText.Builder text = new PageText.Builder();
+		Region line = null;
+		Region word = null;
+		int depth = 0;
+		int lineDepth = -1;
+		int wordDepth = -1;
+		int equivDepth = -1;
+		while (reader.hasNext()) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+				String name = reader.getLocalName();
+				Region current = word != null ? word : line;
+				int currentDepth = word != null ? wordDepth : lineDepth;
+				if (current != null && depth == currentDepth + 1 && namespace.equals(reader.getNamespaceURI())) {
+					if (word == null && PAGE_WORD.equals(name)) {
+						word = new Region();
+						wordDepth = depth;
+						line.hasWords = true;
+					} else if (current.box == null && PAGE_COORDS.equals(name)) {
+						current.box = PAGEReader.bounds(reader.getAttributeValue(null, "points"));
+					} else if (!current.hasTextEquiv && PAGE_TEXT_EQUIV.equals(name)) {
+						current.hasTextEquiv = true;
+						equivDepth = depth;
+					} else if (word != null) {
+						PAGEReader.skipElement(reader);
+						depth--;
 					}
+				} else if (current != null && depth == equivDepth + 1 && current.text == null
+						&& PAGE_UNICODE.equals(name) && namespace.equals(reader.getNamespaceURI())) {
+					current.text = reader.getElementText().trim();
+					depth--;
+				} else if (PAGE_TEXTLINE.equals(name)) {
+					line = new Region();
+					lineDepth = depth;
+				} else if (dim == null && PAGE_PAGE.equals(name)) {
+					int w = Integer.parseInt(reader.getAttributeValue(null, "imageWidth"));
+					int h = Integer.parseInt(reader.getAttributeValue(null, "imageHeight"));
+					dim = new Dimension(w, h);
 				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				if (depth == equivDepth) {
+					equivDepth = -1;
+				} else if (depth == wordDepth) {
+					PAGEReader.addWord(word, text, pathOcr);
+					word = null;
+					wordDepth = -1;
+				} else if (depth == lineDepth) {
+					if (line.hasWords || PAGEReader.addWord(line, text, pathOcr)) {
+						text.endLine();
+					}
+					line = null;
+					lineDepth = -1;
+				}
+				depth--;
+			}
+		}
+		if (dim == null) {
+			throw new DigitalDerivansException("No Page data: " + pathOcr);
+		}
+		return new OCRData(text.build(), dim);
+	}
+
+	/**
+	 *
+	 * Add word from transcription and Coords of a line or word
+	 *
+	 * @param region
+	 * @param text
+	 * @param pathOcr
+	 * @return false, if it's text isn't valid, thus not printable
+	 * @throws DigitalDerivansException if valid text lacks Coords
+	 */
+	private static boolean addWord(Region region, PageText.Builder text, Path pathOcr)
+			throws DigitalDerivansException {
+		if (!VALID_TEXT.test(region.text)) {
+			return false;
+		}
+		if (region.box == null) {
+			throw new DigitalDerivansException("No Coords for '" + region.text + "' in " + pathOcr);
+		}
+		Rectangle box = region.box;
+		text.addWord(region.text, box.x, box.y, box.width, box.height);
+		return true;
+	}
+
+	/**
+	 *
+	 * Calculate bounding box of PAGE points like "x1,y1 x2,y2 ..."
+	 * by scanning coordinates in place.
+	 *
+	 * @param points
+	 * @return smallest rectangle containing all points
+	 * @throws NumberFormatException if points are missing or malformed
+	 */
+	public static Rectangle bounds(String points) {
+		if (points == null) {
+			throw new NumberFormatException("No points");
+		}
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		int length = points.length();
+		int i = 0;
+		while (true) {
+			while (i < length && Character.isWhitespace(points.charAt(i))) {
+				i++;
+			}
+			if (i == length) {
+				break;
+			}
+			int comma = points.indexOf(',', i);
+			if (comma < 0) {
+				throw new NumberFormatException("Missing y of point in '" + points + "'");
 			}
+			int end = comma + 1;
+			while (end < length && !Character.isWhitespace(points.charAt(end))) {
+				end++;
+			}
+			int x = Integer.parseInt(points, i, comma, 10);
+			int y = Integer.parseInt(points, comma + 1, end, 10);
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+			i = end;
+		}
+		if (minX > maxX) {
+			throw new NumberFormatException("No points in '" + points + "'");
 		}
-		return ocrLines;
+		return new Rectangle(minX, minY, maxX - minX, maxY - minY);
 	}
 
-	Word toText(Element textElement) {
-		String content = textElement
-				.getChild(PAGE_TEXT_EQUIV, getType().toNS())
-				.getChild(PAGE_UNICODE, getType().toNS())
-				.getTextTrim();
-		String[] coordPoints = textElement.getChild("Coords", getType().toNS()).getAttributeValue("points").split(" ");
-		Polygon polygon = new Polygon();
-		for (String coordPair : coordPoints) {
-			String[] tokens = coordPair.split(",");
-			Integer x = Integer.valueOf(tokens[0]);
-			Integer y = Integer.valueOf(tokens[1]);
-			polygon.addPoint(x, y);
+	/**
+	 *
+	 * Pass contents of current element up to it's end
+	 *
+	 * @param reader positioned at start of element
+	 * @throws XMLStreamException
+	 */
+	private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		int level = 1;
+		while (level > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				level++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				level--;
+			}
 		}
-		Rectangle rect = polygon.getBounds();
-		return new Word(content, rect);
 	}
 
 	@Override
 	public Type getType() {
 		return this.type;
 	}
+
+	/**
+	 *
+	 * Coords and transcription of a line or word
+	 * collected while it's read
+	 *
+	 */
+	private static class Region {
+
+		private Rectangle box;
+
+		private boolean hasTextEquiv;
+
+		private String text;
+
+		private boolean hasWords;
+	}
 }
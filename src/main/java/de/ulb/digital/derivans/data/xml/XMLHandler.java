@@ -1,5 +1,6 @@
 package de.ulb.digital.derivans.data.xml;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -18,6 +19,7 @@ import org.jdom2.Namespace;
 import org.jdom2.filter.ElementFilter;
 import org.jdom2.filter.Filters;
 import org.jdom2.input.SAXBuilder;
+import org.jdom2.input.sax.XMLReaders;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
 import org.jdom2.util.IteratorIterable;
@@ -36,38 +38,56 @@ import de.ulb.digital.derivans.DigitalDerivansException;
  */
 public class XMLHandler {
 
+	/**
+	 * Size of buffer used to read XML files
+	 */
+	static final int READ_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Builders are re-used, since creating them and their parsers
+	 * for each document is costly, but they aren't thread-safe
+	 */
+	private static final ThreadLocal<SAXBuilder> BUILDER = ThreadLocal.withInitial(XMLHandler::createBuilder);
+
 	protected Path pathFile;
 	protected final Document document;
 
 	public XMLHandler(byte[] bytes) throws DigitalDerivansException {
-		this.document = this.parseBytes(bytes);
+		this(new ByteArrayInputStream(bytes));
 	}
 
 	public XMLHandler(InputStream is) throws DigitalDerivansException {
-		try {
-			byte[] bArray = is.readAllBytes();
-			this.document = this.parseBytes(bArray);
-		} catch (IOException e) {
-			throw new DigitalDerivansException(e);
-		}
+		this.document = XMLHandler.parse(is);
 	}
 
+	/**
+	 * 
+	 * Read XML file as stream, which is parsed while read,
+	 * without holding the file's bytes in memory.
+	 * 
+	 * @param pathFile
+	 * @throws DigitalDerivansException
+	 */
 	public XMLHandler(Path pathFile) throws DigitalDerivansException {
 		this.pathFile = pathFile;
-		try {
-			this.document = this.parseBytes(Files.readAllBytes(pathFile));
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(pathFile), READ_BUFFER_SIZE)) {
+			this.document = XMLHandler.parse(in);
 		} catch (IOException e) {
 			throw new DigitalDerivansException(e);
 		}
 	}
 
-	private Document parseBytes(byte[] bytes) throws DigitalDerivansException {
-		SAXBuilder builder = new SAXBuilder();
+	private static SAXBuilder createBuilder() {
+		SAXBuilder builder = new SAXBuilder(XMLReaders.NONVALIDATING);
 		// please sonarqube "Disable access to external entities in XML parsing"
 		builder.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
 		builder.setProperty(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+		return builder;
+	}
+
+	private static Document parse(InputStream in) throws DigitalDerivansException {
 		try {
-			return builder.build(new ByteArrayInputStream(bytes));
+			return BUILDER.get().build(in);
 		} catch (JDOMException | IOException e) {
 			throw new DigitalDerivansException(e);
 		}
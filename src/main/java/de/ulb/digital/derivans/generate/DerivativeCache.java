@@ -0,0 +1,390 @@
+package de.ulb.digital.derivans.generate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+
+/**
+ *
+ * Content-addressed cache of image results shared across works and runs
+ *
+ * Results are keyed by a hash of their input bytes together with
+ * all step parameters affecting them, thus works re-ingested with
+ * unchanged images get their results without encoding them again,
+ * no matter where they're located.
+ *
+ * Cached results are hard-linked into place if cache and output share
+ * a file system and copied otherwise. Entries are read-only, so they
+ * can't be altered through a link by accident.
+ *
+ * Entries are written to temporary files first and atomically moved
+ * into place afterwards, therefore concurrent writers, even of different
+ * processes, never see partial entries. The size of the cache is bound
+ * by evicting least recently used entries, whereas the last access is
+ * kept as modification time of an entry to survive restarts.
+ *
+ * @author hartwig
+ *
+ */
+public final class DerivativeCache {
+
+	private static final Logger LOGGER = LogManager.getLogger(DerivativeCache.class);
+
+	private static final long MB = 1024L * 1024L;
+
+	private static final String FOOTER_SUFFIX = ".footer";
+
+	private static final String TMP_SUFFIX = ".tmp";
+
+	/**
+	 * Temporary files of crashed writers older than this are removed
+	 */
+	private static final long STALE_TMP_MILLIS = 60L * 60L * 1000L;
+
+	private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+	private static final Map<Path, DerivativeCache> INSTANCES = new HashMap<>();
+
+	private final Path dir;
+
+	private final long maxBytes;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final AtomicLong totalBytes = new AtomicLong();
+
+	private final AtomicLong nHits = new AtomicLong();
+
+	private final AtomicLong nMisses = new AtomicLong();
+
+	private final AtomicLong nStores = new AtomicLong();
+
+	private final AtomicLong nEvictions = new AtomicLong();
+
+	private DerivativeCache(Path dir, long maxBytes) throws DigitalDerivansException {
+		this.dir = dir;
+		this.maxBytes = maxBytes;
+		try {
+			Files.createDirectories(dir);
+			this.scan();
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+		LOGGER.info("use cache {} with {} entries ({}MB of {}MB)", dir, this.entries.size(),
+				this.totalBytes.get() / MB, maxBytes / MB);
+	}
+
+	/**
+	 *
+	 * Shared instance for given directory, thus all works
+	 * of a process use the same index and statistics
+	 *
+	 * @param dir
+	 * @param maxBytes upper bound of cache size
+	 * @return
+	 * @throws DigitalDerivansException if directory can't be used
+	 */
+	public static synchronized DerivativeCache get(Path dir, long maxBytes) throws DigitalDerivansException {
+		Path theDir = dir.toAbsolutePath().normalize();
+		DerivativeCache cache = INSTANCES.get(theDir);
+		if (cache == null) {
+			cache = new DerivativeCache(theDir, maxBytes);
+			INSTANCES.put(theDir, cache);
+		} else if (cache.maxBytes != maxBytes) {
+			LOGGER.warn("cache {} already in use with {}MB, ignore {}MB", theDir, cache.maxBytes / MB,
+					maxBytes / MB);
+		}
+		return cache;
+	}
+
+	private void scan() throws IOException {
+		long now = System.currentTimeMillis();
+		List<Path> files;
+		try (Stream<Path> stream = Files.walk(this.dir, 2)) {
+			files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+		}
+		for (Path file : files) {
+			String name = file.getFileName().toString();
+			FileTime modified = Files.getLastModifiedTime(file);
+			if (name.endsWith(TMP_SUFFIX)) {
+				if (now - modified.toMillis() > STALE_TMP_MILLIS) {
+					Files.deleteIfExists(file);
+				}
+			} else if (!name.contains(".")) {
+				long size = Files.size(file);
+				this.entries.put(name, new Entry(size, modified.toMillis()));
+				this.totalBytes.addAndGet(size);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Key of result derived from given input file
+	 *
+	 * @param input
+	 * @param params fingerprint of all parameters affecting the result
+	 * @return
+	 * @throws IOException
+	 */
+	public String key(Path input, String params) throws IOException {
+		MessageDigest digest = DerivativeCache.newDigest();
+		ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		digest.update(params.getBytes(StandardCharsets.UTF_8));
+		return DerivativeCache.hex(digest.digest());
+	}
+
+	/**
+	 *
+	 * Key of result derived from given encoded input
+	 *
+	 * @param input
+	 * @param params fingerprint of all parameters affecting the result
+	 * @return
+	 */
+	public String key(byte[] input, String params) {
+		MessageDigest digest = DerivativeCache.newDigest();
+		digest.update(input);
+		digest.update(params.getBytes(StandardCharsets.UTF_8));
+		return DerivativeCache.hex(digest.digest());
+	}
+
+	/**
+	 *
+	 * Put cached result in place of given target, if present
+	 *
+	 * @param key
+	 * @param target
+	 * @return hit or empty if no such entry
+	 */
+	public Optional<Hit> fetch(String key, Path target) {
+		Path data = this.dataPath(key);
+		if (!Files.exists(data)) {
+			this.nMisses.incrementAndGet();
+			return Optional.empty();
+		}
+		Path tmp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + TMP_SUFFIX);
+		try {
+			Integer footerHeight = null;
+			Path footer = data.resolveSibling(key + FOOTER_SUFFIX);
+			if (Files.exists(footer)) {
+				footerHeight = Integer.valueOf(Files.readString(footer, StandardCharsets.UTF_8).trim());
+			}
+			try {
+				Files.createLink(tmp, data);
+			} catch (FileSystemException | UnsupportedOperationException e) {
+				LOGGER.trace("can't link {}, copy instead: {}", data, e.getMessage());
+				Files.copy(data, tmp);
+			}
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			long now = System.currentTimeMillis();
+			Files.setLastModifiedTime(data, FileTime.fromMillis(now));
+			this.entries.computeIfPresent(key, (k, e) -> new Entry(e.size, now));
+			this.nHits.incrementAndGet();
+			return Optional.of(new Hit(footerHeight));
+		} catch (IOException | NumberFormatException e) {
+			// most likely evicted concurrently
+			LOGGER.warn("can't fetch {} for {}: {}", key, target, e.getMessage());
+			this.deleteQuietly(tmp);
+			this.nMisses.incrementAndGet();
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 *
+	 * Store copy of given result. If another writer stored
+	 * the same result meanwhile, this one is discarded.
+	 *
+	 * @param key
+	 * @param result
+	 * @param footerHeight height of result with footer or null
+	 */
+	public void store(String key, Path result, Integer footerHeight) {
+		Path data = this.dataPath(key);
+		if (Files.exists(data)) {
+			return;
+		}
+		String tmpName = key + "." + UUID.randomUUID();
+		Path tmpData = data.resolveSibling(tmpName + TMP_SUFFIX);
+		Path tmpFooter = data.resolveSibling(tmpName + FOOTER_SUFFIX + TMP_SUFFIX);
+		try {
+			Files.createDirectories(data.getParent());
+			if (footerHeight != null) {
+				Files.writeString(tmpFooter, String.valueOf(footerHeight), StandardCharsets.UTF_8);
+				Files.move(tmpFooter, data.resolveSibling(key + FOOTER_SUFFIX), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			}
+			Files.copy(result, tmpData);
+			tmpData.toFile().setWritable(false, false);
+			long size = Files.size(tmpData);
+			Files.move(tmpData, data, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			if (this.entries.put(key, new Entry(size, System.currentTimeMillis())) == null) {
+				this.totalBytes.addAndGet(size);
+			}
+			this.nStores.incrementAndGet();
+		} catch (IOException e) {
+			LOGGER.warn("can't store {} as {}: {}", result, key, e.getMessage());
+			this.deleteQuietly(tmpFooter);
+			this.deleteQuietly(tmpData);
+			return;
+		}
+		if (this.totalBytes.get() > this.maxBytes) {
+			this.evict();
+		}
+	}
+
+	/**
+	 *
+	 * Remove least recently used entries until
+	 * cache fits into it's size again
+	 *
+	 */
+	private synchronized void evict() {
+		if (this.totalBytes.get() <= this.maxBytes) {
+			return;
+		}
+		List<Map.Entry<String, Entry>> candidates = new ArrayList<>(this.entries.entrySet());
+		candidates.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+		for (var candidate : candidates) {
+			if (this.totalBytes.get() <= this.maxBytes) {
+				break;
+			}
+			String key = candidate.getKey();
+			if (this.entries.remove(key) == null) {
+				continue;
+			}
+			Path data = this.dataPath(key);
+			this.deleteQuietly(data);
+			this.deleteQuietly(data.resolveSibling(key + FOOTER_SUFFIX));
+			this.totalBytes.addAndGet(-candidate.getValue().size);
+			this.nEvictions.incrementAndGet();
+			LOGGER.trace("evicted {}", key);
+		}
+	}
+
+	private void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			LOGGER.warn("can't delete {}: {}", file, e.getMessage());
+		}
+	}
+
+	private Path dataPath(String key) {
+		return this.dir.resolve(key.substring(0, 2)).resolve(key);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(byte[] hash) {
+		StringBuilder sb = new StringBuilder(hash.length * 2);
+		for (byte b : hash) {
+			sb.append(String.format("%02x", b));
+		}
+		return sb.toString();
+	}
+
+	public Path getDir() {
+		return this.dir;
+	}
+
+	public long getSize() {
+		return this.totalBytes.get();
+	}
+
+	public int getNumberOfEntries() {
+		return this.entries.size();
+	}
+
+	public long getHits() {
+		return this.nHits.get();
+	}
+
+	public long getMisses() {
+		return this.nMisses.get();
+	}
+
+	public long getStores() {
+		return this.nStores.get();
+	}
+
+	public long getEvictions() {
+		return this.nEvictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: %d entries (%dMB of %dMB), hits %d, misses %d, stores %d, evictions %d",
+				this.dir, this.entries.size(), this.totalBytes.get() / MB, this.maxBytes / MB,
+				this.nHits.get(), this.nMisses.get(), this.nStores.get(), this.nEvictions.get());
+	}
+
+	/**
+	 *
+	 * Result taken from cache
+	 *
+	 */
+	public static class Hit {
+
+		private final Integer footerHeight;
+
+		Hit(Integer footerHeight) {
+			this.footerHeight = footerHeight;
+		}
+
+		public Optional<Integer> getFooterHeight() {
+			return Optional.ofNullable(this.footerHeight);
+		}
+	}
+
+	private static class Entry {
+
+		private final long size;
+
+		private final long lastAccess;
+
+		Entry(long size, long lastAccess) {
+			this.size = size;
+			this.lastAccess = lastAccess;
+		}
+	}
+}
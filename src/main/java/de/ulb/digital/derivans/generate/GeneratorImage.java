@@ -4,9 +4,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.LogManager;
@@ -15,6 +19,9 @@ import org.apache.logging.log4j.Logger;
 import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.DigitalDerivansRuntimeException;
 import de.ulb.digital.derivans.generate.image.ImageProcessor;
+import de.ulb.digital.derivans.generate.image.PageImage;
+import de.ulb.digital.derivans.generate.image.Resampler;
+import de.ulb.digital.derivans.model.DigitalPage;
 
 /**
  * 
@@ -37,57 +44,378 @@ public abstract class GeneratorImage extends Generator {
 
 	protected ImageProcessor imageProcessor = new ImageProcessor();
 
-	protected AtomicReference<List<Throwable>> generatorErrors = new AtomicReference<>(new ArrayList<>());
+	protected AtomicReference<List<Throwable>> generatorErrors = new AtomicReference<>(
+			Collections.synchronizedList(new ArrayList<>()));
+
+	private final Queue<Future<Path>> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	protected boolean resume;
+
+	protected PageManifest manifest;
+
+	private final AtomicInteger nSkipped = new AtomicInteger();
+
+	protected DerivativeCache cache;
+
+	private final AtomicInteger nCached = new AtomicInteger();
 
 	public void setImageProcessor(ImageProcessor processor) {
 		this.imageProcessor = processor;
 	}
 
+	/**
+	 * 
+	 * Set number of pages processed in parallel by this step.
+	 * 
+	 * Actual parallelism is further limited by the global
+	 * core budget of the {@link WorkerPool}.
+	 * 
+	 * @param poolSize
+	 */
 	public void setPoolsize(Integer poolSize) {
-		int cores = Runtime.getRuntime().availableProcessors();
-		int limit = cores - MIN_FREE_CORES;
 		if (poolSize != null && poolSize > 0) {
-			if (poolSize >= limit) {
-				this.poolSize = limit;
-			} else {
-				this.poolSize = poolSize;
-			}
+			this.poolSize = poolSize;
 		} else {
 			this.poolSize = MIN_FREE_CORES;
 			LOGGER.warn("invalid poolsize provided:'{}', fallback to '{}'", poolSize, this.poolSize);
 		}
 	}
 
-	protected int getPoolSize() {
+	public int getPoolSize() {
 		return this.poolSize;
 	}
 
+	/**
+	 * 
+	 * Skip pages with still valid results of a previous run
+	 * 
+	 * @param resume
+	 */
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	public int getNumberOfSkipped() {
+		return this.nSkipped.get();
+	}
+
+	/**
+	 * 
+	 * Take results from given cache if present
+	 * and store new results there, too
+	 * 
+	 * @param cache
+	 */
+	public void setCache(DerivativeCache cache) {
+		this.cache = cache;
+	}
+
+	public int getNumberOfCached() {
+		return this.nCached.get();
+	}
+
 	public void setMaximal(Integer maximal) {
 		this.imageProcessor.setMaximal(maximal);
 	}
 
+	public void setResampling(String label) throws DigitalDerivansException {
+		try {
+			this.imageProcessor.setResampling(Resampler.Mode.forLabel(label));
+		} catch (IllegalArgumentException e) {
+			throw new DigitalDerivansException("unknown resampling: " + label);
+		}
+	}
+
 	public void setQuality(int quality) {
 		this.imageProcessor.setQuality(quality);
 	}
 
-	protected boolean runWithPool(Runnable runnable) throws DigitalDerivansException {
+	/**
+	 * 
+	 * Run given task for each page in the shared CPU lane
+	 * with at most {@link #poolSize} pages in progress, each
+	 * one admitted against the global {@link MemoryBudget}
+	 * 
+	 * @param task
+	 * @return
+	 * @throws DigitalDerivansException
+	 */
+	protected boolean runWithPool(WorkerPool.Task<DigitalPage> task) throws DigitalDerivansException {
+		WorkerPool.get().forEach(WorkerPool.Lane.CPU, this.digitalPages, this.poolSize, page -> {
+			if (this.skip(page)) {
+				return;
+			}
+			MemoryBudget.Lease lease = MemoryBudget.get().acquire(this.estimateMemory(page));
+			try {
+				task.accept(page);
+			} finally {
+				lease.close();
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * 
+	 * Number of full-size image buffers held at once
+	 * while processing a single page, i.e. decoded
+	 * input and scaled result
+	 * 
+	 * @return
+	 */
+	protected int buffersPerPage() {
+		return 2;
+	}
+
+	/**
+	 * 
+	 * Estimate heap required to process given page
+	 * from header of it's input image
+	 * 
+	 * @param page
+	 * @return bytes or 0 if header can't be read
+	 */
+	public long estimateMemory(DigitalPage page) {
+		return this.estimateDecodedSize(page) * this.buffersPerPage();
+	}
+
+	/**
+	 * 
+	 * Estimate size of decoded input image of given page
+	 * 
+	 * @param page
+	 * @return bytes or 0 if header can't be read
+	 */
+	public long estimateDecodedSize(DigitalPage page) {
+		Path pathIn = this.setInpath(page);
+		try {
+			return ImageProcessor.estimateDecodedSize(pathIn);
+		} catch (IOException e) {
+			LOGGER.warn("can't estimate size of {}: {}", pathIn, e.getMessage());
+			return 0L;
+		}
+	}
+
+	/**
+	 * 
+	 * Write encoded result in the shared I/O lane,
+	 * thus CPU workers don't wait for the disk
+	 * 
+	 * @param pathOut
+	 * @param data
+	 * @param onWritten called after data was written
+	 * @throws IOException
+	 */
+	protected void write(Path pathOut, byte[] data, Runnable onWritten) throws IOException {
 		try {
-			ForkJoinPool threadPool = new ForkJoinPool(poolSize);
-			threadPool.submit(runnable).get();
-			threadPool.shutdown();
-			return true;
-		} catch (ExecutionException e) {
-			LOGGER.error(e);
-			throw new DigitalDerivansException(e);
+			this.pendingWrites.add(WorkerPool.get().submit(WorkerPool.Lane.IO, () -> {
+				// replace rather than overwrite, it might be linked from cache
+				Files.deleteIfExists(pathOut);
+				Files.write(pathOut, data);
+				onWritten.run();
+				return pathOut;
+			}));
 		} catch (InterruptedException e) {
-			LOGGER.error(e);
 			Thread.currentThread().interrupt();
+			throw new IOException(e);
 		}
-		return false;
 	}
 
-	@Override
-	public int create() throws DigitalDerivansException {
+	/**
+	 * 
+	 * Wait until all pending writes are completed
+	 * 
+	 * @throws DigitalDerivansException
+	 */
+	public void awaitWrites() throws DigitalDerivansException {
+		Future<Path> pending;
+		while ((pending = this.pendingWrites.poll()) != null) {
+			try {
+				pending.get();
+			} catch (ExecutionException e) {
+				throw new DigitalDerivansException(e.getCause().getMessage(), e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new DigitalDerivansException(e);
+			}
+		}
+	}
+
+	/**
+	 * 
+	 * Fingerprint of all parameters affecting the content
+	 * of the result of given page, regardless where it's
+	 * located, to be used as part of {@link DerivativeCache} key
+	 * 
+	 * @param page
+	 * @return
+	 */
+	protected String contentFingerprint(DigitalPage page) {
+		return PageManifest.fingerprint(this.getClass().getSimpleName(),
+				String.valueOf(this.imageProcessor.getQuality()),
+				String.valueOf(this.imageProcessor.getMaximal()),
+				this.imageProcessor.getResampling().name());
+	}
+
+	/**
+	 * 
+	 * Fingerprint of all parameters affecting the result
+	 * of given page, to be recorded in {@link PageManifest}
+	 * 
+	 * @param page
+	 * @return
+	 */
+	protected String fingerprint(DigitalPage page) {
+		return PageManifest.fingerprint(this.contentFingerprint(page),
+				this.getInputPrefix().orElse(""), this.getOutputPrefix().orElse(""));
+	}
+
+	/**
+	 * 
+	 * Cache key of page derived from input file
+	 * 
+	 * @param page
+	 * @param pathIn
+	 * @return key or null if no cache used
+	 */
+	protected String cacheKey(DigitalPage page, Path pathIn) {
+		if (this.cache == null) {
+			return null;
+		}
+		try {
+			return this.cache.key(pathIn, this.contentFingerprint(page));
+		} catch (IOException e) {
+			LOGGER.warn("can't read {} for cache key: {}", pathIn, e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * 
+	 * Cache key of page derived from result of preceeding step
+	 * 
+	 * @param page
+	 * @param previous
+	 * @return key or null if no cache used or previous not encoded
+	 */
+	protected String cacheKey(DigitalPage page, PageImage previous) {
+		if (this.cache == null || previous.getEncoded() == null) {
+			return null;
+		}
+		return this.cache.key(previous.getEncoded(), this.contentFingerprint(page));
+	}
+
+	/**
+	 * 
+	 * Put cached result of page in place, if any.
+	 * Footer height is restored like if page was processed.
+	 * 
+	 * @param page
+	 * @param key     cache key or null
+	 * @param pathIn
+	 * @param pathOut
+	 * @return true if result was taken from cache
+	 */
+	protected boolean fromCache(DigitalPage page, String key, Path pathIn, Path pathOut) {
+		if (key == null) {
+			return false;
+		}
+		var hit = this.cache.fetch(key, pathOut);
+		if (hit.isEmpty()) {
+			return false;
+		}
+		var footerHeight = hit.get().getFooterHeight();
+		footerHeight.ifPresent(page::setFooterHeight);
+		this.completed(page, pathIn, pathOut, footerHeight.orElse(null));
+		this.nCached.incrementAndGet();
+		LOGGER.trace("took {} from cache", pathOut);
+		return true;
+	}
+
+	/**
+	 * 
+	 * Store result of page written
+	 * 
+	 * @param key          cache key or null
+	 * @param pathOut
+	 * @param footerHeight height of result with footer or null
+	 */
+	protected void toCache(String key, Path pathOut, Integer footerHeight) {
+		if (key != null) {
+			this.cache.store(key, pathOut, footerHeight);
+		}
+	}
+
+	/**
+	 * 
+	 * Check if page can be skipped, since it's result of a
+	 * previous run is still valid. Footer height of skipped
+	 * pages is restored, like if they were processed.
+	 * 
+	 * @param page
+	 * @return
+	 */
+	public boolean skip(DigitalPage page) {
+		if (!this.resume || this.manifest == null) {
+			return false;
+		}
+		Path pathIn = this.setInpath(page);
+		Path pathOut = this.setOutpath(page);
+		if (!this.manifest.isValid(pathIn, pathOut, this.fingerprint(page))) {
+			return false;
+		}
+		this.manifest.keep(pathOut);
+		this.manifest.getFooterHeight(pathOut).ifPresent(page::setFooterHeight);
+		this.nSkipped.incrementAndGet();
+		LOGGER.trace("skip {}, still valid", pathOut);
+		return true;
+	}
+
+	/**
+	 * 
+	 * Record result of page written
+	 * 
+	 * @param page
+	 * @param pathIn
+	 * @param pathOut
+	 * @param footerHeight height of result with footer or null
+	 */
+	protected void completed(DigitalPage page, Path pathIn, Path pathOut, Integer footerHeight) {
+		if (this.manifest != null) {
+			this.manifest.record(pathIn, pathOut, this.fingerprint(page), footerHeight);
+		}
+	}
+
+	/**
+	 * 
+	 * Store results of this run, called also
+	 * if some pages failed, to resume later on
+	 * 
+	 * @throws DigitalDerivansException
+	 */
+	public void saveManifest() throws DigitalDerivansException {
+		if (this.manifest != null) {
+			this.manifest.save();
+		}
+	}
+
+	/**
+	 * 
+	 * Log statistics specific to this step
+	 * after all pages have been processed
+	 * 
+	 */
+	protected void report() {
+		// nothing by default
+	}
+
+	/**
+	 * 
+	 * Ensure basic preconditions hold, i.e. output directory exists
+	 * and pages to process are present
+	 * 
+	 */
+	public void prepare() {
 		// basic precondition: output directory shall exist
 		if (this.step.getOutputDir() == null) {
 			throw new DigitalDerivansRuntimeException("No outputDir: null!");
@@ -112,6 +440,21 @@ public abstract class GeneratorImage extends Generator {
 				this.rootDir, this.step.getInputDir());
 			throw new DigitalDerivansRuntimeException(msg);
 		}
+		this.manifest = new PageManifest(this.rootDir, this.step.getOutputDir(), this.getOutputPrefix());
+		this.nSkipped.set(0);
+		this.nCached.set(0);
+		if (this.resume) {
+			try {
+				this.manifest.load();
+			} catch (DigitalDerivansException e) {
+				throw new DigitalDerivansRuntimeException(e);
+			}
+		}
+	}
+
+	@Override
+	public int create() throws DigitalDerivansException {
+		this.prepare();
 
 		String msg = String.format("process '%02d' images in %s/%s with quality %.2f and max %03d in %02d threads",
 				this.digitalPages.size(), this.rootDir, this.step.getInputDir(),
@@ -120,11 +463,17 @@ public abstract class GeneratorImage extends Generator {
 		LOGGER.info(msg);
 
 		// reset error tracking before processing
-		this.generatorErrors.set(new ArrayList<>());
+		this.generatorErrors.set(Collections.synchronizedList(new ArrayList<>()));
 
 		// forward to actual image creation implementation
 		// subject to each concrete subclass
-		boolean isSuccess = forward();
+		boolean isSuccess = false;
+		try {
+			isSuccess = forward();
+		} finally {
+			this.saveManifest();
+			this.report();
+		}
 		
 		// check if any error occurred during parallel processing
 		List<Throwable> errors = this.generatorErrors.get();
@@ -136,8 +485,9 @@ public abstract class GeneratorImage extends Generator {
 		}
 		
 		if (isSuccess) {
-			String msg2 = String.format("created '%02d' %s images at '%s'",
-				digitalPages.size(), this.step.getOutputType(), this.step.getOutputDir());
+			String msg2 = String.format("created '%02d' %s images at '%s' (skipped: %d, cached: %d)",
+				digitalPages.size() - this.nSkipped.get() - this.nCached.get(), this.step.getOutputType(),
+				this.step.getOutputDir(), this.nSkipped.get(), this.nCached.get());
 			LOGGER.info(msg2);
 		}
 
@@ -153,4 +503,21 @@ public abstract class GeneratorImage extends Generator {
 	 */
 	public abstract boolean forward() throws DigitalDerivansException;
 
+	/**
+	 * 
+	 * Derive single page image and write result to disk
+	 * asynchronously, see {@link #awaitWrites()}.
+	 * 
+	 * If previous {@link PageImage} from a preceeding step
+	 * is passed, use it instead of reading input from disk.
+	 * 
+	 * @param page
+	 * @param previous Result of preceeding step or null
+	 * @return {@link PageImage} for subsequent steps
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public abstract PageImage derive(DigitalPage page, PageImage previous)
+			throws IOException, DigitalDerivansException;
+
 }
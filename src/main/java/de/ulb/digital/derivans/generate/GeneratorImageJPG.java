@@ -3,9 +3,12 @@ package de.ulb.digital.derivans.generate;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.DigitalDerivansRuntimeException;
+import de.ulb.digital.derivans.generate.image.JpegPassthrough;
+import de.ulb.digital.derivans.generate.image.PageImage;
 import de.ulb.digital.derivans.model.DigitalPage;
 import de.ulb.digital.derivans.model.step.DerivateStep;
 import de.ulb.digital.derivans.model.step.DerivateStepImage;
@@ -19,6 +22,10 @@ import de.ulb.digital.derivans.model.step.DerivateStepImage;
  */
 public class GeneratorImageJPG extends GeneratorImage {
 
+	private boolean passthrough;
+
+	private final AtomicInteger nPassed = new AtomicInteger();
+
 	@Override
 	public void setStep(DerivateStep step) throws DigitalDerivansException {
 		super.setStep(step);
@@ -26,10 +33,35 @@ public class GeneratorImageJPG extends GeneratorImage {
 		this.setQuality(imgStep.getQuality());
 		this.setPoolsize(imgStep.getPoolsize());
 		this.setMaximal(imgStep.getMaximal());
+		this.setResampling(imgStep.getResampling());
+		this.setPassthrough(Boolean.TRUE.equals(imgStep.getPassthrough()));
 		this.setOutputPrefix(imgStep.getOutputPrefix());
 		this.setInputPrefix(imgStep.getInputPrefix()); // check for chained derivates !!!!
 	}
 
+	/**
+	 * 
+	 * Take JPEG input as it is, if it already satisfies
+	 * quality and maximal dimension of this step
+	 * 
+	 * @param passthrough
+	 */
+	public void setPassthrough(boolean passthrough) {
+		this.passthrough = passthrough;
+	}
+
+	public int getNumberOfPassed() {
+		return this.nPassed.get();
+	}
+
+	private boolean passThrough(Path pathIn, Path pathOut) throws IOException, DigitalDerivansException {
+		if (this.passthrough && new JpegPassthrough(this.imageProcessor).transfer(pathIn, pathOut)) {
+			this.nPassed.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
 	private String render(DigitalPage page) {
 		Path pathIn = this.setInpath(page);
 		if (!Files.exists(pathIn)) {
@@ -40,9 +72,19 @@ public class GeneratorImageJPG extends GeneratorImage {
 			return pathIn.toString();
 		}
 		Path pathOut = this.setOutpath(page);
+		String key = this.cacheKey(page, pathIn);
+		if (this.fromCache(page, key, pathIn, pathOut)) {
+			return pathOut.toString();
+		}
 		try {
 			LOGGER.trace("start to write JPEG {} ({})", pathOut, this.imageProcessor.getQuality());
-			this.imageProcessor.writeJPG(pathIn, pathOut);
+			// replace rather than overwrite, it might be linked from cache
+			Files.deleteIfExists(pathOut);
+			if (!this.passThrough(pathIn, pathOut)) {
+				this.imageProcessor.writeJPG(pathIn, pathOut);
+			}
+			this.completed(page, pathIn, pathOut, null);
+			this.toCache(key, pathOut, null);
 		} catch (DigitalDerivansException e1) {
 			String msg = String.format("%s:%s", pathIn, e1.getMessage());
 			LOGGER.error("processing error {}", msg);
@@ -55,9 +97,87 @@ public class GeneratorImageJPG extends GeneratorImage {
 		return pathOut.toString();
 	}
 
+	@Override
+	public PageImage derive(DigitalPage page, PageImage previous) throws IOException, DigitalDerivansException {
+		PageImage input = previous;
+		Path pathIn = this.setInpath(page);
+		if (input == null && !Files.exists(pathIn)) {
+			throw new DigitalDerivansException(String.format("input '%s' missing!", pathIn));
+		}
+		Path pathOut = this.setOutpath(page);
+		String key = input != null ? this.cacheKey(page, input) : this.cacheKey(page, pathIn);
+		if (this.fromCache(page, key, pathIn, pathOut)) {
+			return this.imageProcessor.readEncoded(pathOut);
+		}
+		PageImage result = null;
+		if (input == null && this.passthrough) {
+			byte[] data = new JpegPassthrough(this.imageProcessor).read(pathIn);
+			if (data != null) {
+				this.nPassed.incrementAndGet();
+				result = this.imageProcessor.readEncoded(data, pathOut);
+			}
+		}
+		if (result == null) {
+			if (input == null) {
+				input = this.imageProcessor.readScaled(pathIn);
+			}
+			LOGGER.trace("start to derive JPEG {} ({})", pathOut, this.imageProcessor.getQuality());
+			result = this.imageProcessor.derive(input, pathOut);
+		}
+		this.write(pathOut, result.getEncoded(), () -> {
+			this.completed(page, pathIn, pathOut, null);
+			this.toCache(key, pathOut, null);
+		});
+		return result;
+	}
+
+	/**
+	 * 
+	 * Input is scaled already while decoding,
+	 * thus large inputs require less memory
+	 * 
+	 */
+	@Override
+	public long estimateMemory(DigitalPage page) {
+		Path pathIn = this.setInpath(page);
+		try {
+			return this.imageProcessor.estimateScaledDecode(pathIn);
+		} catch (IOException e) {
+			LOGGER.warn("can't estimate size of {}: {}", pathIn, e.getMessage());
+			return 0L;
+		}
+	}
+
+	/**
+	 * 
+	 * Results taken as they are differ from
+	 * re-encoded ones
+	 * 
+	 */
+	@Override
+	protected String contentFingerprint(DigitalPage page) {
+		if (!this.passthrough) {
+			return super.contentFingerprint(page);
+		}
+		return PageManifest.fingerprint(super.contentFingerprint(page), "passthrough");
+	}
+
 	@Override
 	public boolean forward() throws DigitalDerivansException {
-		return this.runWithPool(() -> this.getDigitalPages().parallelStream().forEach(this::render));
+		this.nPassed.set(0);
+		return this.runWithPool(this::render);
+	}
+
+	/**
+	 * 
+	 * JPEG input taken without re-encoding
+	 * 
+	 */
+	@Override
+	protected void report() {
+		if (this.passthrough) {
+			LOGGER.info("passed {} of {} images through", this.nPassed.get(), this.digitalPages.size());
+		}
 	}
 
 }
@@ -16,6 +16,11 @@ import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.DigitalDerivansRuntimeException;
 import de.ulb.digital.derivans.IDerivans;
 import de.ulb.digital.derivans.data.font.FontHandler;
+import de.ulb.digital.derivans.data.image.ImageMetadata;
+import de.ulb.digital.derivans.generate.image.FooterBandCache;
+import de.ulb.digital.derivans.generate.image.FooterCompositor;
+import de.ulb.digital.derivans.generate.image.ImageProcessor;
+import de.ulb.digital.derivans.generate.image.PageImage;
 import de.ulb.digital.derivans.model.DerivateMD;
 import de.ulb.digital.derivans.model.DigitalFooter;
 import de.ulb.digital.derivans.model.DigitalPage;
@@ -47,13 +52,41 @@ public class GeneratorImageJPGFooter extends GeneratorImageJPG {
 
 	private AtomicInteger nGranulars = new AtomicInteger();
 
+	private String templateFingerprint = "";
+
+	private FooterCompositor compositor;
+
+	private FooterBandCache footerBands = new FooterBandCache();
+
 	protected void init() {
 		this.setFooterBuffer();
+		this.templateFingerprint = "";
+		Path pathTemplate = this.footer.getTemplate();
+		if (pathTemplate != null && Files.exists(pathTemplate)) {
+			try {
+				this.templateFingerprint = PageManifest.fingerprint(pathTemplate);
+			} catch (IOException e) {
+				LOGGER.warn("can't fingerprint footer template {}: {}", pathTemplate, e.getMessage());
+			}
+		}
 		try {
 			this.footerFont = this.fontHandler.forGraphics(this.footerFontFile);
 		} catch (DigitalDerivansException e) {
 			LOGGER.error("fail font for {}:{}", this.footerFontFile, e.getMessage());
 		}
+		this.footerBands = new FooterBandCache();
+		this.compositor = this.newCompositor();
+	}
+
+	private FooterCompositor newCompositor() {
+		return new FooterCompositor(this.imageProcessor, this::footerFor, this.footerBands, this.footerFontFile,
+				this.templateFingerprint);
+	}
+
+	@Override
+	public void setImageProcessor(ImageProcessor processor) {
+		super.setImageProcessor(processor);
+		this.compositor = this.newCompositor();
 	}
 
 	public void setFooter(DigitalFooter footer) {
@@ -101,21 +134,20 @@ public class GeneratorImageJPGFooter extends GeneratorImageJPG {
 			return pathIn.toString();
 		}
 		Path pathOut = this.setOutpath(page);
+		String key = this.cacheKey(page, pathIn);
+		if (this.fromCache(page, key, pathIn, pathOut)) {
+			return pathOut.toString();
+		}
 		try {
-			BufferedImage footerClone = this.imageProcessor.clone(this.footerBuffer);
-			String urn = "";
-			var optUrn = page.optContentIds();
-			if (optUrn.isPresent()) {
-				urn = optUrn.get();
-				nGranulars.getAndIncrement();
-			}
-			DigitalFooter newFooter = new DigitalFooter(this.footer.getText().get(0), urn, footerClone);
-			BufferedImage newBuffer = newFooter.getBufferedImage();
-			BufferedImage textBuffer = this.addTextLayer2Footer(newBuffer, newFooter);
-			int newHeight = this.imageProcessor.writeJPGwithFooter(pathIn, pathOut, textBuffer);
+			// replace rather than overwrite, it might be linked from cache
+			Files.deleteIfExists(pathOut);
+			int newHeight = this.imageProcessor.writeJPGwithFooter(pathIn, pathOut, this.compositor,
+					this.footerLines(page));
 			if(newHeight > 0) {
 				page.setFooterHeight(newHeight);
 			}
+			this.completed(page, pathIn, pathOut, newHeight > 0 ? newHeight : null);
+			this.toCache(key, pathOut, newHeight > 0 ? newHeight : null);
 		} catch (IOException | DigitalDerivansException e) {
 			LOGGER.error("pathIn: {}, footer: {} => {}", pathOut, footer, e.getMessage());
 			this.generatorErrors.get().add(e);
@@ -123,6 +155,69 @@ public class GeneratorImageJPGFooter extends GeneratorImageJPG {
 		return pathOut.toString();
 	}
 
+	/**
+	 * 
+	 * Footer text with optional granular URN of given page
+	 * 
+	 * @param page
+	 * @return lines of footer text
+	 */
+	private List<String> footerLines(DigitalPage page) {
+		String urn = "";
+		var optUrn = page.optContentIds();
+		if (optUrn.isPresent()) {
+			urn = optUrn.get();
+			nGranulars.getAndIncrement();
+		}
+		return List.of(this.footer.getText().get(0), urn);
+	}
+
+	/**
+	 * 
+	 * Render footer with work and optional granular URN
+	 * 
+	 * @param lines footer text
+	 * @return footer buffer with text layer
+	 */
+	protected BufferedImage footerFor(List<String> lines) {
+		BufferedImage footerClone = this.imageProcessor.clone(this.footerBuffer);
+		DigitalFooter newFooter = new DigitalFooter(lines.get(0), lines.get(1), footerClone);
+		BufferedImage newBuffer = newFooter.getBufferedImage();
+		return this.addTextLayer2Footer(newBuffer, newFooter);
+	}
+
+	@Override
+	public PageImage derive(DigitalPage page, PageImage previous) throws IOException, DigitalDerivansException {
+		PageImage input = previous;
+		Path pathIn = this.setInpath(page);
+		if (input == null && !Files.exists(pathIn)) {
+			throw new DigitalDerivansException("input '" + pathIn + "' missing!");
+		}
+		Path pathOut = this.setOutpath(page);
+		String key = input != null ? this.cacheKey(page, input) : this.cacheKey(page, pathIn);
+		if (this.fromCache(page, key, pathIn, pathOut)) {
+			return this.imageProcessor.readEncoded(pathOut);
+		}
+		List<String> lines = this.footerLines(page);
+		BufferedImage merged;
+		ImageMetadata metadata;
+		if (input == null) {
+			metadata = new ImageMetadata();
+			merged = this.compositor.compose(pathIn, lines, metadata);
+		} else {
+			merged = this.compositor.compose(input.getBuffer(), lines, pathOut);
+			metadata = input.getMetadata();
+		}
+		PageImage result = this.imageProcessor.derive(new PageImage(merged, metadata), pathOut);
+		int mergedHeight = merged.getHeight();
+		this.write(pathOut, result.getEncoded(), () -> {
+			this.completed(page, pathIn, pathOut, mergedHeight);
+			this.toCache(key, pathOut, mergedHeight);
+		});
+		page.setFooterHeight(mergedHeight);
+		return result;
+	}
+
 	protected BufferedImage addTextLayer2Footer(BufferedImage bufferedImage, DigitalFooter footR) {
 		List<String> lines = footR.getText();
 		int totalHeight = bufferedImage.getHeight();
@@ -151,9 +246,58 @@ public class GeneratorImageJPGFooter extends GeneratorImageJPG {
 		return bufferedImage;
 	}
 
+	/**
+	 * 
+	 * Footer text with page specific URN and template
+	 * are part of the result, too
+	 * 
+	 */
+	@Override
+	protected String contentFingerprint(DigitalPage page) {
+		return PageManifest.fingerprint(super.contentFingerprint(page), String.join("\n", this.footer.getText()),
+				page.optContentIds().orElse(""), this.templateFingerprint, this.footerFontFile);
+	}
+
+	/**
+	 * 
+	 * Decoded input, merged result with footer
+	 * and scaled result
+	 * 
+	 */
+	@Override
+	protected int buffersPerPage() {
+		return 3;
+	}
+
+	/**
+	 * 
+	 * Input is decoded at full size, since
+	 * footer is appended before scaling, but
+	 * straight into the buffer with footer
+	 * 
+	 */
+	@Override
+	public long estimateMemory(DigitalPage page) {
+		return this.estimateDecodedSize(page) * (this.buffersPerPage() - 1);
+	}
+
 	@Override
 	public boolean forward() throws DigitalDerivansException {
-		return this.runWithPool(() -> this.getDigitalPages().parallelStream().forEach(this::renderFooter));
+		return this.runWithPool(this::renderFooter);
+	}
+
+	/**
+	 * 
+	 * Footer bands rendered (misses) and reused (hits)
+	 * 
+	 */
+	@Override
+	protected void report() {
+		LOGGER.info("footer bands {}", this.footerBands);
+	}
+
+	public FooterBandCache getFooterBands() {
+		return this.footerBands;
 	}
 
 	public int getNumberOfGranularIdentifiers() {
@@ -22,6 +22,7 @@ import de.ulb.digital.derivans.generate.pdf.ITextProcessor;
 import de.ulb.digital.derivans.model.DerivateMD;
 import de.ulb.digital.derivans.model.DerivateStruct;
 import de.ulb.digital.derivans.model.IPDFProcessor;
+import de.ulb.digital.derivans.model.IPageImageSource;
 import de.ulb.digital.derivans.model.pdf.DescriptiveMetadata;
 import de.ulb.digital.derivans.model.pdf.PDFResult;
 import de.ulb.digital.derivans.model.step.DerivateStep;
@@ -42,6 +43,8 @@ public class GeneratorPDF extends Generator {
 
 	private static final Logger LOGGER = LogManager.getLogger(GeneratorPDF.class);
 
+	private static boolean validationInitialised;
+
 	private METS mets;
 
 	private IPDFProcessor pdfProcessor;
@@ -50,6 +53,8 @@ public class GeneratorPDF extends Generator {
 
 	private PDFResult pdfResult;
 
+	private IPageImageSource pageImageSource;
+
 	public GeneratorPDF() {
 		this.pdfProcessor = new ITextProcessor();
 	}
@@ -87,6 +92,17 @@ public class GeneratorPDF extends Generator {
 		this.pdfProcessor = processor;
 	}
 
+	/**
+	 * 
+	 * Consume page images from given source rather than
+	 * reading them from the input directory
+	 * 
+	 * @param source
+	 */
+	public void setPageImageSource(IPageImageSource source) {
+		this.pageImageSource = source;
+	}
+
 	@Override
 	public int create() throws DigitalDerivansException {
 		if (this.digitalPages.isEmpty()) {
@@ -107,6 +123,9 @@ public class GeneratorPDF extends Generator {
 			}
 		}
 		// forward pdf generation
+		if (this.pageImageSource != null) {
+			this.pdfProcessor.setPageImageSource(this.pageImageSource);
+		}
 		this.pdfProcessor.init((DerivateStepPDF) this.step, this.derivate);
 		this.pdfResult = this.pdfProcessor.write(this.pathPDF.toFile());
 		this.pdfResult.setPath(this.pathPDF);
@@ -174,6 +193,18 @@ public class GeneratorPDF extends Generator {
 		}
 	}
 
+	/**
+	 * 
+	 * Initialise PDF/A validation foundry only once per JVM
+	 * 
+	 */
+	public static synchronized void initialiseValidation() {
+		if (!validationInitialised) {
+			VeraGreenfieldFoundryProvider.initialise();
+			validationInitialised = true;
+		}
+	}
+
 	private void validatePdf() throws DigitalDerivansException {
 		String pdfPath = this.pathPDF.toString();
 		if (!Files.exists(this.pathPDF)) {
@@ -187,7 +218,7 @@ public class GeneratorPDF extends Generator {
 		} catch (IOException exc) {
 			throw new DigitalDerivansException(exc);
 		}
-		VeraGreenfieldFoundryProvider.initialise(); // critical
+		GeneratorPDF.initialiseValidation(); // critical
 		try (PDFAParser parser = Foundries.defaultInstance().createParser(new FileInputStream(this.pathPDF.toFile()));
 				PDFAValidator validator = Foundries.defaultInstance().createValidator(parser.getFlavour(), false)) {
 			ValidationResult result = validator.validate(parser);
@@ -0,0 +1,131 @@
+package de.ulb.digital.derivans.generate;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ *
+ * Process-wide budget of heap memory for decoded page images
+ *
+ * Page tasks lease the memory they're expected to require before
+ * decoding any pixels, and return it once finished. Thus large pages
+ * run with fewer peers, whereas small pages run at full parallelism.
+ * A page larger than the whole budget runs on it's own.
+ *
+ * Leases are granted in order of request, so large pages don't
+ * starve behind a steady stream of small ones.
+ *
+ * @author hartwig
+ *
+ */
+public final class MemoryBudget {
+
+	private static final Logger LOGGER = LogManager.getLogger(MemoryBudget.class);
+
+	/**
+	 * Share of maximum heap available for page images by default
+	 */
+	public static final double DEFAULT_HEAP_RATIO = 0.75;
+
+	private static final long MB = 1024L * 1024L;
+
+	private static MemoryBudget instance;
+
+	private final int budgetMB;
+
+	private final Semaphore permits;
+
+	private MemoryBudget(long budgetBytes) {
+		this.budgetMB = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetBytes / MB));
+		this.permits = new Semaphore(this.budgetMB, true);
+	}
+
+	/**
+	 *
+	 * Shared instance, created on first use
+	 * with {@link #defaultBudget() default budget}
+	 *
+	 * @return
+	 */
+	public static synchronized MemoryBudget get() {
+		if (instance == null) {
+			instance = new MemoryBudget(MemoryBudget.defaultBudget());
+		}
+		return instance;
+	}
+
+	public static long defaultBudget() {
+		return (long) (Runtime.getRuntime().maxMemory() * DEFAULT_HEAP_RATIO);
+	}
+
+	/**
+	 *
+	 * Replace shared instance, leases already
+	 * granted are returned to their origin
+	 *
+	 * @param budgetBytes
+	 */
+	public static synchronized void setBudget(long budgetBytes) {
+		if (budgetBytes < MB) {
+			LOGGER.warn("invalid memory budget '{}' ignored", budgetBytes);
+			return;
+		}
+		instance = new MemoryBudget(budgetBytes);
+		LOGGER.info("set memory budget {}MB", instance.budgetMB);
+	}
+
+	public long getBudget() {
+		return this.budgetMB * MB;
+	}
+
+	public long getAvailable() {
+		return this.permits.availablePermits() * MB;
+	}
+
+	/**
+	 *
+	 * Wait until requested memory is available
+	 *
+	 * @param bytes estimated requirement, capped by total budget
+	 * @return lease to be closed when memory is no longer used
+	 * @throws InterruptedException
+	 */
+	public Lease acquire(long bytes) throws InterruptedException {
+		int nMB = (int) Math.max(1, Math.min(this.budgetMB, (bytes + MB - 1) / MB));
+		// timed variant respects fairness, unlike plain tryAcquire
+		if (!this.permits.tryAcquire(nMB, 0, TimeUnit.SECONDS)) {
+			LOGGER.debug("wait for {}MB of {}MB ({}MB available)", nMB, this.budgetMB,
+					this.permits.availablePermits());
+			this.permits.acquire(nMB);
+		}
+		return new Lease(this.permits, nMB);
+	}
+
+	/**
+	 *
+	 * Memory granted to a single page task
+	 *
+	 */
+	public static class Lease implements AutoCloseable {
+
+		private final Semaphore origin;
+
+		private int nMB;
+
+		private Lease(Semaphore origin, int nMB) {
+			this.origin = origin;
+			this.nMB = nMB;
+		}
+
+		@Override
+		public void close() {
+			if (this.nMB > 0) {
+				this.origin.release(this.nMB);
+				this.nMB = 0;
+			}
+		}
+	}
+}
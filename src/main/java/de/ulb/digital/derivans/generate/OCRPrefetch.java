@@ -0,0 +1,269 @@
+package de.ulb.digital.derivans.generate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.data.ocr.OCRDataCache;
+import de.ulb.digital.derivans.model.DigitalPage;
+
+/**
+ *
+ * Read OCR data of pages ahead of time
+ *
+ * Derivates only record where OCR files are located, whereas
+ * actual data is read not before a {@link GeneratorPDF PDF step}
+ * requests it. To keep the PDF step from reading page by page,
+ * files are read in the {@link WorkerPool CPU lane} in order of
+ * pages, while other steps, i.e. image steps, are still running.
+ *
+ * Reading ahead is a sliding window: at most a window of pages is
+ * read but not yet consumed, and each page released by it's
+ * consumer makes room for the next one. The window is reserved
+ * in the {@link OCRDataCache}, thus each work has it's own budget.
+ * No thread waits for the consumer, further pages are handed to
+ * reading when pages are released or reading of a page is done.
+ *
+ * Pages requested before they have been read, or after they have
+ * been evicted, are simply read by the requesting thread.
+ * Errors are therefore only logged here, since reading is
+ * repeated and fails again when data is actually requested.
+ *
+ * @author hartwig
+ *
+ */
+public class OCRPrefetch {
+
+	private static final Logger LOGGER = LogManager.getLogger(OCRPrefetch.class);
+
+	private static final int WAITING = 0;
+
+	private static final int AHEAD = 1;
+
+	private static final int DONE = 2;
+
+	private final List<DigitalPage> pages;
+
+	private final int parallelism;
+
+	private final int window;
+
+	private final int[] states;
+
+	private int next;
+
+	private int nAhead;
+
+	private int nReading;
+
+	private int nHanded;
+
+	private boolean started;
+
+	private boolean stopped;
+
+	/**
+	 *
+	 * Read ahead as many pages as the {@link OCRDataCache}
+	 * holds by default
+	 *
+	 * @param pages       pages in order of consumption
+	 * @param parallelism upper bound of files read at once
+	 */
+	public OCRPrefetch(List<DigitalPage> pages, int parallelism) {
+		this(pages, parallelism, OCRDataCache.get().getCapacity());
+	}
+
+	/**
+	 *
+	 * @param pages       pages in order of consumption
+	 * @param parallelism upper bound of files read at once
+	 * @param window      upper bound of pages read but not consumed
+	 */
+	public OCRPrefetch(List<DigitalPage> pages, int parallelism, int window) {
+		this.pages = pages.stream()
+				.filter(p -> p.getOcrFile().isPresent() && !p.isOcrLoaded())
+				.collect(Collectors.toList());
+		this.parallelism = Math.max(1, parallelism);
+		this.window = Math.max(1, Math.min(window, this.pages.size()));
+		this.states = new int[this.pages.size()];
+	}
+
+	/**
+	 *
+	 * Start reading without waiting for any file
+	 *
+	 * @throws DigitalDerivansException
+	 */
+	public void start() throws DigitalDerivansException {
+		synchronized (this) {
+			if (this.pages.isEmpty() || this.started) {
+				return;
+			}
+			this.started = true;
+		}
+		LOGGER.info("read ocr data of {} pages ahead, at most {} at once", this.pages.size(), this.window);
+		OCRDataCache.get().reserve(this.window);
+		for (int i = 0; i < this.pages.size(); i++) {
+			final int index = i;
+			this.pages.get(i).setOcrReleased(() -> this.released(index));
+		}
+		List<Integer> toRead;
+		synchronized (this) {
+			toRead = this.select();
+		}
+		this.hand(toRead);
+	}
+
+	/**
+	 *
+	 * Pick next pages to read as long as window and parallelism
+	 * allow, skipping pages already consumed
+	 *
+	 */
+	private List<Integer> select() {
+		List<Integer> toRead = new ArrayList<>();
+		while (!this.stopped && this.next < this.states.length && this.nAhead < this.window
+				&& this.nReading < this.parallelism) {
+			int i = this.next++;
+			if (this.states[i] != WAITING) {
+				continue;
+			}
+			this.states[i] = AHEAD;
+			this.nAhead++;
+			this.nReading++;
+			this.nHanded++;
+			toRead.add(i);
+		}
+		return toRead;
+	}
+
+	/**
+	 *
+	 * Hand pages to the CPU lane from a task in the I/O lane,
+	 * since handing might wait for free workers and might be
+	 * called from a CPU worker
+	 *
+	 */
+	private void hand(List<Integer> toRead) {
+		WorkerPool pool = WorkerPool.get();
+		for (int i : toRead) {
+			try {
+				pool.submit(WorkerPool.Lane.IO, () -> {
+					try {
+						pool.submit(WorkerPool.Lane.CPU, () -> {
+							this.load(i);
+							return null;
+						});
+					} catch (Exception e) {
+						this.finished(i, false);
+					}
+					return null;
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.finished(i, false);
+			} catch (RuntimeException e) {
+				this.finished(i, false);
+			}
+		}
+	}
+
+	private void load(int i) {
+		boolean isRead = false;
+		try {
+			synchronized (this) {
+				if (this.stopped || this.states[i] != AHEAD) {
+					return;
+				}
+			}
+			this.pages.get(i).loadOcrData();
+			isRead = true;
+		} catch (DigitalDerivansException e) {
+			LOGGER.warn("reading ocr data ahead failed: {}", e.getMessage());
+		} finally {
+			this.finished(i, isRead);
+		}
+	}
+
+	/**
+	 *
+	 * Reading of page is done, pages which failed
+	 * don't take room anymore
+	 *
+	 */
+	private void finished(int i, boolean isRead) {
+		List<Integer> toRead;
+		synchronized (this) {
+			this.nReading--;
+			if (!isRead && this.states[i] == AHEAD) {
+				this.states[i] = DONE;
+				this.nAhead--;
+			}
+			toRead = this.select();
+			this.notifyAll();
+		}
+		this.hand(toRead);
+	}
+
+	/**
+	 *
+	 * Page was consumed, thus makes room for next one
+	 *
+	 */
+	private void released(int i) {
+		List<Integer> toRead;
+		synchronized (this) {
+			if (this.states[i] == AHEAD) {
+				this.nAhead--;
+			}
+			this.states[i] = DONE;
+			toRead = this.select();
+		}
+		this.hand(toRead);
+	}
+
+	/**
+	 *
+	 * Wait until no page is being read anymore, i.e. window is
+	 * full or all pages have been read
+	 *
+	 * @return number of pages handed to reading so far
+	 * @throws DigitalDerivansException
+	 */
+	public synchronized int await() throws DigitalDerivansException {
+		try {
+			while (this.nReading > 0) {
+				this.wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DigitalDerivansException(e);
+		}
+		return this.nHanded;
+	}
+
+	/**
+	 *
+	 * Stop reading ahead when work is done, drop data
+	 * of pages not consumed and return reserved room
+	 *
+	 */
+	public void stop() {
+		synchronized (this) {
+			if (!this.started || this.stopped) {
+				return;
+			}
+			this.stopped = true;
+		}
+		for (DigitalPage page : this.pages) {
+			page.setOcrReleased(null);
+			page.releaseOcrData();
+		}
+		OCRDataCache.get().unreserve(this.window);
+	}
+}
@@ -0,0 +1,301 @@
+package de.ulb.digital.derivans.generate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+
+/**
+ *
+ * Per page record of results of a single image step
+ *
+ * For each result the fingerprint of it's input (size, last
+ * modification), the step parameters used and the size of the
+ * result are kept, thus pages can be skipped on subsequent runs
+ * as long as all of them are still the same.
+ *
+ * The manifest is stored as hidden tab-separated file next
+ * to the output directory of it's step.
+ *
+ * Results are recorded when written, but inputs and results
+ * are fingerprinted not before the manifest is saved, since
+ * they might be written asynchronously.
+ *
+ * @author hartwig
+ *
+ */
+public class PageManifest {
+
+	private static final Logger LOGGER = LogManager.getLogger(PageManifest.class);
+
+	public static final String MANIFEST_PREFIX = ".derivans_";
+
+	public static final String MANIFEST_SUFFIX = ".manifest";
+
+	private static final String SEPARATOR = "\t";
+
+	private static final int NO_FOOTER = -1;
+
+	private final Path rootDir;
+
+	private final Path file;
+
+	private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+	private final Map<String, Record> recorded = new ConcurrentHashMap<>();
+
+	/**
+	 *
+	 * @param rootDir   root of derivate
+	 * @param outputDir output directory of step
+	 * @param prefix    optional output prefix of step
+	 */
+	public PageManifest(Path rootDir, String outputDir, Optional<String> prefix) {
+		this.rootDir = rootDir;
+		String label = Path.of(outputDir).normalize().toString().replaceAll("[^\\w.-]", "_");
+		if (prefix.isPresent()) {
+			label += "_" + prefix.get().replaceAll("[^\\w.-]", "_");
+		}
+		this.file = rootDir.resolve(MANIFEST_PREFIX + label + MANIFEST_SUFFIX);
+	}
+
+	public Path getFile() {
+		return this.file;
+	}
+
+	/**
+	 *
+	 * Read previous manifest, if any. Malformed entries are ignored.
+	 *
+	 * @throws DigitalDerivansException
+	 */
+	public void load() throws DigitalDerivansException {
+		if (!Files.exists(this.file)) {
+			return;
+		}
+		try {
+			for (String line : Files.readAllLines(this.file, StandardCharsets.UTF_8)) {
+				String[] tokens = line.split(SEPARATOR);
+				if (tokens.length != 6) {
+					continue;
+				}
+				try {
+					Entry entry = new Entry(Long.parseLong(tokens[1]), Long.parseLong(tokens[2]), tokens[3],
+							Long.parseLong(tokens[4]), Integer.parseInt(tokens[5]));
+					this.entries.put(tokens[0], entry);
+				} catch (NumberFormatException e) {
+					LOGGER.warn("ignore malformed manifest line '{}'", line);
+				}
+			}
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+		LOGGER.info("read {} entries from {}", this.entries.size(), this.file);
+	}
+
+	/**
+	 *
+	 * Check whether result recorded previously is still valid,
+	 * i.e. input, parameters and result didn't change since
+	 *
+	 * @param pathIn
+	 * @param pathOut
+	 * @param params  fingerprint of step parameters
+	 * @return
+	 */
+	public boolean isValid(Path pathIn, Path pathOut, String params) {
+		Entry entry = this.entries.get(this.key(pathOut));
+		if (entry == null || !entry.params.equals(params)) {
+			return false;
+		}
+		try {
+			return Files.exists(pathOut) && Files.exists(pathIn)
+					&& Files.size(pathOut) == entry.outSize
+					&& Files.size(pathIn) == entry.inSize
+					&& Files.getLastModifiedTime(pathIn).toMillis() == entry.inModified;
+		} catch (IOException e) {
+			LOGGER.warn("can't check {}: {}", pathOut, e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 *
+	 * Footer height recorded for given result, if any
+	 *
+	 * @param pathOut
+	 * @return
+	 */
+	public Optional<Integer> getFooterHeight(Path pathOut) {
+		Entry entry = this.entries.get(this.key(pathOut));
+		if (entry == null || entry.footerHeight == NO_FOOTER) {
+			return Optional.empty();
+		}
+		return Optional.of(entry.footerHeight);
+	}
+
+	/**
+	 *
+	 * Keep previous entry of skipped result
+	 *
+	 * @param pathOut
+	 */
+	public void keep(Path pathOut) {
+		String key = this.key(pathOut);
+		Entry entry = this.entries.get(key);
+		if (entry != null) {
+			this.recorded.put(key, new Record(null, entry));
+		}
+	}
+
+	/**
+	 *
+	 * Record result just written
+	 *
+	 * @param pathIn
+	 * @param pathOut
+	 * @param params       fingerprint of step parameters
+	 * @param footerHeight height of page with footer or null
+	 */
+	public void record(Path pathIn, Path pathOut, String params, Integer footerHeight) {
+		int height = footerHeight != null ? footerHeight : NO_FOOTER;
+		this.recorded.put(this.key(pathOut), new Record(pathIn, new Entry(0, 0, params, 0, height)));
+	}
+
+	/**
+	 *
+	 * Write all results recorded or kept during this run,
+	 * replacing the previous manifest atomically
+	 *
+	 * @throws DigitalDerivansException
+	 */
+	public void save() throws DigitalDerivansException {
+		if (this.recorded.isEmpty()) {
+			return;
+		}
+		List<String> lines = new ArrayList<>();
+		for (var e : new TreeMap<>(this.recorded).entrySet()) {
+			Record rec = e.getValue();
+			Entry entry = rec.entry;
+			if (rec.pathIn != null) {
+				try {
+					Path pathOut = this.rootDir.resolve(e.getKey());
+					entry = new Entry(Files.size(rec.pathIn), Files.getLastModifiedTime(rec.pathIn).toMillis(),
+							entry.params, Files.size(pathOut), entry.footerHeight);
+				} catch (IOException exc) {
+					LOGGER.warn("skip manifest entry {}: {}", e.getKey(), exc.getMessage());
+					continue;
+				}
+			}
+			lines.add(String.join(SEPARATOR, e.getKey(), String.valueOf(entry.inSize),
+					String.valueOf(entry.inModified), entry.params, String.valueOf(entry.outSize),
+					String.valueOf(entry.footerHeight)));
+		}
+		Path tmpFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		try {
+			Files.write(tmpFile, lines, StandardCharsets.UTF_8);
+			Files.move(tmpFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		}
+		LOGGER.debug("wrote {} entries to {}", lines.size(), this.file);
+	}
+
+	private String key(Path pathOut) {
+		return this.rootDir.relativize(pathOut).normalize().toString();
+	}
+
+	/**
+	 *
+	 * Compact fingerprint of arbitrary parameters
+	 *
+	 * @param params
+	 * @return hex digest
+	 */
+	public static String fingerprint(String... params) {
+		MessageDigest digest = PageManifest.newDigest();
+		for (String param : params) {
+			digest.update(String.valueOf(param).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+		}
+		return PageManifest.hex(digest);
+	}
+
+	/**
+	 *
+	 * Fingerprint of file contents
+	 *
+	 * @param file
+	 * @return hex digest
+	 * @throws IOException
+	 */
+	public static String fingerprint(Path file) throws IOException {
+		MessageDigest digest = PageManifest.newDigest();
+		digest.update(Files.readAllBytes(file));
+		return PageManifest.hex(digest);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String hex(MessageDigest digest) {
+		StringBuilder sb = new StringBuilder();
+		byte[] hash = digest.digest();
+		for (int i = 0; i < 8; i++) {
+			sb.append(String.format("%02x", hash[i]));
+		}
+		return sb.toString();
+	}
+
+	private static class Entry {
+
+		private final long inSize;
+
+		private final long inModified;
+
+		private final String params;
+
+		private final long outSize;
+
+		private final int footerHeight;
+
+		Entry(long inSize, long inModified, String params, long outSize, int footerHeight) {
+			this.inSize = inSize;
+			this.inModified = inModified;
+			this.params = params;
+			this.outSize = outSize;
+			this.footerHeight = footerHeight;
+		}
+	}
+
+	private static class Record {
+
+		private final Path pathIn;
+
+		private final Entry entry;
+
+		Record(Path pathIn, Entry entry) {
+			this.pathIn = pathIn;
+			this.entry = entry;
+		}
+	}
+}
@@ -0,0 +1,306 @@
+package de.ulb.digital.derivans.generate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.generate.image.PageImage;
+import de.ulb.digital.derivans.model.DigitalPage;
+
+/**
+ *
+ * Streaming execution of {@link Generator generators}
+ *
+ * Instead of running each step for all pages before the next
+ * step starts, all {@link GeneratorImage image steps} are fused
+ * per page and pages are passed in memory from one step to the
+ * next. The first {@link GeneratorPDF PDF step} consumes pages
+ * in order as soon as they are ready, using the encoded image
+ * data rather than reading it again from disk.
+ *
+ * The number of pages in flight is bounded by a window, thus
+ * image processing can't run away from the PDF writer.
+ *
+ * Image results are written to disk like before, since they
+ * are derivates on their own. Page tasks run in the shared
+ * {@link WorkerPool}, writing results in it's I/O lane. Any further generators are
+ * processed sequentially afterwards.
+ *
+ * @author hartwig
+ *
+ */
+public class PagePipeline {
+
+	private static final Logger LOGGER = LogManager.getLogger(PagePipeline.class);
+
+	/**
+	 * Pages in flight per worker
+	 */
+	public static final int DEFAULT_WINDOW_FACTOR = 2;
+
+	private final List<GeneratorImage> imageGenerators = new ArrayList<>();
+
+	private GeneratorPDF consumer;
+
+	private final List<Generator> remaining = new ArrayList<>();
+
+	private final Map<DigitalPage, CompletableFuture<Map<Path, PageImage>>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Results of pages yet to be submitted, kept apart since pages
+	 * might be taken from {@link #inFlight} before they are submitted
+	 */
+	private final Map<DigitalPage, CompletableFuture<Map<Path, PageImage>>> results = new ConcurrentHashMap<>();
+
+	private Semaphore window;
+
+	public PagePipeline(List<Generator> generators) {
+		for (Generator generator : generators) {
+			if (generator instanceof GeneratorImage) {
+				this.imageGenerators.add((GeneratorImage) generator);
+			} else if (this.consumer == null && generator instanceof GeneratorPDF) {
+				this.consumer = (GeneratorPDF) generator;
+			} else {
+				this.remaining.add(generator);
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Run all generators
+	 *
+	 * @return number of generators processed
+	 * @throws DigitalDerivansException
+	 */
+	public int run() throws DigitalDerivansException {
+		int nSteps = 0;
+		if (!this.imageGenerators.isEmpty()) {
+			this.stream();
+			nSteps += this.imageGenerators.size();
+			if (this.consumer != null) {
+				nSteps++;
+			}
+		} else if (this.consumer != null) {
+			this.consumer.create();
+			nSteps++;
+		}
+		for (Generator generator : this.remaining) {
+			generator.create();
+			nSteps++;
+		}
+		return nSteps;
+	}
+
+	private void stream() throws DigitalDerivansException {
+		int poolSize = 1;
+		for (GeneratorImage generator : this.imageGenerators) {
+			generator.prepare();
+			poolSize = Math.max(poolSize, generator.getPoolSize());
+		}
+		List<DigitalPage> pages = this.imageGenerators.get(0).getDigitalPages();
+		WorkerPool pool = WorkerPool.get();
+		poolSize = Math.min(poolSize, pool.getThreads(WorkerPool.Lane.CPU));
+		this.window = new Semaphore(poolSize * DEFAULT_WINDOW_FACTOR);
+		for (DigitalPage page : pages) {
+			CompletableFuture<Map<Path, PageImage>> result = new CompletableFuture<>();
+			this.results.put(page, result);
+			this.inFlight.put(page, result);
+		}
+		LOGGER.info("stream {} pages through {} image steps with {} threads (pdf: {})",
+				pages.size(), this.imageGenerators.size(), poolSize, this.consumer != null);
+		Thread feeder = new Thread(() -> this.feed(pages, pool), "derivans-pipeline-feeder");
+		feeder.setDaemon(true);
+		try {
+			feeder.start();
+			if (this.consumer != null) {
+				this.consumer.setPageImageSource(this::take);
+				this.consumer.create();
+			}
+			// await pages not consumed, if any
+			List<Throwable> errors = new ArrayList<>();
+			for (DigitalPage page : pages) {
+				var result = this.inFlight.remove(page);
+				if (result != null) {
+					try {
+						result.join();
+					} catch (CompletionException e) {
+						errors.add(e.getCause());
+					} finally {
+						this.window.release();
+					}
+				}
+			}
+			if (!errors.isEmpty()) {
+				var allMsg = errors.stream()
+						.map(Throwable::getMessage)
+						.reduce((a, b) -> a + "; " + b);
+				throw new DigitalDerivansException(allMsg.orElse("Unknown error encountered!"));
+			}
+			feeder.join();
+			for (GeneratorImage generator : this.imageGenerators) {
+				generator.awaitWrites();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new DigitalDerivansException(e);
+		} finally {
+			feeder.interrupt();
+			this.saveManifests();
+		}
+	}
+
+	/**
+	 *
+	 * Record results written so far, even if processing
+	 * failed, thus a subsequent run can resume, and report
+	 * statistics of each step
+	 *
+	 */
+	private void saveManifests() {
+		for (GeneratorImage generator : this.imageGenerators) {
+			try {
+				generator.awaitWrites();
+			} catch (DigitalDerivansException e) {
+				LOGGER.error("write failed: {}", e.getMessage());
+			}
+			try {
+				generator.saveManifest();
+			} catch (DigitalDerivansException e) {
+				LOGGER.error("manifest: {}", e.getMessage());
+			}
+			generator.report();
+		}
+	}
+
+	/**
+	 *
+	 * Submit pages in order, but only as long as
+	 * the window of pages in flight permits.
+	 *
+	 * If a page can't be submitted, it and all following
+	 * pages fail, thus no one waits for them forever.
+	 *
+	 * @param pages
+	 * @param pool
+	 */
+	private void feed(List<DigitalPage> pages, WorkerPool pool) {
+		for (DigitalPage page : pages) {
+			var result = this.results.remove(page);
+			try {
+				this.window.acquire();
+				pool.submit(WorkerPool.Lane.CPU, () -> {
+					try {
+						result.complete(this.process(page));
+					} catch (Exception | Error e) {
+						LOGGER.error("page {}: {}", page.getPageId(), e.getMessage());
+						result.completeExceptionally(e);
+					}
+					return null;
+				});
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.failPending(result, e);
+				return;
+			} catch (RuntimeException e) {
+				LOGGER.error("page {} not submitted: {}", page.getPageId(), e.getMessage());
+				this.failPending(result, e);
+				return;
+			}
+		}
+	}
+
+	private void failPending(CompletableFuture<Map<Path, PageImage>> current, Exception cause) {
+		current.completeExceptionally(cause);
+		for (var pending : this.results.values()) {
+			pending.completeExceptionally(cause);
+		}
+		this.results.clear();
+	}
+
+	/**
+	 *
+	 * Pass single page through all image steps, each one
+	 * taking the result of it's predecessor, if any
+	 *
+	 * @param page
+	 * @return encoded results by their path
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	private Map<Path, PageImage> process(DigitalPage page)
+			throws IOException, DigitalDerivansException, InterruptedException {
+		Map<Path, PageImage> produced = new HashMap<>();
+		MemoryBudget.Lease lease = MemoryBudget.get().acquire(this.estimateMemory(page));
+		try {
+			for (GeneratorImage generator : this.imageGenerators) {
+				if (generator.skip(page)) {
+					continue;
+				}
+				PageImage previous = produced.get(generator.setInpath(page).normalize());
+				PageImage result = generator.derive(page, previous);
+				produced.put(result.getPath().normalize(), result);
+			}
+			produced.values().forEach(PageImage::flush);
+		} finally {
+			lease.close();
+		}
+		if (this.consumer == null) {
+			produced.clear();
+		}
+		return produced;
+	}
+
+	/**
+	 *
+	 * Estimate heap for all buffers of a page, since results
+	 * of each step are kept until the page is finished
+	 *
+	 * @param page
+	 * @return
+	 */
+	private long estimateMemory(DigitalPage page) {
+		GeneratorImage first = this.imageGenerators.get(0);
+		int nBuffers = 1;
+		for (GeneratorImage generator : this.imageGenerators) {
+			nBuffers += generator.buffersPerPage() - 1;
+		}
+		return first.estimateDecodedSize(page) * nBuffers;
+	}
+
+	/**
+	 *
+	 * Wait for page to be processed and hand over encoded
+	 * image data, if requested path was produced in memory
+	 *
+	 * @param page
+	 * @param imagePath
+	 * @return encoded data or null
+	 * @throws DigitalDerivansException
+	 */
+	private byte[] take(DigitalPage page, Path imagePath) throws DigitalDerivansException {
+		var result = this.inFlight.remove(page);
+		if (result == null) {
+			return null;
+		}
+		try {
+			PageImage pageImage = result.join().get(imagePath.normalize());
+			return pageImage != null ? pageImage.getEncoded() : null;
+		} catch (CompletionException e) {
+			throw new DigitalDerivansException(e.getCause().getMessage(), e.getCause());
+		} finally {
+			this.window.release();
+		}
+	}
+}
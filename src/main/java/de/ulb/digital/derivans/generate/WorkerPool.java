@@ -0,0 +1,286 @@
+package de.ulb.digital.derivans.generate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+
+/**
+ *
+ * Process-wide execution of page tasks
+ *
+ * All generators submit their page tasks to this pool instead
+ * of creating pools of their own, thus concurrent steps or works
+ * share a single global budget of cores rather than each one
+ * oversubscribing the machine independently.
+ *
+ * Tasks are separated into a {@link Lane#CPU CPU-bound lane}, which
+ * is sized by the core budget, and an {@link Lane#IO I/O-bound lane}
+ * with more threads, since these mostly wait for the disk. Each lane
+ * bounds it's tasks waiting or running, and submitters block if
+ * it's exhausted.
+ *
+ * Tasks submitted from within a lane worker are run inline
+ * to prevent workers from waiting for each other.
+ *
+ * @author hartwig
+ *
+ */
+public final class WorkerPool {
+
+	private static final Logger LOGGER = LogManager.getLogger(WorkerPool.class);
+
+	public enum Lane {
+		CPU, IO
+	}
+
+	public static final int MIN_FREE_CORES = 1;
+
+	public static final int IO_THREADS_PER_CORE = 2;
+
+	public static final int QUEUE_SLOTS_PER_THREAD = 4;
+
+	private static final long KEEP_ALIVE_SECS = 30;
+
+	private static WorkerPool instance;
+
+	private final int budget;
+
+	private final LaneExecutor cpu;
+
+	private final LaneExecutor io;
+
+	/**
+	 *
+	 * Per page action
+	 *
+	 * @param <T>
+	 */
+	@FunctionalInterface
+	public interface Task<T> {
+		void accept(T item) throws Exception;
+	}
+
+	private WorkerPool(int budget) {
+		this.budget = budget;
+		this.cpu = new LaneExecutor("derivans-cpu", budget);
+		this.io = new LaneExecutor("derivans-io", budget * IO_THREADS_PER_CORE);
+	}
+
+	/**
+	 *
+	 * Shared instance, created on first use with
+	 * {@link #defaultBudget() default budget}
+	 *
+	 * @return
+	 */
+	public static synchronized WorkerPool get() {
+		if (instance == null) {
+			instance = new WorkerPool(WorkerPool.defaultBudget());
+		}
+		return instance;
+	}
+
+	/**
+	 *
+	 * All available cores except {@link #MIN_FREE_CORES}, at least one
+	 *
+	 * @return
+	 */
+	public static int defaultBudget() {
+		int cores = Runtime.getRuntime().availableProcessors();
+		return Math.max(1, cores - MIN_FREE_CORES);
+	}
+
+	/**
+	 *
+	 * Replace shared instance with one having given budget.
+	 * Previous instance isn't shut down, since callers might
+	 * still hold it, but it's workers end once they're idle.
+	 *
+	 * @param budget
+	 */
+	public static synchronized void setBudget(int budget) {
+		if (budget < 1) {
+			LOGGER.warn("invalid core budget '{}' ignored", budget);
+			return;
+		}
+		if (instance != null && instance.budget == budget) {
+			return;
+		}
+		instance = new WorkerPool(budget);
+		LOGGER.info("set global core budget {}", budget);
+	}
+
+	public int getBudget() {
+		return this.budget;
+	}
+
+	public int getThreads(Lane lane) {
+		return this.lane(lane).nThreads;
+	}
+
+	/**
+	 *
+	 * Number of tasks waiting for a worker
+	 *
+	 * @param lane
+	 * @return
+	 */
+	public int getQueueDepth(Lane lane) {
+		return this.lane(lane).executor.getQueue().size();
+	}
+
+	private LaneExecutor lane(Lane lane) {
+		return lane == Lane.IO ? this.io : this.cpu;
+	}
+
+	/**
+	 *
+	 * Submit single task, blocks while lane is exhausted
+	 *
+	 * @param <T>
+	 * @param lane
+	 * @param task
+	 * @return
+	 * @throws InterruptedException
+	 */
+	public <T> Future<T> submit(Lane lane, Callable<T> task) throws InterruptedException {
+		return this.lane(lane).submit(task);
+	}
+
+	/**
+	 *
+	 * Run task for each item with at most given number of items
+	 * in progress and wait for all of them
+	 *
+	 * @param <T>
+	 * @param lane
+	 * @param items
+	 * @param parallelism upper bound, further limited by lane size
+	 * @param task
+	 * @throws DigitalDerivansException with messages of all failed items
+	 */
+	public <T> void forEach(Lane lane, List<T> items, int parallelism, Task<T> task)
+			throws DigitalDerivansException {
+		LaneExecutor executor = this.lane(lane);
+		Semaphore window = new Semaphore(Math.max(1, Math.min(parallelism, executor.nThreads)));
+		List<Future<Object>> futures = new ArrayList<>();
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		try {
+			for (T item : items) {
+				window.acquire();
+				try {
+					futures.add(executor.submit(() -> {
+						try {
+							task.accept(item);
+						} catch (Exception e) {
+							errors.add(e);
+						} finally {
+							window.release();
+						}
+						return null;
+					}));
+				} catch (RuntimeException e) {
+					window.release();
+					errors.add(e);
+					break;
+				}
+			}
+			for (Future<Object> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					errors.add(e.getCause());
+				}
+			}
+		} catch (InterruptedException e) {
+			futures.forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new DigitalDerivansException(e);
+		}
+		if (!errors.isEmpty()) {
+			var allMsg = errors.stream()
+					.map(Throwable::getMessage)
+					.reduce((a, b) -> a + "; " + b);
+			throw new DigitalDerivansException(allMsg.orElse("Unknown error encountered!"));
+		}
+	}
+
+	/**
+	 *
+	 * Fixed number of workers, whereas tasks waiting or running
+	 * are bounded by a semaphore to make submitters wait instead
+	 * of rejecting tasks. The queue itself is unbounded, since a
+	 * slot is freed as soon as a task is done or cancelled, which
+	 * might happen before a worker takes the next task from the
+	 * queue or while a cancelled task still sits in it.
+	 *
+	 */
+	private static class LaneExecutor {
+
+		private final int nThreads;
+
+		private final ThreadPoolExecutor executor;
+
+		private final Semaphore slots;
+
+		LaneExecutor(String name, int nThreads) {
+			this.nThreads = nThreads;
+			this.slots = new Semaphore(nThreads + nThreads * QUEUE_SLOTS_PER_THREAD);
+			AtomicInteger counter = new AtomicInteger();
+			this.executor = new ThreadPoolExecutor(nThreads, nThreads, KEEP_ALIVE_SECS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<>(),
+					r -> new LaneThread(this, r, name + "-" + counter.incrementAndGet()));
+			this.executor.allowCoreThreadTimeOut(true);
+		}
+
+		<T> Future<T> submit(Callable<T> task) throws InterruptedException {
+			Thread current = Thread.currentThread();
+			if (current instanceof LaneThread && ((LaneThread) current).lane == this) {
+				FutureTask<T> inline = new FutureTask<>(task);
+				inline.run();
+				return inline;
+			}
+			this.slots.acquire();
+			FutureTask<T> future = new FutureTask<>(task) {
+				@Override
+				protected void done() {
+					slots.release();
+				}
+			};
+			try {
+				this.executor.execute(future);
+			} catch (RejectedExecutionException e) {
+				this.slots.release();
+				throw e;
+			}
+			return future;
+		}
+	}
+
+	private static class LaneThread extends Thread {
+
+		private final LaneExecutor lane;
+
+		LaneThread(LaneExecutor lane, Runnable r, String name) {
+			super(r, name);
+			this.lane = lane;
+			this.setDaemon(true);
+		}
+	}
+}
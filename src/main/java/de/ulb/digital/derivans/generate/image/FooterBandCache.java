@@ -0,0 +1,175 @@
+package de.ulb.digital.derivans.generate.image;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ *
+ * Bounded cache of rendered footer bands shared by
+ * all workers of a footer step
+ *
+ * Each band is rendered exactly once, even if requested
+ * by several workers at the same time, since concurrent
+ * requests for a missing band wait for the first one.
+ * Least recently used bands are evicted, which matters
+ * only for works with granular URNs on each page.
+ *
+ * @author hartwig
+ *
+ */
+public class FooterBandCache {
+
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private final Map<Key, Entry> entries;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	public FooterBandCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public FooterBandCache(int capacity) {
+		this.entries = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+				boolean isFull = this.size() > capacity;
+				if (isFull) {
+					FooterBandCache.this.evictions.incrementAndGet();
+				}
+				return isFull;
+			}
+		};
+	}
+
+	/**
+	 *
+	 * Get band for given key, render it if missing
+	 *
+	 * @param key
+	 * @param renderer
+	 * @return band
+	 */
+	public BufferedImage get(Key key, Supplier<BufferedImage> renderer) {
+		Entry entry;
+		synchronized (this.entries) {
+			entry = this.entries.get(key);
+			if (entry == null) {
+				entry = new Entry();
+				this.entries.put(key, entry);
+				this.misses.incrementAndGet();
+			} else {
+				this.hits.incrementAndGet();
+			}
+		}
+		return entry.get(renderer);
+	}
+
+	public long getHits() {
+		return this.hits.get();
+	}
+
+	public long getMisses() {
+		return this.misses.get();
+	}
+
+	public long getEvictions() {
+		return this.evictions.get();
+	}
+
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("hits: %d, misses: %d, evictions: %d", this.getHits(), this.getMisses(),
+				this.getEvictions());
+	}
+
+	/**
+	 *
+	 * Band rendered at most once
+	 *
+	 */
+	private static class Entry {
+
+		private BufferedImage band;
+
+		synchronized BufferedImage get(Supplier<BufferedImage> renderer) {
+			if (this.band == null) {
+				this.band = renderer.get();
+			}
+			return this.band;
+		}
+	}
+
+	/**
+	 *
+	 * Everything affecting the pixels of a band
+	 *
+	 */
+	public static final class Key {
+
+		private final int width;
+
+		private final int type;
+
+		private final List<String> lines;
+
+		private final String font;
+
+		private final String template;
+
+		public Key(int width, int type, List<String> lines, String font, String template) {
+			this.width = width;
+			this.type = type;
+			this.lines = List.copyOf(lines);
+			this.font = font;
+			this.template = template;
+		}
+
+		public int getWidth() {
+			return this.width;
+		}
+
+		public int getType() {
+			return this.type;
+		}
+
+		public List<String> getLines() {
+			return this.lines;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.width == other.width && this.type == other.type && this.lines.equals(other.lines)
+					&& Objects.equals(this.font, other.font) && Objects.equals(this.template, other.template);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(this.width, this.type, this.lines, this.font, this.template);
+		}
+	}
+}
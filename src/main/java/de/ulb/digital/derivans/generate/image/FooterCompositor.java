@@ -0,0 +1,174 @@
+package de.ulb.digital.derivans.generate.image;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.data.image.ImageCodecs;
+import de.ulb.digital.derivans.data.image.ImageMetadata;
+
+/**
+ *
+ * Append footer bands to page images on raster level
+ *
+ * Page image data is decoded straight into a destination
+ * which is already tall enough to hold the footer band, too,
+ * and the rows of the band are copied below afterwards.
+ * Bands are rendered, scaled and converted to the pixel
+ * type of the page only once for each distinct page width
+ * and footer text, kept by a {@link FooterBandCache}.
+ *
+ * Pages with custom pixel types or too narrow for the
+ * footer are handled by {@link ImageProcessor#appendFooter}
+ * like before.
+ *
+ * @author hartwig
+ *
+ */
+public class FooterCompositor {
+
+	private final ImageProcessor imageProcessor;
+
+	private final Function<List<String>, BufferedImage> renderer;
+
+	private final FooterBandCache bands;
+
+	private final String font;
+
+	private final String template;
+
+	/**
+	 *
+	 * @param imageProcessor
+	 * @param renderer       Render footer template with text layer for given
+	 *                       lines of text
+	 * @param bands
+	 * @param font           Identify font used by renderer
+	 * @param template       Identify template used by renderer
+	 */
+	public FooterCompositor(ImageProcessor imageProcessor, Function<List<String>, BufferedImage> renderer,
+			FooterBandCache bands, String font, String template) {
+		this.imageProcessor = imageProcessor;
+		this.renderer = renderer;
+		this.bands = bands;
+		this.font = font;
+		this.template = template;
+	}
+
+	/**
+	 *
+	 * Decode image at given path with footer appended
+	 *
+	 * @param pathIn
+	 * @param lines  Page specific footer text
+	 * @return image data with footer
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public BufferedImage compose(Path pathIn, List<String> lines) throws IOException, DigitalDerivansException {
+		return this.compose(pathIn, lines, null);
+	}
+
+	/**
+	 *
+	 * Decode image at given path with footer appended and
+	 * enrich given metadata from the same reader
+	 *
+	 * @param pathIn
+	 * @param lines    Page specific footer text
+	 * @param metadata to enrich, if not null
+	 * @return image data with footer
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public BufferedImage compose(Path pathIn, List<String> lines, ImageMetadata metadata)
+			throws IOException, DigitalDerivansException {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(pathIn.toFile());
+				var codec = ImageCodecs.reader(iis, metadata == null)) {
+			if (codec == null) {
+				throw new DigitalDerivansException("Invalid image data " + pathIn + "!");
+			}
+			ImageReader reader = codec.get();
+			if (metadata != null) {
+				metadata.enrichFrom(reader, pathIn);
+			}
+			int width = reader.getWidth(0);
+			int height = reader.getHeight(0);
+			ImageTypeSpecifier imageType = reader.getImageTypes(0).next();
+			int type = imageType.getBufferedImageType();
+			if (!this.isComposable(width, type)) {
+				BufferedImage buffer = reader.read(0);
+				return this.imageProcessor.appendFooter(buffer, this.renderer.apply(lines), pathIn);
+			}
+			BufferedImage band = this.band(width, type, lines);
+			BufferedImage composed = imageType.createBufferedImage(width, height + band.getHeight());
+			ImageReadParam param = reader.getDefaultReadParam();
+			param.setDestination(composed);
+			reader.read(0, param);
+			composed.getRaster().setDataElements(0, height, band.getRaster());
+			return composed;
+		}
+	}
+
+	/**
+	 *
+	 * Append footer to already decoded image data
+	 *
+	 * @param buffer
+	 * @param lines  Page specific footer text
+	 * @param label  Identify page for logging purposes
+	 * @return image data with footer
+	 */
+	public BufferedImage compose(BufferedImage buffer, List<String> lines, Path label) {
+		int width = buffer.getWidth();
+		int type = buffer.getType();
+		if (!this.isComposable(width, type)) {
+			return this.imageProcessor.appendFooter(buffer, this.renderer.apply(lines), label);
+		}
+		BufferedImage band = this.band(width, type, lines);
+		BufferedImage composed = new BufferedImage(width, buffer.getHeight() + band.getHeight(), type);
+		composed.getRaster().setDataElements(0, 0, buffer.getRaster());
+		composed.getRaster().setDataElements(0, buffer.getHeight(), band.getRaster());
+		return composed;
+	}
+
+	private boolean isComposable(int width, int type) {
+		return width >= ImageProcessor.DEFAULT_MINIMAL_DIMENSION && type != BufferedImage.TYPE_CUSTOM;
+	}
+
+	/**
+	 *
+	 * Footer with given text scaled to given width, exactly
+	 * like it had been drawn below the page image, therefore
+	 * converted to it's pixel type
+	 *
+	 * @param width
+	 * @param type
+	 * @param lines
+	 * @return
+	 */
+	BufferedImage band(int width, int type, List<String> lines) {
+		var key = new FooterBandCache.Key(width, type, lines, this.font, this.template);
+		return this.bands.get(key, () -> {
+			BufferedImage footer = this.renderer.apply(lines);
+			float ratio = (float) width / footer.getWidth();
+			BufferedImage scaled = this.imageProcessor.scale(footer, ratio);
+			BufferedImage band = new BufferedImage(width, scaled.getHeight(), type);
+			Graphics2D g2d = band.createGraphics();
+			g2d.drawImage(scaled, 0, 0, null);
+			g2d.dispose();
+			scaled.flush();
+			return band;
+		});
+	}
+}
@@ -2,26 +2,39 @@ package de.ulb.digital.derivans.generate.image;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 import javax.imageio.IIOException;
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
 import javax.imageio.ImageWriteParam;
 import javax.imageio.ImageWriter;
 import javax.imageio.ImageTypeSpecifier;
 import javax.imageio.plugins.jpeg.JPEGImageWriteParam;
-import javax.imageio.stream.FileImageOutputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.config.DefaultConfiguration;
+import de.ulb.digital.derivans.data.image.ImageCodecs;
 import de.ulb.digital.derivans.data.image.ImageMetadata;
 
 /**
@@ -45,6 +58,11 @@ public class ImageProcessor {
 	 */
 	private int maximal = DefaultConfiguration.DEFAULT_MAXIMAL;
 
+	/**
+	 * Resampling used for scaling image data
+	 */
+	private Resampler.Mode resampling = Resampler.Mode.BICUBIC;
+
 	/**
 	 * Default minimal image dimension in width or height
 	 */
@@ -56,6 +74,22 @@ public class ImageProcessor {
 	 */
 	public static final Integer MIN_SCALED_FOOTER_HEIGHT = 25;
 
+	/**
+	 * Assumed bytes per pixel, if image header lacks type information
+	 */
+	public static final int DEFAULT_BYTES_PER_PIXEL = 4;
+
+	/**
+	 * Minimal multiple of maximal dimension to be decoded if subsampling
+	 * while decoding, thus final bicubic pass still has enough details
+	 */
+	public static final int MIN_DECODE_OVERSAMPLING = 2;
+
+	/**
+	 * Bytes buffered before written to the channel of a target file
+	 */
+	public static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
 	public ImageProcessor() {
 	}
 
@@ -74,6 +108,14 @@ public class ImageProcessor {
 		return this.maximal;
 	}
 
+	public void setResampling(Resampler.Mode resampling) {
+		this.resampling = resampling;
+	}
+
+	public Resampler.Mode getResampling() {
+		return this.resampling;
+	}
+
 	public void setQuality(int quality) {
 		if (quality > 0 && quality <= 100) {
 			this.qualityRatio = quality / 100.0f;
@@ -122,22 +164,51 @@ public class ImageProcessor {
 	BufferedImage scale(BufferedImage original, float ratio) {
 		int newW = (int) (ratio * original.getWidth());
 		int newH = (int) (ratio * original.getHeight());
-		int bType = original.getType();
-		if (bType == 0) {
-			bType = original.getColorModel().getColorSpace().getType();
-		}
-		BufferedImage dimg = new BufferedImage(newW, newH, bType);
-		Graphics2D g2d = dimg.createGraphics();
-		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
-		g2d.drawImage(original, 0, 0, newW, newH, null);
-		g2d.dispose();
-		return dimg;
+		return this.scale(original, newW, newH);
+	}
+
+	BufferedImage scale(BufferedImage original, int newW, int newH) {
+		return Resampler.scale(original, newW, newH, this.resampling);
 	}
 
 	boolean writeJPGWithQualityAndMetadata(BufferedImage buffer, Path pathOut, ImageMetadata metadata)
 			throws DigitalDerivansException, IOException {
 		buffer = handleMaximalDimension(buffer);
+		try (FileChannel channel = FileChannel.open(pathOut, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+				OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+				MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(out);) {
+			this.write(buffer, mcios, metadata);
+		} catch (IIOException e) {
+			throw new DigitalDerivansException(e.getMessage() + ":" + pathOut);
+		}
+		return true;
+	}
+
+	/**
+	 * 
+	 * Encode given buffer as JPEG in memory, using
+	 * same parameters as if written to a file
+	 * 
+	 * @param buffer
+	 * @param metadata
+	 * @param label    Identify buffer in case of errors
+	 * @return JPEG bytes
+	 * @throws DigitalDerivansException
+	 * @throws IOException
+	 */
+	public byte[] encodeJPG(BufferedImage buffer, ImageMetadata metadata, Path label)
+			throws DigitalDerivansException, IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (MemoryCacheImageOutputStream mcios = new MemoryCacheImageOutputStream(bos);) {
+			this.write(buffer, mcios, metadata);
+		} catch (IIOException e) {
+			throw new DigitalDerivansException(e.getMessage() + ":" + label);
+		}
+		return bos.toByteArray();
+	}
 
+	private void write(BufferedImage buffer, ImageOutputStream output, ImageMetadata metadata) throws IOException {
 		// determine BufferedImage.type
 		// 5 = 8-bit RGB color components, corresponding to
 		// Windows-style BGR color model
@@ -158,59 +229,317 @@ public class ImageProcessor {
 		jpegParams.setDestinationType(imageType);
 
 		// write image buffer
-		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
-		try (FileImageOutputStream fios = new FileImageOutputStream(pathOut.toFile());) {
-			writer.setOutput(fios);
+		try (var codec = ImageCodecs.jpegWriter()) {
+			ImageWriter writer = codec.get();
+			writer.setOutput(output);
 			writer.write(null, new IIOImage(buffer, null, metadata.getData()), jpegParams);
-		} catch (IIOException e) {
-			throw new DigitalDerivansException(e.getMessage() + ":" + pathOut);
 		}
-		return true;
 	}
 
-	public boolean writeJPG(Path pathIn, Path pathOut) throws IOException, DigitalDerivansException {
+	/**
+	 * 
+	 * Decode first image of given input with a pooled reader
+	 * and enrich given metadata within the same pass
+	 * 
+	 * @param iis
+	 * @param label    Identify input in case of errors
+	 * @param metadata
+	 * @return image data
+	 * @throws IOException
+	 * @throws DigitalDerivansException if no reader matches
+	 */
+	static BufferedImage decode(ImageInputStream iis, Object label, ImageMetadata metadata)
+			throws IOException, DigitalDerivansException {
+		try (var codec = ImageCodecs.reader(iis, false)) {
+			if (codec == null) {
+				throw new DigitalDerivansException("Invalid image data " + label + "!");
+			}
+			ImageReader reader = codec.get();
+			metadata.enrichFrom(reader, label);
+			return reader.read(0, reader.getDefaultReadParam());
+		}
+	}
+
+	/**
+	 * 
+	 * Read image data and metadata from given file
+	 * to be passed to subsequent steps in memory
+	 * 
+	 * @param pathIn
+	 * @return {@link PageImage}
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public PageImage read(Path pathIn) throws IOException, DigitalDerivansException {
 		var fileSize = Files.size(pathIn);
 		if (fileSize < 1L) {
 			throw new DigitalDerivansException("Invalid fileSize " + fileSize + " for " + pathIn + "!");
 		}
-		BufferedImage buffer = ImageIO.read(pathIn.toFile());
-		if (buffer == null) {
-			throw new DigitalDerivansException("Invalid image data " + pathIn + "!");
+		ImageMetadata imageMetada = new ImageMetadata();
+		BufferedImage buffer;
+		try (ImageInputStream iis = ImageIO.createImageInputStream(pathIn.toFile())) {
+			buffer = ImageProcessor.decode(iis, pathIn, imageMetada);
+		}
+		return new PageImage(buffer, imageMetada);
+	}
+
+	/**
+	 * 
+	 * Like {@link #read(Path)}, but scale image data to
+	 * maximal dimension already while decoding
+	 * 
+	 * @param pathIn
+	 * @return {@link PageImage}
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public PageImage readScaled(Path pathIn) throws IOException, DigitalDerivansException {
+		var fileSize = Files.size(pathIn);
+		if (fileSize < 1L) {
+			throw new DigitalDerivansException("Invalid fileSize " + fileSize + " for " + pathIn + "!");
 		}
 		ImageMetadata imageMetada = new ImageMetadata();
-		imageMetada.enrichFrom(pathIn);
+		BufferedImage buffer = this.decodeScaled(pathIn, imageMetada);
+		return new PageImage(buffer, imageMetada);
+	}
+
+	/**
+	 * 
+	 * Decode image scaled to maximal dimension.
+	 * 
+	 * Dimensions are read from header first, and if the image is
+	 * much larger than required, only every n-th pixel is decoded
+	 * (which also applies to TIFF tiles and strips), but still at least
+	 * {@link #MIN_DECODE_OVERSAMPLING} times the maximal dimension.
+	 * The final bicubic pass yields the same dimensions as if the
+	 * full image were scaled, since they're calculated from it's header.
+	 * 
+	 * Images not exceeding twice the maximal dimension are decoded
+	 * completely and scaled later on, like before.
+	 * 
+	 * Metadata is enriched from the same reader, thus the
+	 * input is opened only once.
+	 * 
+	 * @param pathIn
+	 * @param metadata
+	 * @return image data, scaled if subsampled
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	BufferedImage decodeScaled(Path pathIn, ImageMetadata metadata) throws IOException, DigitalDerivansException {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(pathIn.toFile());
+				var codec = ImageCodecs.reader(iis, false)) {
+			if (codec == null) {
+				throw new DigitalDerivansException("Invalid image data " + pathIn + "!");
+			}
+			ImageReader reader = codec.get();
+			metadata.enrichFrom(reader, pathIn);
+			int width = reader.getWidth(0);
+			int height = reader.getHeight(0);
+			int factor = this.subsampling(width, height);
+			ImageReadParam param = reader.getDefaultReadParam();
+			if (factor > 1) {
+				param.setSourceSubsampling(factor, factor, 0, 0);
+			}
+			BufferedImage buffer = reader.read(0, param);
+			if (factor == 1) {
+				return buffer;
+			}
+			LOGGER.trace("subsampled {} by {} while decoding", pathIn, factor);
+			float ratio = (float) this.maximal / (float) Math.max(width, height);
+			BufferedImage scaled = this.scale(buffer, (int) (ratio * width), (int) (ratio * height));
+			buffer.flush();
+			return scaled;
+		}
+	}
+
+	/**
+	 * 
+	 * Largest subsampling factor for image with given dimensions,
+	 * still decoding at least {@link #MIN_DECODE_OVERSAMPLING}
+	 * times the maximal dimension
+	 * 
+	 * @param width
+	 * @param height
+	 * @return factor, 1 if no subsampling
+	 */
+	public int subsampling(int width, int height) {
+		return Math.max(1, Math.max(width, height) / (MIN_DECODE_OVERSAMPLING * this.maximal));
+	}
+
+	/**
+	 * 
+	 * Read image data, metadata and encoded bytes of
+	 * given file, like it was just derived
+	 * 
+	 * @param path
+	 * @return {@link PageImage} with encoded data
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public PageImage readEncoded(Path path) throws IOException, DigitalDerivansException {
+		return this.readEncoded(Files.readAllBytes(path), path);
+	}
+
+	/**
+	 * 
+	 * Read image data and metadata of given encoded data
+	 * 
+	 * @param data
+	 * @param path Target of data
+	 * @return {@link PageImage} with encoded data
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public PageImage readEncoded(byte[] data, Path path) throws IOException, DigitalDerivansException {
+		ImageMetadata imageMetada = new ImageMetadata();
+		BufferedImage buffer;
+		try (ImageInputStream iis = new MemoryCacheImageInputStream(new ByteArrayInputStream(data))) {
+			buffer = ImageProcessor.decode(iis, path, imageMetada);
+		}
+		return new PageImage(buffer, imageMetada, data, path);
+	}
+
+	/**
+	 * 
+	 * Estimate memory required for decoded pixel data of given
+	 * image, using only dimensions and pixel type of it's header,
+	 * thus without decoding any pixels.
+	 * 
+	 * @param pathIn
+	 * @return estimated bytes
+	 * @throws IOException if no reader present or header can't be read
+	 */
+	public static long estimateDecodedSize(Path pathIn) throws IOException {
+		int[] header = ImageProcessor.readHeader(pathIn);
+		return (long) header[0] * header[1] * header[2];
+	}
+
+	/**
+	 * 
+	 * Estimate peak memory required by {@link #writeJPG(Path, Path)},
+	 * i.e. decoded, maybe subsampled, input and it's scaled result
+	 * 
+	 * @param pathIn
+	 * @return estimated bytes
+	 * @throws IOException if no reader present or header can't be read
+	 */
+	public long estimateScaledDecode(Path pathIn) throws IOException {
+		int[] header = ImageProcessor.readHeader(pathIn);
+		long width = header[0];
+		long height = header[1];
+		int factor = this.subsampling(header[0], header[1]);
+		long decoded = ((width + factor - 1) / factor) * ((height + factor - 1) / factor) * header[2];
+		long maxDim = Math.max(width, height);
+		if (maxDim <= this.maximal) {
+			return decoded * 2;
+		}
+		float ratio = (float) this.maximal / (float) maxDim;
+		return decoded + (long) (ratio * width) * (long) (ratio * height) * header[2];
+	}
+
+	/**
+	 * 
+	 * Read width, height and bytes per pixel from image header
+	 * 
+	 * @param pathIn
+	 * @return
+	 * @throws IOException if no reader present or header can't be read
+	 */
+	private static int[] readHeader(Path pathIn) throws IOException {
+		try (ImageInputStream iis = ImageIO.createImageInputStream(pathIn.toFile());
+				var codec = ImageCodecs.reader(iis)) {
+			if (codec == null) {
+				throw new IOException("No image reader for " + pathIn);
+			}
+			ImageReader reader = codec.get();
+			int bytesPerPixel = DEFAULT_BYTES_PER_PIXEL;
+			ImageTypeSpecifier rawType = reader.getRawImageType(0);
+			if (rawType != null) {
+				bytesPerPixel = Math.max(1, (rawType.getColorModel().getPixelSize() + 7) / 8);
+			}
+			return new int[] { reader.getWidth(0), reader.getHeight(0), bytesPerPixel };
+		}
+	}
+
+	/**
+	 * 
+	 * Scale given page image if exceeding maximal dimension
+	 * and encode it as JPEG for the given target.
+	 * 
+	 * Resulting metadata doesn't ignore progressive mode any
+	 * longer, just like reading the JPEG again from disk.
+	 * 
+	 * @param input
+	 * @param pathOut
+	 * @return {@link PageImage} with encoded data
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public PageImage derive(PageImage input, Path pathOut) throws IOException, DigitalDerivansException {
+		BufferedImage buffer = handleMaximalDimension(input.getBuffer());
+		byte[] data = this.encodeJPG(buffer, input.getMetadata(), pathOut);
+		return new PageImage(buffer, new ImageMetadata(input.getMetadata().getData()), data, pathOut);
+	}
+
+	public boolean writeJPG(Path pathIn, Path pathOut) throws IOException, DigitalDerivansException {
+		var fileSize = Files.size(pathIn);
+		if (fileSize < 1L) {
+			throw new DigitalDerivansException("Invalid fileSize " + fileSize + " for " + pathIn + "!");
+		}
+		ImageMetadata imageMetada = new ImageMetadata();
+		BufferedImage buffer = this.decodeScaled(pathIn, imageMetada);
 		this.writeJPGWithQualityAndMetadata(buffer, pathOut, imageMetada);
 		buffer.flush();
 		return true;
 	}
 
-	public int writeJPGwithFooter(Path pathIn, Path pathOut, BufferedImage footerBuffer)
+	/**
+	 * 
+	 * Decode image with footer appended by given compositor
+	 * and write it scaled to maximal dimension
+	 * 
+	 * @param pathIn
+	 * @param pathOut
+	 * @param compositor
+	 * @param lines      Page specific footer text
+	 * @return height of image with footer
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public int writeJPGwithFooter(Path pathIn, Path pathOut, FooterCompositor compositor, List<String> lines)
 			throws IOException, DigitalDerivansException {
-		int newHeight = 0;
-		BufferedImage readBuffer = ImageIO.read(pathIn.toFile());
-		if (readBuffer == null) {
-			throw new DigitalDerivansException("Invalid image data " + pathIn + "!");
-		}
+		ImageMetadata imageMetada = new ImageMetadata();
+		BufferedImage composed = compositor.compose(pathIn, lines, imageMetada);
+		this.writeJPGWithQualityAndMetadata(composed, pathOut, imageMetada);
+		composed.flush();
+		return composed.getHeight();
+	}
+
+	/**
+	 * 
+	 * Scale footer to width of page image and append it
+	 * at the bottom. Too narrow pages get centered on
+	 * a minimal background first.
+	 * 
+	 * @param readBuffer
+	 * @param footerBuffer
+	 * @param label        Identify page for logging purposes
+	 * @return merged buffer
+	 */
+	public BufferedImage appendFooter(BufferedImage readBuffer, BufferedImage footerBuffer, Path label) {
 		float origWidth = readBuffer.getWidth();
 		boolean isImageTooNarrow = origWidth < DEFAULT_MINIMAL_DIMENSION;
 		if (isImageTooNarrow) {
-			LOGGER.warn("image {} too narrow width: {}, set fallback {}", pathIn, origWidth, DEFAULT_MINIMAL_DIMENSION);
+			LOGGER.warn("image {} too narrow width: {}, set fallback {}", label, origWidth, DEFAULT_MINIMAL_DIMENSION);
 			origWidth = DEFAULT_MINIMAL_DIMENSION;
 			readBuffer = this.centerOnBackground(readBuffer, DEFAULT_MINIMAL_DIMENSION);
 		}
 		float ratio = origWidth / footerBuffer.getWidth();
 		BufferedImage processedFooter = this.scale(footerBuffer, ratio);
 		BufferedImage mergedBuffers = this.merge(readBuffer, processedFooter);
-		newHeight = mergedBuffers.getHeight();
-		ImageMetadata imageMetada = new ImageMetadata();
-		imageMetada.enrichFrom(pathIn);
-		this.writeJPGWithQualityAndMetadata(mergedBuffers, pathOut, imageMetada);
-		readBuffer.flush();
 		processedFooter.flush();
-		mergedBuffers.flush();
-
-		// return changed height/width with added footer
-		return newHeight;
+		return mergedBuffers;
 	}
 
 	protected BufferedImage handleMaximalDimension(BufferedImage buffer) {
@@ -0,0 +1,332 @@
+package de.ulb.digital.derivans.generate.image;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.plugins.jpeg.JPEGQTable;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.data.image.ImageCodecs;
+import de.ulb.digital.derivans.data.image.ImageMetadata;
+
+/**
+ *
+ * Take JPEG input as it is, if re-encoding wouldn't change
+ * anything but add another generation of compression loss.
+ *
+ * Input is taken if it's header reveals that it doesn't
+ * exceed maximal dimension, it's quality estimated from the
+ * luminance quantization table doesn't exceed the requested
+ * quality and it's progressive mode matches the mode used when
+ * encoding. Only a leading JFIF segment is supported, since
+ * only this one can be patched in place if it's density differs
+ * from the density an encoded result would carry.
+ *
+ * @author hartwig
+ *
+ */
+public class JpegPassthrough {
+
+	private static final Logger LOGGER = LogManager.getLogger(JpegPassthrough.class);
+
+	/**
+	 * Bytes up to and including Ydensity of a leading JFIF segment
+	 */
+	static final int JFIF_HEADER_LENGTH = 18;
+
+	static final int OFFSET_RES_UNITS = 13;
+
+	static final int OFFSET_X_DENSITY = 14;
+
+	static final int OFFSET_Y_DENSITY = 16;
+
+	/**
+	 * Process of a progressive DCT frame, see ITU T.81 SOF2
+	 */
+	static final String PROCESS_PROGRESSIVE = "2";
+
+	private static final byte[] JFIF_START = { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0 };
+
+	private static final byte[] JFIF_IDENTIFIER = "JFIF\0".getBytes(StandardCharsets.US_ASCII);
+
+	private final ImageProcessor imageProcessor;
+
+	/**
+	 *
+	 * Header values of inspected input, and the JFIF density
+	 * it must carry to be taken as result
+	 *
+	 */
+	public static final class Inspection {
+
+		private final int width;
+
+		private final int height;
+
+		private final int quality;
+
+		private final boolean isProgressive;
+
+		private final boolean requiresProgressive;
+
+		private final int[] density;
+
+		private final int[] targetDensity;
+
+		Inspection(int width, int height, int quality, boolean isProgressive, boolean requiresProgressive,
+				int[] density, int[] targetDensity) {
+			this.width = width;
+			this.height = height;
+			this.quality = quality;
+			this.isProgressive = isProgressive;
+			this.requiresProgressive = requiresProgressive;
+			this.density = density;
+			this.targetDensity = targetDensity;
+		}
+
+		public int getWidth() {
+			return this.width;
+		}
+
+		public int getHeight() {
+			return this.height;
+		}
+
+		/**
+		 * Estimated quality in percent, like it's passed
+		 * to the step's configuration
+		 */
+		public int getQuality() {
+			return this.quality;
+		}
+
+		public boolean isProgressive() {
+			return this.isProgressive;
+		}
+
+		public boolean requiresPatch() {
+			return this.density[0] != this.targetDensity[0] || this.density[1] != this.targetDensity[1]
+					|| this.density[2] != this.targetDensity[2];
+		}
+	}
+
+	public JpegPassthrough(ImageProcessor imageProcessor) {
+		this.imageProcessor = imageProcessor;
+	}
+
+	/**
+	 *
+	 * Inspect header of given input
+	 *
+	 * @param pathIn
+	 * @return inspection or null, if input has no leading JFIF segment
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public Inspection inspect(Path pathIn) throws IOException, DigitalDerivansException {
+		if (!JpegPassthrough.hasLeadingJfif(pathIn)) {
+			return null;
+		}
+		try (ImageInputStream iis = ImageIO.createImageInputStream(pathIn.toFile())) {
+			return JpegPassthrough.inspect(iis, pathIn);
+		}
+	}
+
+	private static Inspection inspect(ImageInputStream iis, Object label) throws IOException, DigitalDerivansException {
+		try (var codec = ImageCodecs.reader(iis, false)) {
+			if (codec == null) {
+				return null;
+			}
+			ImageReader reader = codec.get();
+			if (!ImageCodecs.FORMAT_JPEG.equalsIgnoreCase(reader.getFormatName())) {
+				return null;
+			}
+			Element tree = (Element) reader.getImageMetadata(0).getAsTree(ImageMetadata.JAVAX_IMAGEIO_JPEG);
+			Element jfif = JpegPassthrough.first(tree, ImageMetadata.JFIF_ROOT_NODE);
+			Element sof = JpegPassthrough.first(tree, "sof");
+			int quality = JpegPassthrough.estimateQuality(tree);
+			if (jfif == null || sof == null || quality < 0) {
+				return null;
+			}
+			ImageMetadata target = new ImageMetadata();
+			target.enrichFrom(reader, label);
+			Element targetTree = (Element) target.getData().getAsTree(ImageMetadata.JAVAX_IMAGEIO_JPEG);
+			Element targetJfif = JpegPassthrough.first(targetTree, ImageMetadata.JFIF_ROOT_NODE);
+			return new Inspection(reader.getWidth(0), reader.getHeight(0), quality,
+					PROCESS_PROGRESSIVE.equals(sof.getAttribute("process")), target.requiresProgressiveMode(),
+					JpegPassthrough.density(jfif), JpegPassthrough.density(targetJfif));
+		}
+	}
+
+	/**
+	 *
+	 * Check if inspected input can be taken as result
+	 *
+	 * @param inspection
+	 * @return
+	 */
+	public boolean isSatisfying(Inspection inspection) {
+		if (inspection == null) {
+			return false;
+		}
+		int maximal = this.imageProcessor.getMaximal();
+		int requested = Math.round(this.imageProcessor.getQuality() * 100);
+		return inspection.width <= maximal && inspection.height <= maximal
+				&& inspection.quality <= requested
+				&& inspection.isProgressive == inspection.requiresProgressive;
+	}
+
+	/**
+	 *
+	 * Copy given input to target without decoding it, if it
+	 * already satisfies the targets of the step, and patch
+	 * it's JFIF density if required
+	 *
+	 * @param pathIn
+	 * @param pathOut
+	 * @return true if input was taken, false if it must be encoded
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public boolean transfer(Path pathIn, Path pathOut) throws IOException, DigitalDerivansException {
+		Inspection inspection = this.inspect(pathIn);
+		if (!this.isSatisfying(inspection)) {
+			return false;
+		}
+		try (FileChannel in = FileChannel.open(pathIn, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(pathOut, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = in.size();
+			long position = 0;
+			while (position < size) {
+				position += in.transferTo(position, size - position, out);
+			}
+			if (inspection.requiresPatch()) {
+				ByteBuffer header = ByteBuffer.allocate(JFIF_HEADER_LENGTH);
+				in.read(header, 0);
+				JpegPassthrough.patch(header.array(), inspection.targetDensity);
+				out.write(ByteBuffer.wrap(header.array()), 0);
+			}
+		}
+		LOGGER.trace("passed {} through to {} (quality: {})", pathIn, pathOut, inspection.quality);
+		return true;
+	}
+
+	/**
+	 *
+	 * Like {@link #transfer(Path, Path)}, but keep result in memory.
+	 * Input is read completely only if it's header qualifies.
+	 *
+	 * @param pathIn
+	 * @return complete input, patched if required, or null if it must be encoded
+	 * @throws IOException
+	 * @throws DigitalDerivansException
+	 */
+	public byte[] read(Path pathIn) throws IOException, DigitalDerivansException {
+		Inspection inspection = this.inspect(pathIn);
+		if (!this.isSatisfying(inspection)) {
+			return null;
+		}
+		byte[] data = Files.readAllBytes(pathIn);
+		if (inspection.requiresPatch()) {
+			JpegPassthrough.patch(data, inspection.targetDensity);
+		}
+		LOGGER.trace("passed {} through (quality: {})", pathIn, inspection.quality);
+		return data;
+	}
+
+	/**
+	 *
+	 * Estimate quality like libjpeg's scaling of the standard
+	 * luminance table, i.e. the same scale Java's JPEG writer
+	 * applies for a given compression quality
+	 *
+	 * @param tree native JPEG metadata
+	 * @return quality in percent or -1 if no luminance table present
+	 */
+	static int estimateQuality(Element tree) {
+		NodeList tables = tree.getElementsByTagName("dqtable");
+		for (int i = 0; i < tables.getLength(); i++) {
+			IIOMetadataNode table = (IIOMetadataNode) tables.item(i);
+			if ("0".equals(table.getAttribute("qtableId")) && table.getUserObject() instanceof JPEGQTable) {
+				return JpegPassthrough.estimateQuality(((JPEGQTable) table.getUserObject()).getTable());
+			}
+		}
+		return -1;
+	}
+
+	static int estimateQuality(int[] luminance) {
+		int[] standard = JPEGQTable.K1Luminance.getTable();
+		double sum = 0;
+		for (int i = 0; i < standard.length; i++) {
+			sum += 100.0 * luminance[i] / standard[i];
+		}
+		double scale = sum / standard.length;
+		if (scale <= 0) {
+			return 100;
+		}
+		double quality = scale <= 100 ? (200 - scale) / 2 : 5000 / scale;
+		return (int) Math.round(Math.max(1, Math.min(100, quality)));
+	}
+
+	private static boolean hasLeadingJfif(Path pathIn) throws IOException {
+		try (FileChannel in = FileChannel.open(pathIn, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(JFIF_HEADER_LENGTH);
+			while (header.hasRemaining() && in.read(header) > 0) {
+				// read until complete or end of file
+			}
+			return JpegPassthrough.hasLeadingJfif(header.array(), header.position());
+		}
+	}
+
+	static boolean hasLeadingJfif(byte[] data, int length) {
+		if (length < JFIF_HEADER_LENGTH) {
+			return false;
+		}
+		for (int i = 0; i < JFIF_START.length; i++) {
+			if (data[i] != JFIF_START[i]) {
+				return false;
+			}
+		}
+		for (int i = 0; i < JFIF_IDENTIFIER.length; i++) {
+			if (data[6 + i] != JFIF_IDENTIFIER[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static void patch(byte[] data, int[] density) {
+		data[OFFSET_RES_UNITS] = (byte) density[0];
+		data[OFFSET_X_DENSITY] = (byte) (density[1] >> 8);
+		data[OFFSET_X_DENSITY + 1] = (byte) density[1];
+		data[OFFSET_Y_DENSITY] = (byte) (density[2] >> 8);
+		data[OFFSET_Y_DENSITY + 1] = (byte) density[2];
+	}
+
+	private static int[] density(Element jfif) {
+		return new int[] { Integer.parseInt(jfif.getAttribute(ImageMetadata.METADATA_JPEG_RESUNITS)),
+				Integer.parseInt(jfif.getAttribute(ImageMetadata.METADATA_JPEG_XDENSITY)),
+				Integer.parseInt(jfif.getAttribute(ImageMetadata.METADATA_JPEG_YDENSITY)) };
+	}
+
+	private static Element first(Element tree, String name) {
+		Node node = tree.getElementsByTagName(name).item(0);
+		return node instanceof Element ? (Element) node : null;
+	}
+}
@@ -0,0 +1,82 @@
+package de.ulb.digital.derivans.generate.image;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+
+import de.ulb.digital.derivans.data.image.ImageMetadata;
+
+/**
+ *
+ * In-memory state of a single page image passed from one
+ * image derivate step to the next one, without the need
+ * to re-read and decode the previous result from disk.
+ *
+ * Holds the pixel data, the JPEG metadata to be used for
+ * subsequent encodings and, if already encoded, the
+ * resulting JPEG bytes together with their target path.
+ *
+ * @author hartwig
+ *
+ */
+public class PageImage {
+
+	private BufferedImage buffer;
+
+	private final ImageMetadata metadata;
+
+	private final byte[] encoded;
+
+	private final Path path;
+
+	public PageImage(BufferedImage buffer, ImageMetadata metadata) {
+		this(buffer, metadata, null, null);
+	}
+
+	public PageImage(BufferedImage buffer, ImageMetadata metadata, byte[] encoded, Path path) {
+		this.buffer = buffer;
+		this.metadata = metadata;
+		this.encoded = encoded;
+		this.path = path;
+	}
+
+	public BufferedImage getBuffer() {
+		return this.buffer;
+	}
+
+	public ImageMetadata getMetadata() {
+		return this.metadata;
+	}
+
+	/**
+	 *
+	 * Encoded JPEG data, if any
+	 *
+	 * @return bytes or null
+	 */
+	public byte[] getEncoded() {
+		return this.encoded;
+	}
+
+	/**
+	 *
+	 * Path the encoded data has been written to, if any
+	 *
+	 * @return path or null
+	 */
+	public Path getPath() {
+		return this.path;
+	}
+
+	/**
+	 *
+	 * Release pixel data as soon as no more steps
+	 * require it, encoded data is kept
+	 *
+	 */
+	public void flush() {
+		if (this.buffer != null) {
+			this.buffer.flush();
+			this.buffer = null;
+		}
+	}
+}
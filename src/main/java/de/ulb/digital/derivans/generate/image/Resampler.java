@@ -0,0 +1,352 @@
+package de.ulb.digital.derivans.generate.image;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+
+import de.ulb.digital.derivans.generate.WorkerPool;
+
+/**
+ *
+ * Resampling of image data to arbitrary dimensions
+ *
+ * Offers a choice between speed and quality:
+ *
+ * <ul>
+ * <li>{@link Mode#BICUBIC}: single bicubic pass by Java2D (default)</li>
+ * <li>{@link Mode#FAST}: box averaging of reductions by integer
+ * factors, afterwards bicubic pass for the remaining ratio</li>
+ * <li>{@link Mode#LANCZOS}: separable Lanczos filter with a radius
+ * of {@link #LANCZOS_RADIUS} lobes, computed with fixed point weights</li>
+ * </ul>
+ *
+ * Box and Lanczos filters operate on primitive byte rasters of a
+ * single page within it's task, since pages are already processed
+ * in parallel by the shared {@link WorkerPool}.
+ * Image data not stored as interleaved bytes is converted first.
+ *
+ * @author hartwig
+ *
+ */
+public final class Resampler {
+
+	public enum Mode {
+		BICUBIC, FAST, LANCZOS;
+
+		public static Mode forLabel(String label) {
+			return Mode.valueOf(label.trim().toUpperCase());
+		}
+	}
+
+	public static final int LANCZOS_RADIUS = 3;
+
+	private static final int PRECISION_BITS = 14;
+
+	private static final int HALF = 1 << (PRECISION_BITS - 1);
+
+	private Resampler() {
+	}
+
+	/**
+	 *
+	 * Scale image to given dimensions using given mode
+	 *
+	 * @param original
+	 * @param newW
+	 * @param newH
+	 * @param mode
+	 * @return scaled image
+	 */
+	public static BufferedImage scale(BufferedImage original, int newW, int newH, Mode mode) {
+		switch (mode) {
+		case FAST:
+			return Resampler.fast(original, newW, newH);
+		case LANCZOS:
+			return Resampler.lanczos(original, newW, newH);
+		default:
+			return Resampler.bicubic(original, newW, newH);
+		}
+	}
+
+	/**
+	 *
+	 * Please note:
+	 * Don't use Image.getScaledInstance!
+	 *
+	 * {@link https://stackoverflow.com/questions/20083554/bufferedimage-getscaledinstance-changes-brightness-of-picture}
+	 * {@link https://community.oracle.com/docs/DOC-983611}
+	 *
+	 * @param original
+	 * @param newW
+	 * @param newH
+	 * @return
+	 */
+	static BufferedImage bicubic(BufferedImage original, int newW, int newH) {
+		int bType = original.getType();
+		if (bType == 0) {
+			bType = original.getColorModel().getColorSpace().getType();
+		}
+		BufferedImage dimg = new BufferedImage(newW, newH, bType);
+		Graphics2D g2d = dimg.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		g2d.drawImage(original, 0, 0, newW, newH, null);
+		g2d.dispose();
+		return dimg;
+	}
+
+	/**
+	 *
+	 * Average boxes of source pixels by the largest integer factor
+	 * not falling below target dimensions, then bicubic pass for
+	 * the remaining ratio, unless dimensions already match
+	 *
+	 * @param original
+	 * @param newW
+	 * @param newH
+	 * @return
+	 */
+	static BufferedImage fast(BufferedImage original, int newW, int newH) {
+		int factor = Math.min(original.getWidth() / newW, original.getHeight() / newH);
+		if (factor < 2) {
+			return Resampler.bicubic(original, newW, newH);
+		}
+		BufferedImage reduced = Resampler.box(Resampler.toInterleaved(original), factor);
+		if (reduced.getWidth() == newW && reduced.getHeight() == newH) {
+			return reduced;
+		}
+		BufferedImage scaled = Resampler.bicubic(reduced, newW, newH);
+		reduced.flush();
+		return scaled;
+	}
+
+	/**
+	 *
+	 * Reduce by integer factor, each target pixel being the mean of
+	 * a square of source pixels, partial squares at the edges included
+	 *
+	 * @param source interleaved byte image
+	 * @param factor
+	 * @return
+	 */
+	static BufferedImage box(BufferedImage source, int factor) {
+		int srcW = source.getWidth();
+		int srcH = source.getHeight();
+		int dstW = (srcW + factor - 1) / factor;
+		int dstH = (srcH + factor - 1) / factor;
+		BufferedImage target = new BufferedImage(dstW, dstH, source.getType());
+		Raster src = new Raster(source);
+		Raster dst = new Raster(target);
+		int n = src.nBands;
+		int rowLength = srcW * n;
+		// target sample of each source sample within a row
+		int[] columns = new int[rowLength];
+		int[] counts = new int[dstW * n];
+		for (int i = 0; i < rowLength; i++) {
+			columns[i] = (i / n / factor) * n + (i % n);
+			counts[columns[i]]++;
+		}
+		byte[] in = src.data;
+		byte[] out = dst.data;
+		int[] columnSums = new int[rowLength];
+		int[] sums = new int[dstW * n];
+		for (int y = 0; y < dstH; y++) {
+			// sum up source rows first, then columns
+			Arrays.fill(columnSums, 0);
+			Arrays.fill(sums, 0);
+			int y0 = y * factor;
+			int y1 = Math.min(y0 + factor, srcH);
+			for (int sy = y0; sy < y1; sy++) {
+				int rowIn = sy * src.stride;
+				for (int i = 0; i < rowLength; i++) {
+					columnSums[i] += in[rowIn + i] & 0xFF;
+				}
+			}
+			for (int i = 0; i < rowLength; i++) {
+				sums[columns[i]] += columnSums[i];
+			}
+			int rowOut = y * dst.stride;
+			int rows = y1 - y0;
+			for (int i = 0; i < sums.length; i++) {
+				int count = rows * counts[i];
+				out[rowOut + i] = (byte) ((sums[i] + count / 2) / count);
+			}
+		}
+		return target;
+	}
+
+	/**
+	 *
+	 * Separable Lanczos filter, first horizontal into an
+	 * intermediate raster of source height, then vertical
+	 *
+	 * @param original
+	 * @param newW
+	 * @param newH
+	 * @return
+	 */
+	static BufferedImage lanczos(BufferedImage original, int newW, int newH) {
+		BufferedImage source = Resampler.toInterleaved(original);
+		int srcW = source.getWidth();
+		int srcH = source.getHeight();
+		Raster src = new Raster(source);
+		int n = src.nBands;
+		Weights horizontal = new Weights(srcW, newW);
+		Weights vertical = new Weights(srcH, newH);
+		int tmpStride = newW * n;
+		byte[] tmp = new byte[tmpStride * srcH];
+		for (int y = 0; y < srcH; y++) {
+			int rowIn = y * src.stride;
+			int rowOut = y * tmpStride;
+			for (int x = 0; x < newW; x++) {
+				int start = horizontal.start[x];
+				int size = horizontal.size[x];
+				int base = x * horizontal.maxSize;
+				for (int c = 0; c < n; c++) {
+					int acc = HALF;
+					int s = rowIn + start * n + c;
+					for (int j = 0; j < size; j++, s += n) {
+						acc += (src.data[s] & 0xFF) * horizontal.coeffs[base + j];
+					}
+					tmp[rowOut + x * n + c] = Resampler.clamp(acc);
+				}
+			}
+		}
+		BufferedImage target = new BufferedImage(newW, newH, source.getType());
+		Raster dst = new Raster(target);
+		int[] acc = new int[tmpStride];
+		for (int y = 0; y < newH; y++) {
+			Arrays.fill(acc, HALF);
+			int start = vertical.start[y];
+			int size = vertical.size[y];
+			int base = y * vertical.maxSize;
+			for (int j = 0; j < size; j++) {
+				int coeff = vertical.coeffs[base + j];
+				int rowIn = (start + j) * tmpStride;
+				for (int i = 0; i < tmpStride; i++) {
+					acc[i] += (tmp[rowIn + i] & 0xFF) * coeff;
+				}
+			}
+			int rowOut = y * dst.stride;
+			for (int i = 0; i < tmpStride; i++) {
+				dst.data[rowOut + i] = Resampler.clamp(acc[i]);
+			}
+		}
+		return target;
+	}
+
+	private static byte clamp(int acc) {
+		int value = acc >> PRECISION_BITS;
+		if (value < 0) {
+			return 0;
+		}
+		return (byte) Math.min(255, value);
+	}
+
+	static double lanczos(double x) {
+		if (x == 0.0) {
+			return 1.0;
+		}
+		if (x <= -LANCZOS_RADIUS || x >= LANCZOS_RADIUS) {
+			return 0.0;
+		}
+		double px = Math.PI * x;
+		return LANCZOS_RADIUS * Math.sin(px) * Math.sin(px / LANCZOS_RADIUS) / (px * px);
+	}
+
+	/**
+	 *
+	 * Ensure image data is stored as interleaved
+	 * bytes with gray, BGR or ABGR components
+	 *
+	 * @param image
+	 * @return image itself or converted copy
+	 */
+	static BufferedImage toInterleaved(BufferedImage image) {
+		int type = image.getType();
+		boolean isInterleaved = type == BufferedImage.TYPE_BYTE_GRAY || type == BufferedImage.TYPE_3BYTE_BGR
+				|| type == BufferedImage.TYPE_4BYTE_ABGR;
+		if (isInterleaved && image.getRaster().getParent() == null) {
+			return image;
+		}
+		int target = BufferedImage.TYPE_3BYTE_BGR;
+		if (image.getColorModel().hasAlpha()) {
+			target = BufferedImage.TYPE_4BYTE_ABGR;
+		} else if (image.getColorModel().getNumColorComponents() == 1) {
+			target = BufferedImage.TYPE_BYTE_GRAY;
+		}
+		BufferedImage converted = new BufferedImage(image.getWidth(), image.getHeight(), target);
+		Graphics2D g2d = converted.createGraphics();
+		g2d.drawImage(image, 0, 0, null);
+		g2d.dispose();
+		return converted;
+	}
+
+	/**
+	 *
+	 * Interleaved bytes of an image
+	 *
+	 */
+	private static class Raster {
+
+		private final byte[] data;
+
+		private final int nBands;
+
+		private final int stride;
+
+		Raster(BufferedImage image) {
+			var raster = image.getRaster();
+			var model = (ComponentSampleModel) raster.getSampleModel();
+			this.data = ((DataBufferByte) raster.getDataBuffer()).getData();
+			this.nBands = model.getPixelStride();
+			this.stride = model.getScanlineStride();
+		}
+	}
+
+	/**
+	 *
+	 * Normalized fixed point weights of source pixels
+	 * contributing to each target pixel along one axis
+	 *
+	 */
+	private static class Weights {
+
+		private final int[] start;
+
+		private final int[] size;
+
+		private final int[] coeffs;
+
+		private final int maxSize;
+
+		Weights(int srcSize, int dstSize) {
+			double scale = (double) srcSize / dstSize;
+			double filterScale = Math.max(scale, 1.0);
+			double support = LANCZOS_RADIUS * filterScale;
+			this.maxSize = (int) Math.ceil(support) * 2 + 2;
+			this.start = new int[dstSize];
+			this.size = new int[dstSize];
+			this.coeffs = new int[dstSize * this.maxSize];
+			double[] weights = new double[this.maxSize];
+			for (int i = 0; i < dstSize; i++) {
+				double center = (i + 0.5) * scale;
+				int min = Math.max(0, (int) Math.floor(center - support));
+				int max = Math.min(srcSize, (int) Math.ceil(center + support));
+				int n = Math.min(max - min, this.maxSize);
+				double sum = 0.0;
+				for (int j = 0; j < n; j++) {
+					weights[j] = Resampler.lanczos((min + j + 0.5 - center) / filterScale);
+					sum += weights[j];
+				}
+				for (int j = 0; j < n; j++) {
+					this.coeffs[i * this.maxSize + j] = (int) Math.round(weights[j] / sum * (1 << PRECISION_BITS));
+				}
+				this.start[i] = min;
+				this.size[i] = n;
+			}
+		}
+	}
+}
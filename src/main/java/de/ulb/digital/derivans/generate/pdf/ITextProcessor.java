@@ -2,23 +2,30 @@ package de.ulb.digital.derivans.generate.pdf;
 
 import java.awt.Dimension;
 import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.text.Normalizer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import com.itextpdf.io.font.PdfEncodings;
-import com.itextpdf.io.image.ImageDataFactory;
 import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.kernel.colors.DeviceCmyk;
 import com.itextpdf.kernel.font.PdfFont;
@@ -37,7 +44,6 @@ import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfVersion;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.WriterProperties;
-import com.itextpdf.kernel.pdf.action.PdfAction;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvas;
 import com.itextpdf.kernel.pdf.canvas.PdfCanvasConstants;
 import com.itextpdf.kernel.pdf.navigation.PdfExplicitDestination;
@@ -53,15 +59,18 @@ import com.itextpdf.pdfa.exceptions.PdfAConformanceException;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.config.TypeConfiguration;
-import de.ulb.digital.derivans.data.io.JarResource;
+import de.ulb.digital.derivans.data.ocr.OCRDataCache;
+import de.ulb.digital.derivans.generate.WorkerPool;
 import de.ulb.digital.derivans.model.DerivateStruct;
 import de.ulb.digital.derivans.model.DigitalPage;
 import de.ulb.digital.derivans.model.IDerivate;
 import de.ulb.digital.derivans.model.IPDFProcessor;
+import de.ulb.digital.derivans.model.IPageImageSource;
 import de.ulb.digital.derivans.model.pdf.PDFPage;
 import de.ulb.digital.derivans.model.pdf.PDFResult;
 import de.ulb.digital.derivans.model.pdf.PDFTextElement;
 import de.ulb.digital.derivans.model.step.DerivateStepPDF;
+import de.ulb.digital.derivans.model.text.PageText;
 
 /**
  * 
@@ -83,6 +92,8 @@ public class ITextProcessor implements IPDFProcessor {
 
 	private static final Logger LOGGER = LogManager.getLogger(ITextProcessor.class);
 
+	private static final Map<String, byte[]> RESOURCES = new ConcurrentHashMap<>();
+
 	// output resolution for screens
 	public static final float ITEXT_ASSUMES_DPI = 72.0f;
 
@@ -116,6 +127,12 @@ public class ITextProcessor implements IPDFProcessor {
 
 	private Map<String, PDFPage> renderedPages = new HashMap<>();
 
+	private int poolSize = 1;
+
+	private boolean lowMemory;
+
+	private IPageImageSource pageImageSource;
+
 	// colors in debug mode
 	private Color dbgColorLine = new DeviceCmyk(1.0f, 1.0f, 0.0f, 0.0f);
 	private Color dbgColorWord = new DeviceCmyk(0.0f, 1.0f, 1.0f, 0.0f);
@@ -131,6 +148,8 @@ public class ITextProcessor implements IPDFProcessor {
 		this.renderModus = pdfStep.getRenderModus();
 		this.debugRender = pdfStep.getDebugRender();
 		this.setDpi(pdfStep.getImageDpi());
+		this.poolSize = pdfStep.getPoolsize();
+		this.lowMemory = Boolean.TRUE.equals(pdfStep.isLowMemory());
 		this.derivate = derivate;
 		this.font = this.loadFont("ttf/DejaVuSans.ttf");
 		this.rtlStyle = this.rtlStyle.setFont(this.font);
@@ -145,6 +164,11 @@ public class ITextProcessor implements IPDFProcessor {
 		this.structure = structure;
 	}
 
+	@Override
+	public void setPageImageSource(IPageImageSource source) {
+		this.pageImageSource = source;
+	}
+
 	private void setDpi(int dpi) throws DigitalDerivansException {
 		if (dpi < 72 || dpi > 600) {
 			String msg = String.format("tried to set invalid dpi: '%s' (must be in range 72 - 600)", dpi);
@@ -199,7 +223,7 @@ public class ITextProcessor implements IPDFProcessor {
 						.determineLevel(conformance);
 				String iccLabelRGB = "eciRGB_v2";
 				String iccPathRGB = String.format("icc/%s.icc", iccLabelRGB);
-				InputStream is = this.getClass().getClassLoader().getResourceAsStream(iccPathRGB);
+				InputStream is = new ByteArrayInputStream(ITextProcessor.loadResource(iccPathRGB));
 				PdfOutputIntent outputIntentRGB = new PdfOutputIntent("Custom",
 						"",
 						"http://www.color.org",
@@ -231,6 +255,7 @@ public class ITextProcessor implements IPDFProcessor {
 			throw new DigitalDerivansException(exc);
 		}
 		LOGGER.info("create report object with {} pages", this.reportDoc.getPdfPages().size());
+		LOGGER.debug("ocr data cache {}", OCRDataCache.get());
 		return this.reportDoc;
 	}
 
@@ -287,7 +312,7 @@ public class ITextProcessor implements IPDFProcessor {
 				order = 1;
 			}
 			PdfPage firstStructPage = this.requestDestinationPage(order);
-			currentOutline.addAction(PdfAction.createGoTo(PdfExplicitDestination.createFit(firstStructPage)));
+			currentOutline.addDestination(PdfExplicitDestination.createFit(firstStructPage));
 		} else {
 			for (DerivateStruct subStruct : currStruct.getChildren()) {
 				String childLabel = subStruct.getLabel();
@@ -296,7 +321,7 @@ public class ITextProcessor implements IPDFProcessor {
 				// iText library will throw exception if requested page not in range 1 .. max
 				try {
 					PdfPage referencedPage = this.pdfDocument.getPage(childOrder);
-					childLine.addAction(PdfAction.createGoTo(PdfExplicitDestination.createFit(referencedPage)));
+					childLine.addDestination(PdfExplicitDestination.createFit(referencedPage));
 				} catch (IndexOutOfBoundsException ioe) {
 					var msg = String.format("while adding outline entry '%s' for order %d: %s",
 							childLabel, childOrder, ioe.getMessage());
@@ -333,6 +358,12 @@ public class ITextProcessor implements IPDFProcessor {
 	}
 
 	/**
+	 * 
+	 * Prepare and append pages in given order. If a poolsize
+	 * greater than 1 is configured, pages are prepared by
+	 * a bounded pool of workers while only appending them
+	 * remains on the calling thread.
+	 * 
 	 * @param pages
 	 * @return
 	 * @throws DigitalDerivansException
@@ -340,6 +371,10 @@ public class ITextProcessor implements IPDFProcessor {
 	public List<PDFPage> addPages(List<DigitalPage> pages) throws DigitalDerivansException {
 		List<PDFPage> resultPages = new ArrayList<>();
 		LOGGER.debug("render {}  pages at {}", pages.size(), this.renderLevel);
+		if (this.poolSize > 1 && pages.size() > 1) {
+			this.addPagesParallel(pages, resultPages);
+			return resultPages;
+		}
 		try {
 			for (int i = 0; i < pages.size(); i++) {
 				DigitalPage pageIn = pages.get(i);
@@ -349,21 +384,7 @@ public class ITextProcessor implements IPDFProcessor {
 					LOGGER.warn("skip already rendered page '{}'", pageId);
 					pdfPage = this.renderedPages.get(pageId);
 				} else {
-					int orderN = pageIn.getOrderNr();
-					String imagePath = this.getInputImagePath(pageIn).toString();
-					LOGGER.debug("render page {} image {}", i + 1, imagePath);
-					Image image = new Image(ImageDataFactory.create(imagePath));
-					float imageWidth = image.getImageWidth();
-					float imageHeight = image.getImageHeight();
-					if (Math.abs(1.0 - this.dpiScale) > 0.01) {
-						image.scaleAbsolute(imageWidth * this.dpiScale, imageHeight * this.dpiScale);
-						imageWidth = image.getImageScaledWidth();
-						imageHeight = image.getImageScaledHeight();
-						LOGGER.trace("rescale image: {}x{}", imageWidth, imageHeight);
-					}
-					pdfPage = new PDFPage(new Dimension((int) imageWidth, (int) imageHeight), orderN);
-					pdfPage.passOCRFrom(pageIn);
-					this.append(image, pdfPage);
+					pdfPage = this.append(this.prepare(pageIn, i, this.font, null));
 				}
 				resultPages.add(pdfPage);
 				this.renderedPages.put(pageId, pdfPage);
@@ -374,45 +395,204 @@ public class ITextProcessor implements IPDFProcessor {
 		return resultPages;
 	}
 
+	private void addPagesParallel(List<DigitalPage> pages, List<PDFPage> resultPages)
+			throws DigitalDerivansException {
+		WorkerPool pool = WorkerPool.get();
+		int nWorkers = Math.min(this.poolSize, pool.getThreads(WorkerPool.Lane.CPU));
+		LOGGER.info("prepare {} pages with {} workers", pages.size(), nWorkers);
+		// PdfFont caches unknown glyphs unsynchronized, therefore
+		// each task measures with a font of it's own, which is
+		// handed back afterwards for re-use
+		var fontProgram = this.font.getFontProgram();
+		Queue<PdfFont> measureFonts = new ConcurrentLinkedQueue<>();
+		Deque<Future<PreparedPage>> inProgress = new ArrayDeque<>();
+		int window = nWorkers * 2;
+		int next = 0;
+		try {
+			for (int i = 0; i < pages.size(); i++) {
+				while (next < pages.size() && next - i < window) {
+					DigitalPage pageNext = pages.get(next);
+					int n = next;
+					// streamed image data is awaited here, since producing
+					// it might require workers of the very same lane
+					byte[] streamed = this.streamedImageData(pageNext);
+					inProgress.add(pool.submit(WorkerPool.Lane.CPU, () -> {
+						PdfFont measureFont = measureFonts.poll();
+						if (measureFont == null) {
+							measureFont = PdfFontFactory.createFont(fontProgram, PdfEncodings.IDENTITY_H,
+									EmbeddingStrategy.FORCE_EMBEDDED);
+						}
+						try {
+							return this.prepare(pageNext, n, measureFont, streamed);
+						} finally {
+							measureFonts.offer(measureFont);
+						}
+					}));
+					next++;
+				}
+				PreparedPage prepared = inProgress.remove().get();
+				String pageId = pages.get(i).getPageId();
+				PDFPage pdfPage = null;
+				if (this.renderedPages.containsKey(pageId)) {
+					LOGGER.warn("skip already rendered page '{}'", pageId);
+					pdfPage = this.renderedPages.get(pageId);
+				} else {
+					pdfPage = this.append(prepared);
+				}
+				resultPages.add(pdfPage);
+				this.renderedPages.put(pageId, pdfPage);
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof DigitalDerivansException) {
+				throw (DigitalDerivansException) cause;
+			}
+			throw new DigitalDerivansException(cause.getMessage(), cause);
+		} catch (IOException e) {
+			throw new DigitalDerivansException(e);
+		} catch (InterruptedException e) {
+			LOGGER.error(e);
+			Thread.currentThread().interrupt();
+			throw new DigitalDerivansException(e);
+		} finally {
+			inProgress.forEach(f -> f.cancel(true));
+		}
+	}
+
+	private byte[] streamedImageData(DigitalPage page) throws DigitalDerivansException {
+		if (this.pageImageSource == null) {
+			return null;
+		}
+		return this.pageImageSource.imageFor(page, this.getInputImagePath(page));
+	}
+
+	/**
+	 * 
+	 * Prepare everything required to append a page
+	 * which doesn't depend on the document, i.e.
+	 * image data, scaled OCR geometry, harmonized
+	 * text and horizontal scaling of each token
+	 * 
+	 * @param pageIn
+	 * @param i           position in sequence of pages
+	 * @param measureFont font to harmonize and measure text
+	 * @param streamed    image data already at hand or null
+	 * @return
+	 * @throws DigitalDerivansException
+	 * @throws IOException
+	 */
+	private PreparedPage prepare(DigitalPage pageIn, int i, PdfFont measureFont, byte[] streamed)
+			throws DigitalDerivansException, IOException {
+		int orderN = pageIn.getOrderNr();
+		Path imagePath = this.getInputImagePath(pageIn);
+		LOGGER.debug("render page {} image {}", i + 1, imagePath);
+		PageImageEmbedding embedding = streamed != null ? PageImageEmbedding.of(streamed)
+				: this.loadImageData(pageIn, imagePath);
+		float imageWidth = embedding.getWidth();
+		float imageHeight = embedding.getHeight();
+		boolean isScaled = Math.abs(1.0 - this.dpiScale) > 0.01;
+		if (isScaled) {
+			imageWidth = imageWidth * this.dpiScale;
+			imageHeight = imageHeight * this.dpiScale;
+			LOGGER.trace("rescale image: {}x{}", imageWidth, imageHeight);
+		}
+		PDFPage pdfPage = new PDFPage(new Dimension((int) imageWidth, (int) imageHeight), orderN);
+		pdfPage.passOCRFrom(pageIn);
+		// text elements are taken, ocr data not required anymore
+		pageIn.releaseOcrData();
+		PreparedPage prepared = new PreparedPage(embedding, imageWidth, imageHeight, isScaled, pdfPage);
+		if (pdfPage.getText().isPresent()) {
+			PageText text = pdfPage.getText().get();
+			for (int line = 0; line < text.getNumberOfLines(); line++) {
+				if (this.renderLevel == TypeConfiguration.RENDER_LEVEL_LINE) {
+					prepared.add(text, line, measureFont);
+				} else if (this.renderLevel == TypeConfiguration.RENDER_LEVEL_WORD) {
+					for (int word = text.getFirstWord(line); word < text.getEndWord(line); word++) {
+						prepared.add(text, word, measureFont);
+					}
+				}
+			}
+		}
+		return prepared;
+	}
+
+	/**
+	 * 
+	 * Take image data from optional {@link IPageImageSource}
+	 * if it provides any, otherwise prepare to stream it from disk
+	 * 
+	 * @param page
+	 * @param imagePath
+	 * @return
+	 * @throws DigitalDerivansException
+	 * @throws IOException
+	 */
+	private PageImageEmbedding loadImageData(DigitalPage page, Path imagePath)
+			throws DigitalDerivansException, IOException {
+		if (this.pageImageSource != null) {
+			byte[] data = this.pageImageSource.imageFor(page, imagePath);
+			if (data != null) {
+				return PageImageEmbedding.of(data);
+			}
+		}
+		return PageImageEmbedding.of(imagePath);
+	}
+
 	/**
 	 * 
 	 * Append page and re-calculate actual dimension for
 	 * each page because different pages sizes due different
 	 * formats like inlay maps, illustrations, etc.
 	 * 
-	 * @param image
-	 * @param page
+	 * Page is flushed afterwards, including it's image data,
+	 * thus it doesn't reside in memory until document is closed.
+	 * In low memory mode it's text is released, too, so only
+	 * a summary of the page is kept for the result.
+	 * 
+	 * @param prepared
 	 * @return
-	 * @throws DigitalDerivansException
 	 * @throws IOException
 	 */
-	private PDFPage append(Image image, PDFPage page) {
-		PageSize pageSize = new PageSize(image.getImageScaledWidth(), image.getImageScaledHeight());
+	private PDFPage append(PreparedPage prepared) throws IOException {
+		PDFPage page = prepared.pdfPage;
+		PageSize pageSize = new PageSize(prepared.width, prepared.height);
 		PdfPage itextPage = this.pdfDocument.addNewPage(pageSize);
-		image.setFixedPosition(page.getNumber(), 0, 0);
-		this.document.add(image);
-		if (page.getTextcontent().isPresent()) {
-			PdfCanvas pdfCanvas = new PdfCanvas(itextPage);
-			if (!page.getTextcontent().isPresent()) {
-				return page;
+		try (PageImageEmbedding embedding = prepared.embedding) {
+			Image image = embedding.open(this.pdfDocument);
+			if (prepared.isScaled) {
+				image.scaleAbsolute(prepared.width, prepared.height);
 			}
-			List<PDFTextElement> txtContents = page.getTextcontent().get();
-			if (!txtContents.isEmpty() && (!this.debugRender)
+			image.setFixedPosition(page.getNumber(), 0, 0);
+			this.document.add(image);
+			this.appendText(page, prepared, itextPage);
+			// streamed image data is written while it's source is still open
+			itextPage.flush(true);
+		}
+		if (this.lowMemory) {
+			page.releaseText();
+		}
+		return page;
+	}
+
+	private void appendText(PDFPage page, PreparedPage prepared, PdfPage itextPage) {
+		if (page.getText().isPresent()) {
+			PdfCanvas pdfCanvas = new PdfCanvas(itextPage);
+			PageText text = page.getText().get();
+			if (text.getNumberOfLines() > 0 && (!this.debugRender)
 					&& this.renderModus == TypeConfiguration.RENDER_MODUS_HIDE) {
 				pdfCanvas.setTextRenderingMode(PdfCanvasConstants.TextRenderingMode.INVISIBLE);
 			}
-			for (var line : txtContents) {
+			for (int line = 0; line < text.getNumberOfLines(); line++) {
 				if (this.renderLevel == TypeConfiguration.RENDER_LEVEL_LINE) {
-					render(pdfCanvas, line);
+					render(pdfCanvas, page, line, prepared.textFor(line));
 					if (this.debugRender) {
-						this.drawBoundingBox(line.getBox(), this.dbgColorLine, DBG_LINEWIDTH_ROW);
+						this.drawBoundingBox(ITextProcessor.boxOf(text, line), this.dbgColorLine, DBG_LINEWIDTH_ROW);
 					}
 				} else if (this.renderLevel == TypeConfiguration.RENDER_LEVEL_WORD) {
-					var tokens = line.getChildren();
-					for (var word : tokens) {
-						render(pdfCanvas, word);
+					for (int word = text.getFirstWord(line); word < text.getEndWord(line); word++) {
+						render(pdfCanvas, page, word, prepared.textFor(word));
 						if (this.debugRender) {
-							this.drawBoundingBox(word.getBox(), this.dbgColorWord, DBG_LINEWIDTH_WORD);
+							this.drawBoundingBox(ITextProcessor.boxOf(text, word), this.dbgColorWord, DBG_LINEWIDTH_WORD);
 						}
 					}
 				}
@@ -421,7 +601,6 @@ public class ITextProcessor implements IPDFProcessor {
 		} else {
 			LOGGER.info("no ocr data present for '{}'", page.getImagePath());
 		}
-		return page;
 	}
 
 	/**
@@ -429,32 +608,34 @@ public class ITextProcessor implements IPDFProcessor {
 	 * Render single textual token(s) if valid fontSize can be calculated.
 	 * Depending on render level "token" means line or word.
 	 * 
-	 * @param font
-	 * @param pageHeight
-	 * @param cb
-	 * @param line
-	 * @throws DigitalDerivansException
+	 * @param pdfCanvas
+	 * @param page
+	 * @param token   index of line or word of page text
+	 * @param prepared
 	 */
-	private PDFTextElement render(PdfCanvas pdfCanvas, PDFTextElement token) {
-		float fontSize = token.getFontSize();
+	private void render(PdfCanvas pdfCanvas, PDFPage page, int token, PreparedText prepared) {
+		PageText pageText = page.getText().get();
+		float fontSize = PDFTextElement.fontSize(pageText.getHeight(token));
 		if (fontSize < IPDFProcessor.MIN_CHAR_SIZE) {
-			String missedText = token.forPrint();
+			String missedText = pageText.forPrint(token);
 			LOGGER.warn("font too small: '{}'(min:{}) resist to render text '{}'", fontSize,
 					IPDFProcessor.MIN_CHAR_SIZE, missedText);
-			return null;
+			return;
 		}
-		String text = harmonizeText(token);
+		if (prepared == null) {
+			prepared = new PreparedText(pageText, token, this.font);
+		}
+		String text = prepared.text;
 		if (text == null) {
-			return token;
+			return;
 		}
-		Rectangle2D box = token.getBox();
-		float leftMargin = (float) box.getMinX();
-		float baselineY = token.getBaseline().getY1();
-		float hScale = calculateHorizontalScaling(token);
+		float leftMargin = pageText.getX(token);
+		float baselineY = PDFTextElement.baselineY(pageText.getY(token), pageText.getHeight(token));
+		float hScale = prepared.horizontalScaling;
 		if (this.debugRender) {
 			LOGGER.trace("put '{}' at baseline {}x{} size:{}, scale:{})",
 					text, leftMargin, baselineY, fontSize, hScale);
-			var rightMargin = (float) (leftMargin + box.getWidth());
+			var rightMargin = (float) (leftMargin + (double) pageText.getWidth(token));
 			pdfCanvas.setStrokeColor(dbgColorBase).setLineWidth(DBG_LINEWIDTH_BASE)
 					.moveTo(leftMargin, baselineY)
 					.lineTo(rightMargin, baselineY).closePathStroke();
@@ -464,19 +645,23 @@ public class ITextProcessor implements IPDFProcessor {
 			this.document.setFont(this.font);
 			TextAlignment align = TextAlignment.LEFT;
 			Paragraph p = new Paragraph(txt);
-			if (token.isRTL()) { // for rtl text token ...
-				leftMargin = (float) box.getMaxX(); // ... start render from right
+			if (pageText.isRTL(token)) { // for rtl text token ...
+				leftMargin = (float) (pageText.getX(token) + (double) pageText.getWidth(token)); // ... start render from right
 				align = TextAlignment.RIGHT; // align text from right margin
 				p.setBaseDirection(BaseDirection.RIGHT_TO_LEFT);
 				p.setTextAlignment(align);
 				txt.addStyle(rtlStyle);
 			}
 			this.document.showTextAligned(p, leftMargin, baselineY, align);
-			token.setPrinted(true);
+			page.setPrinted(token);
 		} catch (PdfAConformanceException pdfAexc) {
 			LOGGER.warn("While rendering {} : {}", text, pdfAexc.getMessage());
 		}
-		return token;
+	}
+
+	private static Rectangle2D boxOf(PageText text, int token) {
+		return new Rectangle2D.Float(text.getX(token), text.getY(token), text.getWidth(token),
+				text.getHeight(token));
 	}
 
 	/**
@@ -491,11 +676,14 @@ public class ITextProcessor implements IPDFProcessor {
 	 * @return harmonized String or null
 	 */
 	public String harmonizeText(PDFTextElement token) {
-		String originalText = token.forPrint();
-		if (!token.isRTL() && !Normalizer.isNormalized(originalText, Normalizer.Form.NFKD)) {
+		return ITextProcessor.harmonize(token.forPrint(), token.isRTL(), this.font);
+	}
+
+	private static String harmonize(String originalText, boolean isRTL, PdfFont font) {
+		if (!isRTL && !Normalizer.isNormalized(originalText, Normalizer.Form.NFKD)) {
 			originalText = Normalizer.normalize(originalText, Normalizer.Form.NFKD);
 		}
-		String fontLabel = this.font.getFontProgram().getFontNames().toString();
+		String fontLabel = font.getFontProgram().getFontNames().toString();
 		StringBuilder harmonized = new StringBuilder();
 		for (int i = 0; i < originalText.length(); i++) {
 			char c = originalText.charAt(i);
@@ -545,11 +733,17 @@ public class ITextProcessor implements IPDFProcessor {
 	 * @throws IOException
 	 */
 	float calculateHorizontalScaling(PDFTextElement token) {
-		String text = token.getText();
-		float glyphWidth = this.font.getWidth(text) * .001f * token.getFontSize();
+		return calculateHorizontalScaling(token, this.font);
+	}
+
+	static float calculateHorizontalScaling(PDFTextElement token, PdfFont font) {
+		return calculateHorizontalScaling(token.getText(), token.getFontSize(), token.getBaseline().length(), font);
+	}
+
+	static float calculateHorizontalScaling(String text, float fontSize, float baselineLength, PdfFont font) {
+		float glyphWidth = font.getWidth(text) * .001f * fontSize;
 		float totalGlyphWidth = glyphWidth;
-		float tokenLenght = token.getBaseline().length();
-		return tokenLenght / totalGlyphWidth;
+		return baselineLength / totalGlyphWidth;
 	}
 
 	private void drawBoundingBox(Rectangle2D rectangle, Color c, float lineWidth) {
@@ -578,17 +772,121 @@ public class ITextProcessor implements IPDFProcessor {
 		canvas.closePathStroke();
 	}
 
+	/**
+	 * 
+	 * Create font for current document from resource data,
+	 * which is read only once per JVM. Font programs are not
+	 * shared between documents, since they might be written
+	 * concurrently.
+	 * 
+	 * @param path
+	 * @return
+	 * @throws DigitalDerivansException
+	 */
 	public PdfFont loadFont(String path) throws DigitalDerivansException {
 		try {
-			JarResource tmpResHandler = new JarResource(path);
-			String resPath = tmpResHandler.extract("derivans-tmp-font-", ".ttf");
-			this.font = PdfFontFactory.createFont(resPath, PdfEncodings.IDENTITY_H, EmbeddingStrategy.FORCE_EMBEDDED);
+			byte[] fontData = ITextProcessor.loadResource(path);
+			this.font = PdfFontFactory.createFont(fontData, PdfEncodings.IDENTITY_H,
+					EmbeddingStrategy.FORCE_EMBEDDED, false);
 		} catch (IOException e) {
 			throw new DigitalDerivansException(e);
 		}
 		return this.font;
 	}
 
+	/**
+	 * 
+	 * Read resource like font or ICC profile from classpath
+	 * only once and keep it's data for subsequent documents
+	 * 
+	 * @param path
+	 * @return resource data
+	 * @throws DigitalDerivansException
+	 */
+	static byte[] loadResource(String path) throws DigitalDerivansException {
+		byte[] data = RESOURCES.get(path);
+		if (data == null) {
+			try (InputStream is = ITextProcessor.class.getClassLoader().getResourceAsStream(path)) {
+				if (is == null) {
+					throw new DigitalDerivansException("Missing resource " + path + "!");
+				}
+				data = is.readAllBytes();
+				RESOURCES.put(path, data);
+			} catch (IOException e) {
+				throw new DigitalDerivansException(e);
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * 
+	 * Page prepared for appending
+	 * 
+	 */
+	private class PreparedPage {
+
+		private final PageImageEmbedding embedding;
+
+		private final float width;
+
+		private final float height;
+
+		private final boolean isScaled;
+
+		private final PDFPage pdfPage;
+
+		private final PreparedText[] texts;
+
+		PreparedPage(PageImageEmbedding embedding, float width, float height, boolean isScaled, PDFPage pdfPage) {
+			this.embedding = embedding;
+			this.width = width;
+			this.height = height;
+			this.isScaled = isScaled;
+			this.pdfPage = pdfPage;
+			this.texts = pdfPage.getText()
+					.map(t -> new PreparedText[t.getNumberOfLines() + t.getNumberOfWords()])
+					.orElse(new PreparedText[0]);
+		}
+
+		void add(PageText text, int token, PdfFont measureFont) {
+			if (PDFTextElement.fontSize(text.getHeight(token)) >= IPDFProcessor.MIN_CHAR_SIZE) {
+				this.texts[token] = new PreparedText(text, token, measureFont);
+			}
+		}
+
+		PreparedText textFor(int token) {
+			return this.texts[token];
+		}
+	}
+
+	/**
+	 * 
+	 * Harmonized text of a token and it's horizontal scaling,
+	 * text is null if token can't be rendered at all
+	 * 
+	 */
+	private static class PreparedText {
+
+		private final String text;
+
+		private final float horizontalScaling;
+
+		PreparedText(PageText pageText, int token, PdfFont measureFont) {
+			this.text = harmonize(pageText.forPrint(token), pageText.isRTL(token), measureFont);
+			if (this.text != null) {
+				float x1 = pageText.getX(token);
+				float x2 = (float) (x1 + (double) pageText.getWidth(token));
+				float baselineLength = (float) Math.abs((double) x2 - x1);
+				float fontSize = PDFTextElement.fontSize(pageText.getHeight(token));
+				this.horizontalScaling = calculateHorizontalScaling(pageText.getText(token), fontSize,
+						baselineLength, measureFont);
+			} else {
+				this.horizontalScaling = 0f;
+			}
+		}
+	}
+
 	private static void checkReadability(File fileDescriptor) throws DigitalDerivansException {
 		try (PdfDocument pdfOut = new PdfDocument(new PdfReader(fileDescriptor))) {
 			int nPages = pdfOut.getNumberOfPages();
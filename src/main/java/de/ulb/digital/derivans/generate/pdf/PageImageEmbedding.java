@@ -0,0 +1,151 @@
+package de.ulb.digital.derivans.generate.pdf;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.itextpdf.io.image.ImageData;
+import com.itextpdf.io.image.ImageDataFactory;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfNumber;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.xobject.PdfImageXObject;
+import com.itextpdf.layout.element.Image;
+
+import de.ulb.digital.derivans.data.image.JpegHeader;
+
+/**
+ *
+ * Image data of a single page to be embedded into PDF.
+ *
+ * JPEG data is embedded as it is with DCTDecode filter,
+ * therefore only it's header is read in advance. The
+ * actual data is streamed from it's file channel into
+ * the image XObject not before the page is flushed, so
+ * it never resides completely in memory.
+ *
+ * Other image data, i.e. JPEG with ICC profile, is
+ * loaded completely by iText, like before.
+ *
+ * @author hartwig
+ *
+ */
+class PageImageEmbedding implements AutoCloseable {
+
+	/**
+	 * Bytes read ahead when streaming data into PDF
+	 */
+	static final int STREAM_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Bytes read ahead when reading the header only, which
+	 * in most cases precedes the first scan by far less
+	 */
+	static final int HEADER_BUFFER_SIZE = 1 << 13;
+
+	private final Path path;
+
+	private final byte[] data;
+
+	private final JpegHeader header;
+
+	private final ImageData imageData;
+
+	private InputStream input;
+
+	private PageImageEmbedding(Path path, byte[] data, JpegHeader header, ImageData imageData) {
+		this.path = path;
+		this.data = data;
+		this.header = header;
+		this.imageData = imageData;
+	}
+
+	/**
+	 *
+	 * Prepare embedding of image file
+	 *
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 */
+	static PageImageEmbedding of(Path path) throws IOException {
+		JpegHeader header;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+				InputStream in = new BufferedInputStream(Channels.newInputStream(channel), HEADER_BUFFER_SIZE)) {
+			header = JpegHeader.read(in);
+		}
+		if (header != null && header.isEmbeddable()) {
+			return new PageImageEmbedding(path, null, header, null);
+		}
+		return new PageImageEmbedding(path, null, null, ImageDataFactory.create(path.toString()));
+	}
+
+	/**
+	 *
+	 * Prepare embedding of encoded image data
+	 *
+	 * @param data
+	 * @return
+	 * @throws IOException
+	 */
+	static PageImageEmbedding of(byte[] data) throws IOException {
+		JpegHeader header = JpegHeader.read(new ByteArrayInputStream(data));
+		if (header != null && header.isEmbeddable()) {
+			return new PageImageEmbedding(null, data, header, null);
+		}
+		return new PageImageEmbedding(null, data, null, ImageDataFactory.create(data));
+	}
+
+	float getWidth() {
+		return this.header != null ? this.header.getWidth() : this.imageData.getWidth();
+	}
+
+	float getHeight() {
+		return this.header != null ? this.header.getHeight() : this.imageData.getHeight();
+	}
+
+	/**
+	 *
+	 * Create image element for given document. Streamed
+	 * data is read when it's XObject gets flushed, which
+	 * must happen before this embedding is closed.
+	 *
+	 * @param pdfDocument
+	 * @return
+	 * @throws IOException
+	 */
+	Image open(PdfDocument pdfDocument) throws IOException {
+		if (this.header == null) {
+			return new Image(this.imageData);
+		}
+		if (this.path != null) {
+			FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ);
+			this.input = new BufferedInputStream(Channels.newInputStream(channel), STREAM_BUFFER_SIZE);
+		} else {
+			this.input = new ByteArrayInputStream(this.data);
+		}
+		PdfStream stream = new PdfStream(pdfDocument, this.input);
+		stream.put(PdfName.Type, PdfName.XObject);
+		stream.put(PdfName.Subtype, PdfName.Image);
+		stream.put(PdfName.Width, new PdfNumber(this.header.getWidth()));
+		stream.put(PdfName.Height, new PdfNumber(this.header.getHeight()));
+		stream.put(PdfName.BitsPerComponent, new PdfNumber(8));
+		stream.put(PdfName.ColorSpace, this.header.getComponents() == 1 ? PdfName.DeviceGray : PdfName.DeviceRGB);
+		stream.put(PdfName.Filter, PdfName.DCTDecode);
+		return new Image(new PdfImageXObject(stream));
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.input != null) {
+			this.input.close();
+			this.input = null;
+		}
+	}
+}
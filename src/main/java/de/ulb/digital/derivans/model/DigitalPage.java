@@ -5,7 +5,7 @@ import java.nio.file.Path;
 import java.util.Optional;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
-import de.ulb.digital.derivans.data.ocr.OCRReaderFactory;
+import de.ulb.digital.derivans.data.ocr.OCRDataCache;
 import de.ulb.digital.derivans.model.ocr.OCRData;
 
 /**
@@ -15,7 +15,7 @@ import de.ulb.digital.derivans.model.ocr.OCRData;
  * <li>orderNr: order of page in a larger, compound work</li>
  * <li>image file: {@link File} path to image of this page</li>
  * <li>opt. ocr file: {@link File} path to physical OCR Data</li>
- * <li>opt. ocr data: {@link OCRData} that has been read from ocr file</li>
+ * <li>opt. ocr data: {@link OCRData} set directly or read on demand from ocr file</li>
  * <li>opt. identifier: unique, granular identifier</li>
  * </ul>
  * 
@@ -42,10 +42,18 @@ public class DigitalPage {
 	private Optional<File> ocrFile = Optional.empty();
 
 	/**
-	 * Container for optional OCRData used for PDF text layer
+	 * Container for optional OCRData used for PDF text layer, if
+	 * it has been set directly. Data read from ocr file is kept
+	 * by {@link OCRDataCache} only until it's consumed.
 	 */
 	private Optional<OCRData> ocrData = Optional.empty();
 
+	/**
+	 * Notified whenever ocr data is released, i.e. to
+	 * read further pages ahead
+	 */
+	private volatile Runnable ocrReleased;
+
 	private Optional<String> contentIds = Optional.empty();
 	
 	/**
@@ -62,11 +70,69 @@ public class DigitalPage {
 		this.file = dFile;
 	}
 
-	public void setOcrFile(Path ocrPath) throws DigitalDerivansException {
+	/**
+	 * 
+	 * Set path to ocr file, which is only read
+	 * when it's data is requested or loaded
+	 * 
+	 * @param ocrPath
+	 */
+	public void setOcrFile(Path ocrPath) {
 		this.ocrFile = Optional.of(new File(DigitalType.OCR, ocrPath));
-		if(Files.exists(ocrPath)) { // due testing reasons
-			this.ocrData = Optional.of(OCRReaderFactory.from(ocrPath).get(ocrPath));
+		this.ocrData = Optional.empty();
+	}
+
+	/**
+	 * 
+	 * Read ocr file into {@link OCRDataCache} if not done before.
+	 * Called concurrently by ahead loading and consumers of ocr
+	 * data, thus each file is read only once until it's released.
+	 * 
+	 * @return
+	 * @throws DigitalDerivansException
+	 */
+	public Optional<OCRData> loadOcrData() throws DigitalDerivansException {
+		if (this.ocrData.isPresent() || !this.ocrFile.isPresent()) {
+			return this.ocrData;
+		}
+		Path ocrPath = this.ocrFile.get().getPath();
+		if (!Files.exists(ocrPath)) { // due testing reasons
+			return Optional.empty();
 		}
+		return Optional.of(OCRDataCache.get().get(ocrPath));
+	}
+
+	public boolean isOcrLoaded() {
+		if (this.ocrData.isPresent()) {
+			return true;
+		}
+		return this.ocrFile.isPresent() && OCRDataCache.get().contains(this.ocrFile.get().getPath());
+	}
+
+	/**
+	 * 
+	 * Drop data read from ocr file once it's consumed,
+	 * data set directly is kept, since it can't be read again
+	 * 
+	 */
+	public void releaseOcrData() {
+		if (!this.ocrData.isPresent() && this.ocrFile.isPresent()) {
+			OCRDataCache.get().evict(this.ocrFile.get().getPath());
+		}
+		Runnable listener = this.ocrReleased;
+		if (listener != null) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * 
+	 * Set listener called each time ocr data is released
+	 * 
+	 * @param listener might be null to remove previous one
+	 */
+	public void setOcrReleased(Runnable listener) {
+		this.ocrReleased = listener;
 	}
 
 	public Optional<Path> getOcrFile() {
@@ -99,8 +165,8 @@ public class DigitalPage {
 		return this.contentIds;
 	}
 
-	public Optional<OCRData> getOcrData() {
-		return ocrData;
+	public Optional<OCRData> getOcrData() throws DigitalDerivansException {
+		return this.loadOcrData();
 	}
 
 	public void setOcrData(OCRData ocrData) {
@@ -43,6 +43,16 @@ public interface IPDFProcessor {
 
 	void setStructure(DerivateStruct struct);
 
+	/**
+	 * 
+	 * Optional source of already encoded page images,
+	 * defaults to read all images from disk
+	 * 
+	 * @param source
+	 */
+	default void setPageImageSource(IPageImageSource source) {
+	}
+
 	/**
 	 * 
 	 * Write PDF file to given file descriptor
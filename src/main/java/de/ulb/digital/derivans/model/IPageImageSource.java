@@ -0,0 +1,29 @@
+package de.ulb.digital.derivans.model;
+
+import java.nio.file.Path;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+
+/**
+ * 
+ * Provide already encoded image data for a {@link DigitalPage}
+ * to be consumed by a {@link IPDFProcessor}, thus avoiding
+ * to read it again from disk.
+ * 
+ * @author hartwig
+ */
+@FunctionalInterface
+public interface IPageImageSource {
+
+	/**
+	 * 
+	 * Request encoded image data for given page and image path.
+	 * Blocks until the data is available.
+	 * 
+	 * @param page
+	 * @param imagePath Path the image data is expected at
+	 * @return encoded image data or null, if it must be read from disk
+	 * @throws DigitalDerivansException
+	 */
+	byte[] imageFor(DigitalPage page, Path imagePath) throws DigitalDerivansException;
+}
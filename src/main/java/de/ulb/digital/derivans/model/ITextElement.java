@@ -42,25 +42,33 @@ public interface ITextElement {
      */
     default boolean isRTL() {
         if (!this.getText().isEmpty()) {
-            var code = this.getText().codePointAt(0);
-            // arabic basic
-            if (code >= 0x600 && code <= 0x6ff) {
-                return true;
-            }
-            // arabic extension
-            if (code >= 0x750 && code <= 0x77f) {
-                return true;
-            }
-            // arabic extension A
-            if (code >= 0x8a0 && code <= 0x8ff) {
-                return true;
-            }
-            // hebrew
-            if (code >= 0x590 && code <= 0x5ff) {
-                return true;
-            }
+            return ITextElement.isRTL(this.getText().codePointAt(0));
         }
         return false;
     }
 
+    /**
+     * 
+     * Whether given code point belongs to a right-to-left script
+     * 
+     * @param code
+     * @return boolean
+     */
+    static boolean isRTL(int code) {
+        // arabic basic
+        if (code >= 0x600 && code <= 0x6ff) {
+            return true;
+        }
+        // arabic extension
+        if (code >= 0x750 && code <= 0x77f) {
+            return true;
+        }
+        // arabic extension A
+        if (code >= 0x8a0 && code <= 0x8ff) {
+            return true;
+        }
+        // hebrew
+        return code >= 0x590 && code <= 0x5ff;
+    }
+
 }
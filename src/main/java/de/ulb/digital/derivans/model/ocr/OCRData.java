@@ -1,9 +1,11 @@
 package de.ulb.digital.derivans.model.ocr;
 
 import java.awt.Dimension;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
 import java.util.List;
 
-import de.ulb.digital.derivans.model.IVisualElement;
+import de.ulb.digital.derivans.model.text.PageText;
 import de.ulb.digital.derivans.model.text.Textline;
 import de.ulb.digital.derivans.model.text.Word;
 
@@ -13,6 +15,9 @@ import de.ulb.digital.derivans.model.text.Word;
  * lines}
  * which are itself composed each of a list of {@link Word textual tokens}.
  * 
+ * Data is kept as compact {@link PageText}, whereas lines and words
+ * are only created if requested.
+ * 
  * @author u.hartwig
  *
  */
@@ -20,15 +25,50 @@ public class OCRData {
 
 	private Dimension dimension;
 
-	private List<Textline> textlines;
+	private PageText text;
 
 	public OCRData(List<Textline> lines, Dimension dim) {
-		this.textlines = lines;
+		PageText.Builder builder = new PageText.Builder();
+		for (Textline line : lines) {
+			for (Word word : line.getWords()) {
+				Rectangle2D box = word.getBox();
+				builder.addWord(word.getText(), (float) box.getX(), (float) box.getY(),
+						(float) box.getWidth(), (float) box.getHeight());
+			}
+			builder.endLine();
+		}
+		this.text = builder.build();
 		this.dimension = dim;
 	}
 
+	public OCRData(PageText text, Dimension dim) {
+		this.text = text;
+		this.dimension = dim;
+	}
+
+	public PageText getText() {
+		return this.text;
+	}
+
+	/**
+	 * 
+	 * Create lines and words from compact text, thus
+	 * changes to them don't affect this data
+	 * 
+	 * @return
+	 */
 	public List<Textline> getTextlines() {
-		return this.textlines;
+		List<Textline> lines = new ArrayList<>(this.text.getNumberOfLines());
+		for (int line = 0; line < this.text.getNumberOfLines(); line++) {
+			List<Word> words = new ArrayList<>();
+			for (int w = this.text.getFirstWord(line); w < this.text.getEndWord(line); w++) {
+				var box = new Rectangle2D.Float(this.text.getX(w), this.text.getY(w),
+						this.text.getWidth(w), this.text.getHeight(w));
+				words.add(new Word(this.text.getText(w), box));
+			}
+			lines.add(new Textline(words));
+		}
+		return lines;
 	}
 
 	/**
@@ -48,12 +88,7 @@ public class OCRData {
 	}
 
 	public void scale(float ratio) {
-		for (Textline line : textlines) {
-			for (IVisualElement txt : line.getWords()) {
-				txt.scale(ratio);
-			}
-			line.calculateArea();
-		}
+		this.text.scale(ratio);
 		int widht = Math.round(dimension.width * ratio);
 		int height = Math.round(dimension.height * ratio);
 		this.dimension = new Dimension(widht, height);
@@ -3,12 +3,15 @@ package de.ulb.digital.derivans.model.pdf;
 import java.awt.Dimension;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 
+import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.model.DigitalPage;
 import de.ulb.digital.derivans.model.IVisualElement;
 import de.ulb.digital.derivans.model.ocr.OCRData;
+import de.ulb.digital.derivans.model.text.PageText;
 
 /**
  * 
@@ -27,6 +30,10 @@ import de.ulb.digital.derivans.model.ocr.OCRData;
  * differ _only_ in height the difference
  * is taken as additional bottom footer.
  * 
+ * Text is kept as {@link PageText compact text} in
+ * printing coordinates, whereas {@link PDFTextElement text
+ * elements} are only created if requested.
+ * 
  * 
  * @author hartwig
  *
@@ -39,10 +46,14 @@ public class PDFPage implements IVisualElement {
 
 	private DigitalPage digitalPage;
 
-	private Optional<List<PDFTextElement>> txtElements = Optional.empty();
+	private Optional<PageText> text = Optional.empty();
+
+	private BitSet printed = new BitSet();
 
 	private Dimension imageDimension = new Dimension();
 
+	private int nReleasedLines = -1; // unset marked "-1"
+
 	/**
 	 * Default empty constructor
 	 */
@@ -61,7 +72,40 @@ public class PDFPage implements IVisualElement {
 	}
 
 	public boolean containsText() {
-		return this.txtElements.isPresent() && !this.txtElements.get().isEmpty();
+		if (this.isTextReleased()) {
+			return this.nReleasedLines > 0;
+		}
+		return this.getNumberOfLines() > 0;
+	}
+
+	/**
+	 * 
+	 * Drop text elements once page has been written
+	 * and keep only the number of it's lines
+	 * 
+	 */
+	public void releaseText() {
+		this.nReleasedLines = this.text.map(PageText::getNumberOfLines).orElse(0);
+		this.text = Optional.empty();
+		this.printed = new BitSet();
+	}
+
+	public boolean isTextReleased() {
+		return this.nReleasedLines > -1;
+	}
+
+	/**
+	 * 
+	 * Number of text lines, also available
+	 * if text has already been released
+	 * 
+	 * @return
+	 */
+	public int getNumberOfLines() {
+		if (this.isTextReleased()) {
+			return this.nReleasedLines;
+		}
+		return this.text.map(PageText::getNumberOfLines).orElse(0);
 	}
 
 	/**
@@ -75,13 +119,15 @@ public class PDFPage implements IVisualElement {
 	 * - pre-calculation of fontsize
 	 * 
 	 * @param ocrData
+	 * @throws DigitalDerivansException if ocr data can't be read
 	 */
-	public void passOCRFrom(DigitalPage digitalPage) {
+	public void passOCRFrom(DigitalPage digitalPage) throws DigitalDerivansException {
 		this.digitalPage = digitalPage;
-		if (!digitalPage.getOcrData().isPresent()) {
+		Optional<OCRData> optOcrData = digitalPage.getOcrData();
+		if (!optOcrData.isPresent()) {
 			return;
 		}
-		OCRData ocrData = digitalPage.getOcrData().get();
+		OCRData ocrData = optOcrData.get();
 		int ocrPageHeight = ocrData.getPageHeight();
 		int footerHeight = 0;
 		Optional<Integer> optFooterHeight = this.digitalPage.getFooterHeight();
@@ -89,30 +135,40 @@ public class PDFPage implements IVisualElement {
 			footerHeight = optFooterHeight.get();
 			ocrPageHeight += footerHeight;
 		}
+		// transform copy, since ocr data might be shared
+		PageText pageText = ocrData.getText().copy();
 		// need to scale
 		// page height corresponds to original image height
 		float currentImageHeight = (float) this.imageDimension.getHeight();
 		float ratio = currentImageHeight / ocrPageHeight;
 		if (Math.abs(1.0 - ratio) > 0.01) {
-			ocrData.scale(ratio);
-			ocrPageHeight = ocrData.getPageHeight(); // respect new height
+			pageText.scale(ratio);
+			ocrPageHeight = Math.round(ocrData.getPageHeight() * ratio); // respect new height
 			this.scale = ratio;
 		}
-		var txtElems = new ArrayList<PDFTextElement>();
-		for (var line : ocrData.getTextlines()) {
-			var theText = line.getText();
-			Rectangle2D rect = line.getBox();
-			PDFTextElement lineElement = new PDFTextElement(theText, rect);
-			lineElement.invert(ocrPageHeight);
-			for (var token : line.getWords()) {
-				PDFTextElement wordToken = new PDFTextElement(token.getText(), token.getBox());
-				wordToken.invert(ocrPageHeight);
-				lineElement.add(wordToken);
-				wordToken.setParent(lineElement);
-			}
-			txtElems.add(lineElement);
-		}
-		this.txtElements = Optional.of(txtElems);
+		pageText.invert(ocrPageHeight);
+		pageText.alignWords();
+		this.text = Optional.of(pageText);
+		this.printed = new BitSet();
+	}
+
+	/**
+	 * 
+	 * Compact text in printing coordinates, with words
+	 * aligned to their lines
+	 * 
+	 * @return
+	 */
+	public Optional<PageText> getText() {
+		return this.text;
+	}
+
+	public boolean isPrinted(int element) {
+		return this.printed.get(element);
+	}
+
+	public void setPrinted(int element) {
+		this.printed.set(element);
 	}
 
 	public int getNumber() {
@@ -131,15 +187,37 @@ public class PDFPage implements IVisualElement {
 		return new Dimension(this.imageDimension);
 	}
 
-	public void add(PDFTextElement element) {
-		if (!this.txtElements.isPresent()) {
-			this.txtElements = Optional.of(new ArrayList<>());
+	/**
+	 * 
+	 * Create text elements from compact text, thus
+	 * changes to them don't affect this page
+	 * 
+	 * @return
+	 */
+	public Optional<List<PDFTextElement>> getTextcontent() {
+		if (!this.text.isPresent()) {
+			return Optional.empty();
+		}
+		PageText pageText = this.text.get();
+		List<PDFTextElement> lines = new ArrayList<>(pageText.getNumberOfLines());
+		for (int line = 0; line < pageText.getNumberOfLines(); line++) {
+			PDFTextElement lineElement = PDFPage.toElement(pageText, line);
+			lineElement.setPrinted(this.printed.get(line));
+			for (int word = pageText.getFirstWord(line); word < pageText.getEndWord(line); word++) {
+				PDFTextElement wordElement = PDFPage.toElement(pageText, word);
+				wordElement.setPrinted(this.printed.get(word));
+				lineElement.add(wordElement);
+				wordElement.setParent(lineElement);
+			}
+			lines.add(lineElement);
 		}
-		this.txtElements.get().add(element);
+		return Optional.of(lines);
 	}
 
-	public Optional<List<PDFTextElement>> getTextcontent() {
-		return this.txtElements;
+	private static PDFTextElement toElement(PageText pageText, int element) {
+		var box = new Rectangle2D.Float(pageText.getX(element), pageText.getY(element),
+				pageText.getWidth(element), pageText.getHeight(element));
+		return new PDFTextElement(pageText.getText(element), box);
 	}
 
 	public float getScale() {
@@ -60,10 +60,6 @@ public class PDFTextElement implements ITextElement, IVisualElement {
 		this.box = box;
 	}
 
-	private float descent() {
-		return (float) this.box.getHeight() * DESCENT_RATIO;
-	}
-
 	/**
 	 * 
 	 * Regular Fontsize must fit into box height minus descent
@@ -71,7 +67,23 @@ public class PDFTextElement implements ITextElement, IVisualElement {
 	 * @return
 	 */
 	public float getFontSize() {
-		return (float) this.box.getHeight() - descent();
+		return PDFTextElement.fontSize((float) this.box.getHeight());
+	}
+
+	public static float fontSize(float height) {
+		return height - height * DESCENT_RATIO;
+	}
+
+	/**
+	 * 
+	 * Y of straight baseline within box with respect to descent
+	 * 
+	 * @param minY
+	 * @param height
+	 * @return
+	 */
+	public static float baselineY(float minY, float height) {
+		return minY + height * DESCENT_RATIO;
 	}
 
 	/**
@@ -82,7 +94,7 @@ public class PDFTextElement implements ITextElement, IVisualElement {
 	 */
 	public PDFTextElement.Baseline getBaseline() {
 		if (this.baseline == null) {
-			var baselineY = (float) this.box.getMinY() + descent();
+			var baselineY = PDFTextElement.baselineY((float) this.box.getMinY(), (float) this.box.getHeight());
 			var toTheLeft = (float) (this.box.getX() + this.box.getWidth());
 			this.baseline = new PDFTextElement.Baseline((float) this.box.getX(), baselineY, toTheLeft, baselineY);
 		}
@@ -36,6 +36,30 @@ public abstract class DerivateStep {
 		this.outputDir = outputDir;
 	}
 
+	/**
+	 * 
+	 * Copy basic information from another step
+	 * 
+	 * @param another
+	 */
+	DerivateStep(DerivateStep another) {
+		this.inputDir = another.inputDir;
+		this.inputType = another.inputType;
+		this.inputPrefix = another.inputPrefix;
+		this.outputDir = another.outputDir;
+		this.outputType = another.outputType;
+		this.outputPrefix = another.outputPrefix;
+	}
+
+	/**
+	 * 
+	 * Create independent copy of this step, since
+	 * steps get enriched with work specific data
+	 * 
+	 * @return copy
+	 */
+	public abstract DerivateStep copy();
+
 	public DigitalType getInputType() {
 		return inputType;
 	}
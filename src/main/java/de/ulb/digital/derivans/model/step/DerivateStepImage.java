@@ -15,6 +15,8 @@ public class DerivateStepImage extends DerivateStep {
 	protected Integer quality = DefaultConfiguration.DEFAULT_QUALITY;
 	protected Integer maximal = DefaultConfiguration.DEFAULT_MAXIMAL;
 	protected Integer poolsize = DefaultConfiguration.DEFAULT_POOLSIZE;
+	protected String resampling = DefaultConfiguration.DEFAULT_RESAMPLING;
+	protected Boolean passthrough = DefaultConfiguration.DEFAULT_PASSTHROUGH;
 	protected int imageDpi;
 
 	public DerivateStepImage(String inputDir, String outputDir) {
@@ -24,13 +26,18 @@ public class DerivateStepImage extends DerivateStep {
 	}
 
 	public DerivateStepImage(DerivateStepImage anotherImg) {
-		super(anotherImg.inputDir, anotherImg.outputDir);
-		this.inputType = anotherImg.inputType;
-		this.outputType = anotherImg.outputType;
+		super(anotherImg);
 		this.imageDpi = anotherImg.imageDpi;
 		this.quality = anotherImg.quality;
 		this.maximal = anotherImg.maximal;
 		this.poolsize = anotherImg.poolsize;
+		this.resampling = anotherImg.resampling;
+		this.passthrough = anotherImg.passthrough;
+	}
+
+	@Override
+	public DerivateStepImage copy() {
+		return new DerivateStepImage(this);
 	}
 
 	public Integer getQuality() {
@@ -53,6 +60,22 @@ public class DerivateStepImage extends DerivateStep {
 		this.maximal = maximal;
 	}
 
+	public String getResampling() {
+		return resampling;
+	}
+
+	public void setResampling(String resampling) {
+		this.resampling = resampling;
+	}
+
+	public Boolean getPassthrough() {
+		return passthrough;
+	}
+
+	public void setPassthrough(Boolean passthrough) {
+		this.passthrough = passthrough;
+	}
+
 	public Integer getPoolsize() {
 		return poolsize;
 	}
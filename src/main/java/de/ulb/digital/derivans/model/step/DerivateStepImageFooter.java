@@ -34,6 +34,23 @@ public class DerivateStepImageFooter extends DerivateStepImage {
 		this.setOutputType(DigitalType.JPG_FOOTER);
 	}
 
+	/**
+	 * 
+	 * Copy all information from another footer step
+	 * 
+	 * @param anotherFooter
+	 */
+	public DerivateStepImageFooter(DerivateStepImageFooter anotherFooter) {
+		super(anotherFooter);
+		this.pathTemplate = anotherFooter.pathTemplate;
+		this.footerLabel = anotherFooter.footerLabel;
+	}
+
+	@Override
+	public DerivateStepImageFooter copy() {
+		return new DerivateStepImageFooter(this);
+	}
+
 	public Path getPathTemplate() {
 		return pathTemplate;
 	}
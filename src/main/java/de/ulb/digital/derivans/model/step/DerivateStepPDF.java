@@ -20,6 +20,9 @@ public class DerivateStepPDF extends DerivateStep {
 
 	protected boolean enrichMetadata = true;
 	private int imageDpi = DefaultConfiguration.DEFAULT_IMAGE_DPI;
+	private int poolsize = DefaultConfiguration.DEFAULT_POOLSIZE_PDF;
+	private Boolean lowMemory = DefaultConfiguration.DEFAULT_LOW_MEMORY_PDF;
+	private int ocrPoolsize = DefaultConfiguration.DEFAULT_OCR_POOLSIZE_PDF;
 	private Boolean debugRender = Boolean.FALSE;
 	private TypeConfiguration renderLevel = DefaultConfiguration.DEFAULT_RENDER_LEVEL;
 	private TypeConfiguration renderModus = DefaultConfiguration.DEFAULT_RENDER_VISIBILTY;
@@ -40,6 +43,33 @@ public class DerivateStepPDF extends DerivateStep {
 		this.setOutputType(DigitalType.PDF);
 	}
 
+	public DerivateStepPDF(DerivateStepPDF another) {
+		super(another);
+		this.enrichMetadata = another.enrichMetadata;
+		this.imageDpi = another.imageDpi;
+		this.poolsize = another.poolsize;
+		this.lowMemory = another.lowMemory;
+		this.ocrPoolsize = another.ocrPoolsize;
+		this.debugRender = another.debugRender;
+		this.renderLevel = another.renderLevel;
+		this.renderModus = another.renderModus;
+		this.author = another.author;
+		this.title = another.title;
+		this.publicationYear = another.publicationYear;
+		this.optCreator = another.optCreator;
+		this.optLicense = another.optLicense;
+		this.optKeywords = another.optKeywords;
+		this.optNamePDF = another.optNamePDF;
+		this.optIdentifierXPath = another.optIdentifierXPath;
+		this.optConformance = another.optConformance;
+		this.pdfFilePath = another.pdfFilePath;
+	}
+
+	@Override
+	public DerivateStepPDF copy() {
+		return new DerivateStepPDF(this);
+	}
+
 	public boolean isEnrichMetadata() {
 		return enrichMetadata;
 	}
@@ -56,6 +86,55 @@ public class DerivateStepPDF extends DerivateStep {
 		this.imageDpi = imageDpi;
 	}
 
+	/**
+	 * 
+	 * Number of workers preparing pages in parallel,
+	 * 1 means to process all pages sequentially
+	 * 
+	 * @return
+	 */
+	public int getPoolsize() {
+		return this.poolsize;
+	}
+
+	public void setPoolsize(int poolsize) {
+		if (poolsize > 0) {
+			this.poolsize = poolsize;
+		}
+	}
+
+	/**
+	 * 
+	 * Release text of each page as soon as it's written,
+	 * thus result only contains a summary of each page
+	 * 
+	 * @return
+	 */
+	public Boolean isLowMemory() {
+		return this.lowMemory;
+	}
+
+	public void setLowMemory(Boolean lowMemory) {
+		this.lowMemory = lowMemory;
+	}
+
+	/**
+	 * 
+	 * Number of OCR files read ahead in parallel,
+	 * 0 means to use all workers of the CPU lane
+	 * 
+	 * @return
+	 */
+	public int getOcrPoolsize() {
+		return this.ocrPoolsize;
+	}
+
+	public void setOcrPoolsize(int ocrPoolsize) {
+		if (ocrPoolsize > 0) {
+			this.ocrPoolsize = ocrPoolsize;
+		}
+	}
+
 	public Boolean getDebugRender() {
 		return debugRender;
 	}
@@ -0,0 +1,378 @@
+package de.ulb.digital.derivans.model.text;
+
+import java.util.Arrays;
+
+import de.ulb.digital.derivans.model.ITextElement;
+import de.ulb.digital.derivans.model.pdf.PDFTextElement;
+
+/**
+ *
+ * Compact columnar text of a single page
+ *
+ * Instead of {@link Textline lines} and {@link Word words} as
+ * objects, each with it's own box, string and lists, a page's
+ * text is kept in a few primitive arrays:
+ *
+ * <ul>
+ * <li>boxes of all elements as x, y, width and height</li>
+ * <li>chars of all words in a single buffer, with offsets
+ * of each word</li>
+ * <li>range of words for each line</li>
+ * </ul>
+ *
+ * Elements are addressed by index, with lines coming first
+ * and words following, thus a word's index is always larger than
+ * the number of lines. Text of a line is it's words' text.
+ *
+ * Scaling, inversion and alignment are applied in place.
+ *
+ * @author hartwig
+ *
+ */
+public class PageText {
+
+	private static final int BOX = 4;
+
+	private final int nLines;
+
+	private final int nWords;
+
+	private final float[] boxes;
+
+	private final int[] lineWords;
+
+	private final char[] chars;
+
+	private final int[] wordChars;
+
+	private PageText(int nLines, int nWords, float[] boxes, int[] lineWords, char[] chars, int[] wordChars) {
+		this.nLines = nLines;
+		this.nWords = nWords;
+		this.boxes = boxes;
+		this.lineWords = lineWords;
+		this.chars = chars;
+		this.wordChars = wordChars;
+	}
+
+	/**
+	 *
+	 * Independent copy, which might be transformed
+	 * without affecting this text
+	 *
+	 * @return
+	 */
+	public PageText copy() {
+		return new PageText(this.nLines, this.nWords, this.boxes.clone(),
+				this.lineWords, this.chars, this.wordChars);
+	}
+
+	public int getNumberOfLines() {
+		return this.nLines;
+	}
+
+	public int getNumberOfWords() {
+		return this.nWords;
+	}
+
+	/**
+	 *
+	 * Index of first word of given line
+	 *
+	 * @param line
+	 * @return
+	 */
+	public int getFirstWord(int line) {
+		return this.nLines + this.lineWords[line];
+	}
+
+	/**
+	 *
+	 * Index after last word of given line
+	 *
+	 * @param line
+	 * @return
+	 */
+	public int getEndWord(int line) {
+		return this.nLines + this.lineWords[line + 1];
+	}
+
+	public boolean isLine(int element) {
+		return element < this.nLines;
+	}
+
+	public float getX(int element) {
+		return this.boxes[element * BOX];
+	}
+
+	public float getY(int element) {
+		return this.boxes[element * BOX + 1];
+	}
+
+	public float getWidth(int element) {
+		return this.boxes[element * BOX + 2];
+	}
+
+	public float getHeight(int element) {
+		return this.boxes[element * BOX + 3];
+	}
+
+	/**
+	 *
+	 * Text of word or words of line joined by blank
+	 *
+	 * @param element
+	 * @return
+	 */
+	public String getText(int element) {
+		if (!this.isLine(element)) {
+			int word = element - this.nLines;
+			int start = this.wordChars[word];
+			return new String(this.chars, start, this.wordChars[word + 1] - start);
+		}
+		int first = this.lineWords[element];
+		int end = this.lineWords[element + 1];
+		if (first == end) {
+			return "";
+		}
+		int start = this.wordChars[first];
+		int length = this.wordChars[end] - start + (end - first - 1);
+		StringBuilder builder = new StringBuilder(length);
+		for (int word = first; word < end; word++) {
+			if (word > first) {
+				builder.append(' ');
+			}
+			builder.append(this.chars, this.wordChars[word], this.wordChars[word + 1] - this.wordChars[word]);
+		}
+		return builder.toString();
+	}
+
+	/**
+	 *
+	 * Orientation by very first char, like {@link ITextElement#isRTL()}
+	 *
+	 * @param element
+	 * @return
+	 */
+	public boolean isRTL(int element) {
+		int word = element - this.nLines;
+		if (this.isLine(element)) {
+			if (this.lineWords[element] == this.lineWords[element + 1]) {
+				return false;
+			}
+			word = this.lineWords[element];
+		}
+		int start = this.wordChars[word];
+		int end = this.wordChars[word + 1];
+		if (start == end) {
+			return false;
+		}
+		return ITextElement.isRTL(Character.codePointAt(this.chars, start, end));
+	}
+
+	/**
+	 *
+	 * Text used for printing, like {@link PDFTextElement#forPrint()}
+	 *
+	 * @param element
+	 * @return
+	 */
+	public String forPrint(int element) {
+		if (!this.isLine(element)) {
+			String text = this.getText(element);
+			return this.isRTL(element) ? new StringBuilder(text).reverse().toString() : text;
+		}
+		var builder = new StringBuilder();
+		for (int word = this.getFirstWord(element); word < this.getEndWord(element); word++) {
+			builder.append(this.forPrint(word));
+			if (this.isRTL(word)) {
+				builder.append(PDFTextElement.ZERO_WIDTH);
+			}
+			builder.append(' ');
+		}
+		return builder.toString().trim();
+	}
+
+	/**
+	 *
+	 * Scale word boxes by ratio from upper left like
+	 * {@link Word#scale(float)} and re-calculate line bounds
+	 *
+	 * @param ratio
+	 */
+	public void scale(float ratio) {
+		int from = this.nLines * BOX;
+		int to = (this.nLines + this.nWords) * BOX;
+		for (int i = from; i < to; i++) {
+			this.boxes[i] = Math.round(this.boxes[i] * (double) ratio);
+		}
+		for (int line = 0; line < this.nLines; line++) {
+			this.calculateBounds(line);
+		}
+	}
+
+	/**
+	 *
+	 * Invert Y-axis of all elements with respect to page height,
+	 * like {@link PDFTextElement#invert(float)}
+	 *
+	 * @param pageHeight
+	 */
+	public void invert(float pageHeight) {
+		int to = (this.nLines + this.nWords) * BOX;
+		for (int i = 0; i < to; i += BOX) {
+			this.boxes[i + 1] = (float) (pageHeight - (double) this.boxes[i + 1] - this.boxes[i + 3]);
+		}
+	}
+
+	/**
+	 *
+	 * Align vertical extent of words to their line,
+	 * like {@link PDFTextElement#setParent(PDFTextElement)}
+	 *
+	 */
+	public void alignWords() {
+		for (int line = 0; line < this.nLines; line++) {
+			float top = this.getY(line);
+			float bottom = (float) ((double) top + this.getHeight(line));
+			for (int word = this.getFirstWord(line); word < this.getEndWord(line); word++) {
+				this.boxes[word * BOX + 1] = top;
+				this.boxes[word * BOX + 3] = bottom - top;
+			}
+		}
+	}
+
+	/**
+	 *
+	 * Union of non-empty word boxes, like {@link Textline#calculateArea()}
+	 *
+	 */
+	private void calculateBounds(int line) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int word = this.getFirstWord(line); word < this.getEndWord(line); word++) {
+			int i = word * BOX;
+			float w = this.boxes[i + 2];
+			float h = this.boxes[i + 3];
+			if (w <= 0 || h <= 0) {
+				continue;
+			}
+			minX = Math.min(minX, this.boxes[i]);
+			minY = Math.min(minY, this.boxes[i + 1]);
+			maxX = Math.max(maxX, (double) this.boxes[i] + w);
+			maxY = Math.max(maxY, (double) this.boxes[i + 1] + h);
+		}
+		int i = line * BOX;
+		if (minX > maxX) {
+			Arrays.fill(this.boxes, i, i + BOX, 0f);
+		} else {
+			this.boxes[i] = (float) minX;
+			this.boxes[i + 1] = (float) minY;
+			this.boxes[i + 2] = (float) (maxX - minX);
+			this.boxes[i + 3] = (float) (maxY - minY);
+		}
+	}
+
+	/**
+	 *
+	 * Approximate heap usage of arrays
+	 *
+	 * @return bytes
+	 */
+	public long getSize() {
+		return this.boxes.length * 4L + this.lineWords.length * 4L
+				+ this.chars.length * 2L + this.wordChars.length * 4L;
+	}
+
+	/**
+	 *
+	 * Collect words line by line, whereas bounds of each
+	 * line are calculated from it's words
+	 *
+	 */
+	public static class Builder {
+
+		private int nLines;
+
+		private int nWords;
+
+		private float[] wordBoxes = new float[64 * BOX];
+
+		private int[] lineWords = new int[17];
+
+		private char[] chars = new char[512];
+
+		private int[] wordChars = new int[65];
+
+		public Builder addWord(String text, float x, float y, float width, float height) {
+			String content = text != null ? text : "";
+			if ((this.nWords + 1) * BOX > this.wordBoxes.length) {
+				this.wordBoxes = Arrays.copyOf(this.wordBoxes, this.wordBoxes.length * 2);
+			}
+			int i = this.nWords * BOX;
+			this.wordBoxes[i] = x;
+			this.wordBoxes[i + 1] = y;
+			this.wordBoxes[i + 2] = width;
+			this.wordBoxes[i + 3] = height;
+			int start = this.wordChars[this.nWords];
+			int end = start + content.length();
+			if (end > this.chars.length) {
+				this.chars = Arrays.copyOf(this.chars, Math.max(end, this.chars.length * 2));
+			}
+			content.getChars(0, content.length(), this.chars, start);
+			if (this.nWords + 2 > this.wordChars.length) {
+				this.wordChars = Arrays.copyOf(this.wordChars, this.wordChars.length * 2);
+			}
+			this.nWords++;
+			this.wordChars[this.nWords] = end;
+			return this;
+		}
+
+		/**
+		 *
+		 * Number of words added since last line was completed
+		 *
+		 * @return
+		 */
+		public int getPendingWords() {
+			return this.nWords - this.lineWords[this.nLines];
+		}
+
+		/**
+		 *
+		 * Complete line with all pending words, even if there are none
+		 *
+		 * @return
+		 */
+		public Builder endLine() {
+			if (this.nLines + 2 > this.lineWords.length) {
+				this.lineWords = Arrays.copyOf(this.lineWords, this.lineWords.length * 2);
+			}
+			this.nLines++;
+			this.lineWords[this.nLines] = this.nWords;
+			return this;
+		}
+
+		/**
+		 *
+		 * Create text of all completed lines, words still
+		 * pending aren't taken
+		 *
+		 * @return
+		 */
+		public PageText build() {
+			int nTaken = this.lineWords[this.nLines];
+			float[] boxes = new float[(this.nLines + nTaken) * BOX];
+			System.arraycopy(this.wordBoxes, 0, boxes, this.nLines * BOX, nTaken * BOX);
+			PageText text = new PageText(this.nLines, nTaken, boxes,
+					Arrays.copyOf(this.lineWords, this.nLines + 1),
+					Arrays.copyOf(this.chars, this.wordChars[nTaken]),
+					Arrays.copyOf(this.wordChars, nTaken + 1));
+			for (int line = 0; line < this.nLines; line++) {
+				text.calculateBounds(line);
+			}
+			return text;
+		}
+	}
+}
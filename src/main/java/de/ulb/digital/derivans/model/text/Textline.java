@@ -4,8 +4,7 @@ import java.awt.geom.Area;
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.StringJoiner;
 
 import de.ulb.digital.derivans.model.IVisualElement;
 
@@ -13,6 +12,10 @@ import de.ulb.digital.derivans.model.IVisualElement;
  * 
  * Represents a single line of textual tokens that form a visual unit.
  * 
+ * Bounds of a line are the union of it's word boxes, which is
+ * calculated directly from their coordinates, whereas the line's
+ * {@link Area} is only created if it's actually requested.
+ * 
  * @author u.hartwig
  *
  */
@@ -24,6 +27,10 @@ public class Textline implements IVisualElement {
 	
 	private Area area;
 
+	private Rectangle2D bounds = new Rectangle2D.Double();
+
+	private int nBounded;
+
 	private Rectangle2D rect;
 
 	public Textline() {
@@ -35,23 +42,64 @@ public class Textline implements IVisualElement {
 		}
 		this.textTokens.addAll(texts);
 		this.calculateArea();
-		this.actualText = String.join(" ",
-				texts.stream().map(Word::getText).filter(Objects::nonNull).collect(Collectors.toList()));
+		StringJoiner joiner = new StringJoiner(" ");
+		for (Word w : texts) {
+			if (w.getText() != null) {
+				joiner.add(w.getText());
+			}
+		}
+		this.actualText = joiner.toString();
 	}
 
+	/**
+	 * 
+	 * Calculate bounds of current words. Like an {@link Area}
+	 * empty word boxes don't contribute to the bounds.
+	 * 
+	 */
 	public void calculateArea() {
-		List<Rectangle2D> wordBoxes = textTokens.stream().map(IVisualElement::getBox).collect(Collectors.toList());
-		this.area = new Area();
-		for (Rectangle2D r : wordBoxes) {
-			this.area.add(new Area(r));
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (Word w : this.textTokens) {
+			Rectangle2D r = w.getBox();
+			if (r.isEmpty()) {
+				continue;
+			}
+			minX = Math.min(minX, r.getMinX());
+			minY = Math.min(minY, r.getMinY());
+			maxX = Math.max(maxX, r.getMaxX());
+			maxY = Math.max(maxY, r.getMaxY());
+		}
+		if (minX > maxX) {
+			this.bounds = new Rectangle2D.Double();
+		} else {
+			this.bounds = new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
 		}
+		this.nBounded = this.textTokens.size();
+		this.area = null;
 	}
 
 	public String getText() {
 		return this.actualText;
 	}
 
+	/**
+	 * 
+	 * Union of word boxes at time of last {@link #calculateArea()}
+	 * 
+	 * @return
+	 */
 	public Area getArea() {
+		if (this.area == null) {
+			this.area = new Area();
+			if (!this.bounds.isEmpty()) {
+				for (Word w : this.textTokens.subList(0, this.nBounded)) {
+					this.area.add(new Area(w.getBox()));
+				}
+			}
+		}
 		return this.area;
 	}
 
@@ -60,7 +108,7 @@ public class Textline implements IVisualElement {
 		if (this.rect != null) {
 			return this.rect;
 		}
-		return this.area.getBounds2D();
+		return this.bounds;
 	}
 
 	@Override
@@ -71,7 +119,7 @@ public class Textline implements IVisualElement {
 	@Override
 	public String toString() {
 		StringBuilder builder = new StringBuilder();
-		var shape = this.area.getBounds();
+		var shape = this.bounds.getBounds();
 		double w = shape.getWidth();
 		double h = shape.getHeight();
 		builder.append('[').append(w).append('x').append(h).append(']').append(this.actualText);
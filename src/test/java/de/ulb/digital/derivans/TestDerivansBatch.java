@@ -0,0 +1,81 @@
+package de.ulb.digital.derivans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.config.DerivansConfiguration;
+import de.ulb.digital.derivans.config.DerivansParameter;
+
+/**
+ *
+ * Test batch processing of several works
+ * sharing a single configuration
+ *
+ * @author hartwig
+ *
+ */
+class TestDerivansBatch {
+
+	@Test
+	void testBatchFromListFile(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path batchDir = tempDir.resolve("batch");
+		for (String work : List.of("work_01", "work_02")) {
+			Files.createDirectories(batchDir.resolve(work));
+			TestHelper.generateImages(batchDir.resolve(work).resolve("DEFAULT"), 400, 600, 2, "%04d.jpg");
+		}
+		Path listFile = batchDir.resolve("works.txt");
+		Files.write(listFile, List.of("# works to process", "work_01", "", "work_02", "work_missing"));
+		Path summary = tempDir.resolve("summary.tsv");
+		DerivansParameter dp = new DerivansParameter();
+		dp.setPathInput(listFile);
+		dp.setThreads(2);
+		DerivansConfiguration dc = new DerivansConfiguration(dp);
+		DerivansBatch batch = new DerivansBatch(dc);
+		batch.setWorks(2);
+		batch.setPathSummary(summary);
+		List<Path> inputs = DerivansBatch.collectInputs(listFile);
+
+		// act
+		List<DerivansBatch.WorkResult> results = batch.run(inputs);
+
+		// assert
+		assertEquals(3, results.size());
+		assertTrue(results.get(0).isSuccess());
+		assertTrue(results.get(1).isSuccess());
+		assertFalse(results.get(2).isSuccess());
+		assertTrue(Files.exists(batchDir.resolve("work_01").resolve("work_01.pdf")));
+		assertTrue(Files.exists(batchDir.resolve("work_02").resolve("work_02.pdf")));
+		List<String> lines = Files.readAllLines(summary);
+		assertEquals(4, lines.size());
+		assertTrue(lines.get(3).contains("FAILED"));
+	}
+
+	@Test
+	void testCollectInputsGlobAndDirectory(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		for (String work : List.of("b", "a", "c")) {
+			Files.createDirectories(tempDir.resolve(work));
+			Files.writeString(tempDir.resolve(work).resolve("mets.xml"), "<mets/>");
+		}
+
+		// act
+		List<Path> fromGlob = DerivansBatch.collectInputs(tempDir.resolve("*").resolve("mets.xml"));
+		List<Path> fromDir = DerivansBatch.collectInputs(tempDir);
+
+		// assert
+		assertEquals(3, fromGlob.size());
+		assertEquals(tempDir.resolve("a").resolve("mets.xml"), fromGlob.get(0));
+		assertEquals(List.of(tempDir.resolve("a"), tempDir.resolve("b"), tempDir.resolve("c")), fromDir);
+	}
+}
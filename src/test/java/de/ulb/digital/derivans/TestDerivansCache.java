@@ -0,0 +1,78 @@
+package de.ulb.digital.derivans;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.generate.Generator;
+import de.ulb.digital.derivans.generate.GeneratorImage;
+import de.ulb.digital.derivans.model.DigitalPage;
+
+/**
+ *
+ * Test re-ingest of works with unchanged images
+ * taking their results from derivative cache
+ *
+ * @author hartwig
+ *
+ */
+class TestDerivansCache {
+
+	@Test
+	void testReingestTakesResultsFromCache(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path configPath = TestHelper.fixtureFooterChainConfig(tempDir, "cache_dir = derivans_cache", "cache_size = 64");
+		Path firstDir = tempDir.resolve("first");
+		Files.createDirectories(firstDir);
+		TestHelper.generateImages(firstDir.resolve("MAX"), 600, 800, 3, "%08d.jpg");
+		Path secondDir = tempDir.resolve("second");
+		Files.createDirectories(secondDir);
+		TestHelper.copyTree(firstDir.resolve("MAX"), secondDir.resolve("MAX"));
+		TestHelper.forward(firstDir, configPath);
+
+		// act
+		List<Generator> generators = TestHelper.forward(secondDir, configPath);
+
+		// assert
+		assertTrue(Files.isDirectory(tempDir.resolve("derivans_cache")));
+		assertEquals(3, ((GeneratorImage) generators.get(0)).getNumberOfCached());
+		assertEquals(3, ((GeneratorImage) generators.get(1)).getNumberOfCached());
+		Path firstResult = firstDir.resolve("IMAGE_80").resolve("00000002.jpg");
+		Path secondResult = secondDir.resolve("IMAGE_80").resolve("00000002.jpg");
+		assertArrayEquals(Files.readAllBytes(firstResult), Files.readAllBytes(secondResult));
+		// footer height must be restored from cache
+		DigitalPage firstPage = generators.get(0).getDigitalPages().get(0);
+		assertTrue(firstPage.getFooterHeight().isPresent());
+		assertTrue(firstPage.getFooterHeight().get() > 800);
+	}
+
+	@Test
+	void testPipelineTakesResultsFromCache(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path configPath = TestHelper.fixtureFooterChainConfig(tempDir, "cache_dir = derivans_cache", "cache_size = 64");
+		Path firstDir = tempDir.resolve("first");
+		Files.createDirectories(firstDir);
+		TestHelper.generateImages(firstDir.resolve("MAX"), 600, 800, 2, "%08d.jpg");
+		Path secondDir = tempDir.resolve("second");
+		Files.createDirectories(secondDir);
+		TestHelper.copyTree(firstDir.resolve("MAX"), secondDir.resolve("MAX"));
+		TestHelper.forward(firstDir, configPath);
+
+		// act
+		List<Generator> generators = TestHelper.forward(secondDir, configPath, dp -> dp.setPipeline(true));
+
+		// assert
+		assertEquals(2, ((GeneratorImage) generators.get(0)).getNumberOfCached());
+		assertEquals(2, ((GeneratorImage) generators.get(1)).getNumberOfCached());
+		assertTrue(Files.exists(secondDir.resolve("IMAGE_80").resolve("00000002.jpg")));
+	}
+}
@@ -0,0 +1,147 @@
+package de.ulb.digital.derivans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.config.DerivansParameter;
+
+/**
+ *
+ * Test daemon mode with job submission
+ * via HTTP and spool directory
+ *
+ * @author hartwig
+ *
+ */
+class TestDerivansDaemon {
+
+	private static final long TIMEOUT_MILLIS = 60_000;
+
+	@Test
+	void testSubmitJobsViaHttp(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path workDir = tempDir.resolve("work_http");
+		Files.createDirectories(workDir);
+		TestHelper.generateImages(workDir.resolve("MAX"), 400, 600, 2, "%04d.jpg");
+		DerivansDaemon daemon = new DerivansDaemon(new DerivansParameter(), null);
+		daemon.setPort(0);
+		daemon.start();
+		HttpClient client = HttpClient.newHttpClient();
+		String base = "http://localhost:" + daemon.getPort();
+
+		try {
+			// act
+			HttpResponse<String> accepted = client.send(HttpRequest.newBuilder(URI.create(base + "/jobs"))
+					.POST(HttpRequest.BodyPublishers.ofString("input=" + workDir + "&images=MAX&threads=2"))
+					.build(), HttpResponse.BodyHandlers.ofString());
+			HttpResponse<String> rejected = client.send(HttpRequest.newBuilder(URI.create(base + "/jobs?foo=bar"))
+					.POST(HttpRequest.BodyPublishers.noBody())
+					.build(), HttpResponse.BodyHandlers.ofString());
+			DerivansDaemon.Job job = daemon.getJob("1");
+			long start = System.currentTimeMillis();
+			while (job.getState() != DerivansDaemon.JobState.DONE
+					&& job.getState() != DerivansDaemon.JobState.FAILED
+					&& System.currentTimeMillis() - start < TIMEOUT_MILLIS) {
+				Thread.sleep(100);
+			}
+			HttpResponse<String> jobInfo = client.send(HttpRequest.newBuilder(URI.create(base + "/jobs/1"))
+					.GET().build(), HttpResponse.BodyHandlers.ofString());
+			HttpResponse<String> status = client.send(HttpRequest.newBuilder(URI.create(base + "/status"))
+					.GET().build(), HttpResponse.BodyHandlers.ofString());
+
+			// assert
+			assertEquals(202, accepted.statusCode());
+			assertEquals(400, rejected.statusCode());
+			assertEquals(DerivansDaemon.JobState.DONE, job.getState());
+			assertTrue(Files.exists(workDir.resolve("work_http.pdf")));
+			assertEquals(2, job.getTimings().size());
+			assertTrue(jobInfo.body().contains("\"state\":\"DONE\""));
+			assertTrue(status.body().contains("\"queueDepth\":0"));
+			assertTrue(status.body().contains("\"done\":1"));
+		} finally {
+			daemon.stop();
+		}
+	}
+
+	@Test
+	void testSubmitJobsViaSpool(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path workDir = tempDir.resolve("work_spool");
+		Files.createDirectories(workDir);
+		TestHelper.generateImages(workDir.resolve("DEFAULT"), 400, 600, 2, "%04d.jpg");
+		Path spoolDir = tempDir.resolve("spool");
+		Files.createDirectories(spoolDir);
+		Files.write(spoolDir.resolve("a.job"), List.of("input = " + workDir, "name-pdf = spooled"));
+		Files.write(spoolDir.resolve("b.job"), List.of("input = " + tempDir.resolve("missing")));
+		DerivansDaemon daemon = new DerivansDaemon(new DerivansParameter(), spoolDir);
+		daemon.setPort(0);
+
+		// act
+		daemon.start();
+		long start = System.currentTimeMillis();
+		while ((!Files.exists(spoolDir.resolve("a.done")) || !Files.exists(spoolDir.resolve("b.failed")))
+				&& System.currentTimeMillis() - start < TIMEOUT_MILLIS) {
+			Thread.sleep(100);
+		}
+		daemon.stop();
+
+		// assert
+		assertTrue(Files.exists(spoolDir.resolve("a.done")));
+		assertTrue(Files.exists(spoolDir.resolve("b.failed")));
+		assertFalse(Files.exists(spoolDir.resolve("a.job")));
+		assertTrue(Files.exists(workDir.resolve("spooled.pdf")));
+	}
+
+	@Test
+	void testBindLoopbackByDefault() throws Exception {
+		DerivansDaemon daemon = new DerivansDaemon(new DerivansParameter(), null);
+		daemon.setPort(0);
+		daemon.start();
+
+		try {
+			assertTrue(daemon.getHost().isLoopbackAddress());
+			assertTrue(daemon.getPort() > 0);
+		} finally {
+			daemon.stop();
+		}
+	}
+
+	@Test
+	void testInvalidHost() {
+		DerivansDaemon daemon = new DerivansDaemon(new DerivansParameter(), null);
+
+		assertThrows(DigitalDerivansException.class, () -> daemon.setHost("no.such.host.invalid"));
+		assertTrue(daemon.getHost().isLoopbackAddress());
+	}
+
+	/**
+	 *
+	 * Invalid spool directory is detected before
+	 * server or workers are started
+	 *
+	 */
+	@Test
+	void testInvalidSpoolDirectory(@TempDir Path tempDir) {
+		DerivansDaemon daemon = new DerivansDaemon(new DerivansParameter(), tempDir.resolve("missing"));
+		daemon.setPort(0);
+
+		assertThrows(DigitalDerivansException.class, daemon::start);
+		assertEquals(0, daemon.getPort());
+		daemon.stop();
+	}
+}
@@ -0,0 +1,121 @@
+package de.ulb.digital.derivans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.config.DerivansConfiguration;
+import de.ulb.digital.derivans.config.DerivansParameter;
+import de.ulb.digital.derivans.generate.Generator;
+import de.ulb.digital.derivans.generate.GeneratorPDF;
+import de.ulb.digital.derivans.model.DigitalPage;
+import de.ulb.digital.derivans.model.pdf.PDFResult;
+
+/**
+ *
+ * Test pipelined processing where pages are streamed
+ * from footer step over scaling step into PDF
+ *
+ * @author hartwig
+ *
+ */
+class TestDerivansPipeline {
+
+	@Test
+	void testPipelinedFooterChainIntoPDF(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path workDir = tempDir.resolve("test_pipeline");
+		Files.createDirectories(workDir);
+		TestHelper.generateImages(workDir.resolve("MAX"), 1200, 1600, 4, "%08d.jpg");
+		Path footerTemplate = TestResource.CONFIG_RES_DIR.get().resolve("footer_template.png").toAbsolutePath();
+		Path configPath = tempDir.resolve("derivans.ini");
+		String configContent = String.join("\n",
+				"default_quality = 80",
+				"default_poolsize = 2",
+				"pipeline = true",
+				"",
+				"[derivate_01]",
+				"quality = 95",
+				"input_dir = MAX",
+				"output_dir = IMAGE_FOOTER",
+				"footer_template = " + footerTemplate,
+				"footer_label_copyright = \"Universitäts- und Landesbibliothek Sachsen-Anhalt\"",
+				"",
+				"[derivate_02]",
+				"input_dir = IMAGE_FOOTER",
+				"output_dir = IMAGE_80",
+				"",
+				"[derivate_03]",
+				"input_dir = IMAGE_80",
+				"output_dir = .",
+				"output_type = pdf",
+				"",
+				"[derivate_04]",
+				"input_dir = IMAGE_FOOTER",
+				"maximal = 128",
+				"output_dir = THUMBNAIL",
+				"output_prefix = THUMBNAIL__");
+		Files.writeString(configPath, configContent);
+		DerivansParameter dp = new DerivansParameter();
+		dp.setPathInput(workDir);
+		dp.setPathConfig(configPath);
+		DerivansConfiguration dc = new DerivansConfiguration(dp);
+		Derivans derivans = new Derivans(dc);
+		List<Generator> generators = derivans.init(workDir);
+
+		// act
+		derivans.forward();
+
+		// assert
+		assertTrue(dc.isPipeline());
+		assertEquals(4, generators.size());
+		Path pdfWritten = workDir.resolve("test_pipeline.pdf");
+		assertTrue(Files.exists(pdfWritten));
+		PDFResult pdfResult = ((GeneratorPDF) generators.get(2)).getPDFResult();
+		assertEquals(4, pdfResult.getPdfPages().size());
+		for (int i = 1; i <= 4; i++) {
+			var imageLabel = String.format("%08d.jpg", i);
+			assertTrue(Files.exists(workDir.resolve("IMAGE_FOOTER").resolve(imageLabel)));
+			assertTrue(Files.exists(workDir.resolve("THUMBNAIL").resolve("THUMBNAIL__" + imageLabel)));
+		}
+		// footer height must be passed along like in sequential mode
+		DigitalPage firstPage = generators.get(0).getDigitalPages().get(0);
+		BufferedImage image80 = ImageIO.read(workDir.resolve("IMAGE_80").resolve("00000001.jpg").toFile());
+		assertTrue(firstPage.getFooterHeight().isPresent());
+		assertEquals(image80.getHeight(), (int) firstPage.getFooterHeight().get());
+		assertTrue(image80.getHeight() > 1600);
+	}
+
+	@Test
+	void testPipelineFromParameter(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path workDir = tempDir.resolve("test_pipeline_param");
+		Files.createDirectories(workDir);
+		TestHelper.generateImages(workDir.resolve("DEFAULT"), 400, 600, 3, "%04d.jpg");
+		DerivansParameter dp = new DerivansParameter();
+		dp.setPathInput(workDir);
+		dp.setPipeline(true);
+		DerivansConfiguration dc = new DerivansConfiguration(dp);
+		Derivans derivans = new Derivans(dc);
+		derivans.init(workDir);
+
+		// act
+		derivans.forward();
+
+		// assert
+		assertTrue(dc.isPipeline());
+		assertTrue(Files.exists(workDir.resolve("test_pipeline_param.pdf")));
+		assertTrue(Files.exists(workDir.resolve(IDerivans.IMAGE_Q80).resolve("0003.jpg")));
+	}
+}
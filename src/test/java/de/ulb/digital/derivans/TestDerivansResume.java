@@ -0,0 +1,98 @@
+package de.ulb.digital.derivans;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.generate.Generator;
+import de.ulb.digital.derivans.generate.GeneratorImage;
+import de.ulb.digital.derivans.model.DigitalPage;
+
+/**
+ *
+ * Test resumption of image steps where pages with
+ * results still valid are skipped
+ *
+ * @author hartwig
+ *
+ */
+class TestDerivansResume {
+
+	@Test
+	void testResumeSkipsValidPages(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path workDir = tempDir.resolve("test_resume");
+		Files.createDirectories(workDir);
+		TestHelper.generateImages(workDir.resolve("MAX"), 600, 800, 4, "%08d.jpg");
+		Path configPath = TestHelper.fixtureFooterChainConfig(tempDir);
+		TestHelper.forward(workDir, configPath);
+		Path image80 = workDir.resolve("IMAGE_80").resolve("00000002.jpg");
+		FileTime firstModified = Files.getLastModifiedTime(image80);
+
+		// act
+		List<Generator> generators = TestHelper.forward(workDir, configPath, dp -> dp.setResume(true));
+
+		// assert
+		assertEquals(4, ((GeneratorImage) generators.get(0)).getNumberOfSkipped());
+		assertEquals(4, ((GeneratorImage) generators.get(1)).getNumberOfSkipped());
+		assertEquals(firstModified, Files.getLastModifiedTime(image80));
+		assertTrue(Files.exists(workDir.resolve(".derivans_IMAGE_FOOTER.manifest")));
+		// footer height of skipped pages must be restored
+		DigitalPage firstPage = generators.get(0).getDigitalPages().get(0);
+		assertTrue(firstPage.getFooterHeight().isPresent());
+		assertTrue(firstPage.getFooterHeight().get() > 800);
+	}
+
+	@Test
+	void testResumeRegeneratesChangedPage(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path workDir = tempDir.resolve("test_resume_changed");
+		Files.createDirectories(workDir);
+		Path maxDir = workDir.resolve("MAX");
+		TestHelper.generateImages(maxDir, 600, 800, 4, "%08d.jpg");
+		Path configPath = TestHelper.fixtureFooterChainConfig(tempDir);
+		TestHelper.forward(workDir, configPath);
+		Path changed = maxDir.resolve("00000003.jpg");
+		Path tmpDir = tempDir.resolve("tmp");
+		TestHelper.generateImages(tmpDir, 500, 700, 1, "%08d.jpg");
+		Files.move(tmpDir.resolve("00000001.jpg"), changed, StandardCopyOption.REPLACE_EXISTING);
+
+		// act
+		List<Generator> generators = TestHelper.forward(workDir, configPath, dp -> dp.setResume(true));
+
+		// assert
+		assertEquals(3, ((GeneratorImage) generators.get(0)).getNumberOfSkipped());
+		assertEquals(3, ((GeneratorImage) generators.get(1)).getNumberOfSkipped());
+	}
+
+	@Test
+	void testForceRegeneratesAllPages(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path workDir = tempDir.resolve("test_resume_force");
+		Files.createDirectories(workDir);
+		TestHelper.generateImages(workDir.resolve("MAX"), 600, 800, 2, "%08d.jpg");
+		Path configPath = TestHelper.fixtureFooterChainConfig(tempDir);
+		TestHelper.forward(workDir, configPath);
+
+		// act
+		List<Generator> generators = TestHelper.forward(workDir, configPath, dp -> {
+			dp.setResume(true);
+			dp.setForce(true);
+		});
+
+		// assert
+		assertEquals(0, ((GeneratorImage) generators.get(0)).getNumberOfSkipped());
+		assertEquals(0, ((GeneratorImage) generators.get(1)).getNumberOfSkipped());
+	}
+}
@@ -20,6 +20,7 @@ import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.function.Consumer;
 
 import javax.imageio.ImageIO;
 import javax.xml.XMLConstants;
@@ -61,8 +62,11 @@ import org.xml.sax.SAXException;
 // import com.itextpdf.kernel.pdf.PdfOutline;
 // import com.itextpdf.kernel.pdf.PdfReader;
 
+import de.ulb.digital.derivans.config.DerivansConfiguration;
+import de.ulb.digital.derivans.config.DerivansParameter;
 import de.ulb.digital.derivans.data.mets.METS;
 import de.ulb.digital.derivans.data.xml.XMLHandler;
+import de.ulb.digital.derivans.generate.Generator;
 import de.ulb.digital.derivans.model.ocr.OCRData;
 import de.ulb.digital.derivans.model.pdf.MetadataType;
 import de.ulb.digital.derivans.model.pdf.PDFMetadata;
@@ -191,6 +195,65 @@ public class TestHelper {
 		return fixturePrint737429(tempDir, TestResource.VLS_HD_Aa_737429.get(), imageSubDir);
 	}
 
+	/**
+	 * 
+	 * Configuration with footer step on MAX images
+	 * followed by scaling step into IMAGE_80
+	 * 
+	 * @param tempDir
+	 * @param defaults additional lines of default section
+	 * @return path of written configuration
+	 * @throws IOException
+	 */
+	public static Path fixtureFooterChainConfig(Path tempDir, String... defaults) throws IOException {
+		Path footerTemplate = TestResource.CONFIG_RES_DIR.get().resolve("footer_template.png").toAbsolutePath();
+		Path configPath = tempDir.resolve("derivans.ini");
+		List<String> lines = new ArrayList<>();
+		lines.add("default_quality = 80");
+		lines.add("default_poolsize = 2");
+		lines.addAll(List.of(defaults));
+		lines.addAll(List.of(
+				"",
+				"[derivate_01]",
+				"input_dir = MAX",
+				"output_dir = IMAGE_FOOTER",
+				"footer_template = " + footerTemplate,
+				"footer_label_copyright = \"Universitäts- und Landesbibliothek Sachsen-Anhalt\"",
+				"",
+				"[derivate_02]",
+				"input_dir = IMAGE_FOOTER",
+				"output_dir = IMAGE_80"));
+		Files.writeString(configPath, String.join("\n", lines));
+		return configPath;
+	}
+
+	public static List<Generator> forward(Path workDir, Path configPath) throws Exception {
+		return forward(workDir, configPath, dp -> {
+		});
+	}
+
+	/**
+	 * 
+	 * Run all steps for given work and configuration
+	 * 
+	 * @param workDir
+	 * @param configPath
+	 * @param options    further parameters, like resume or pipeline
+	 * @return generators of all steps
+	 * @throws Exception
+	 */
+	public static List<Generator> forward(Path workDir, Path configPath, Consumer<DerivansParameter> options)
+			throws Exception {
+		DerivansParameter dp = new DerivansParameter();
+		dp.setPathInput(workDir);
+		dp.setPathConfig(configPath);
+		options.accept(dp);
+		Derivans derivans = new Derivans(new DerivansConfiguration(dp));
+		List<Generator> generators = derivans.init(workDir);
+		derivans.forward();
+		return generators;
+	}
+
 	public static String getText(Path writtenData, int pageNr) throws Exception {
 		PDFInspector inspector = new PDFInspector(writtenData);
 		return inspector.getPageText(pageNr);
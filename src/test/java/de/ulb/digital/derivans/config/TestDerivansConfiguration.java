@@ -80,6 +80,82 @@ public class TestDerivansConfiguration {
 		DerivateStepPDF stepPdf = (DerivateStepPDF) steps.get(1);
 		assertEquals(DigitalType.PDF, stepPdf.getOutputType());
 		assertTrue(stepPdf.isEnrichMetadata());
+		assertEquals(1, stepPdf.getPoolsize());
+	}
+
+	/**
+	 * 
+	 * Number of workers to prepare PDF pages
+	 * can be set per PDF section
+	 * 
+	 * @param tempDir
+	 * @throws Exception
+	 */
+	@Test
+	void testConfigurationPDFPoolsize(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path configPath = tempDir.resolve("derivans.ini");
+		String configContent = String.join("\n",
+				"default_poolsize = 2",
+				"",
+				"[derivate_01]",
+				"input_dir = MAX",
+				"output_dir = IMAGE_80",
+				"",
+				"[derivate_02]",
+				"input_dir = IMAGE_80",
+				"output_dir = .",
+				"output_type = pdf",
+				"poolsize = 6");
+		Files.writeString(configPath, configContent);
+		DerivansParameter dp = new DerivansParameter();
+		dp.setPathConfig(configPath);
+		dp.setPathInput(tempDir);
+
+		// act
+		DerivansConfiguration dc = new DerivansConfiguration(dp);
+
+		// assert
+		List<DerivateStep> steps = dc.getDerivateSteps();
+		assertEquals(2, ((DerivateStepImage) steps.get(0)).getPoolsize());
+		assertEquals(6, ((DerivateStepPDF) steps.get(1)).getPoolsize());
+		assertEquals(0, ((DerivateStepPDF) steps.get(1)).getOcrPoolsize());
+	}
+
+	/**
+	 * 
+	 * Number of workers to read OCR files ahead
+	 * can be set per PDF section
+	 * 
+	 * @param tempDir
+	 * @throws Exception
+	 */
+	@Test
+	void testConfigurationPDFOcrPoolsize(@TempDir Path tempDir) throws Exception {
+
+		// arrange
+		Path configPath = tempDir.resolve("derivans.ini");
+		String configContent = String.join("\n",
+				"default_poolsize = 2",
+				"",
+				"[derivate_01]",
+				"input_dir = MAX",
+				"output_dir = .",
+				"output_type = pdf",
+				"ocr_poolsize = 3");
+		Files.writeString(configPath, configContent);
+		DerivansParameter dp = new DerivansParameter();
+		dp.setPathConfig(configPath);
+		dp.setPathInput(tempDir);
+
+		// act
+		DerivansConfiguration dc = new DerivansConfiguration(dp);
+
+		// assert
+		DerivateStepPDF stepPdf = (DerivateStepPDF) dc.getDerivateSteps().get(0);
+		assertEquals(3, stepPdf.getOcrPoolsize());
+		assertEquals(3, stepPdf.copy().getOcrPoolsize());
 	}
 
 	/**
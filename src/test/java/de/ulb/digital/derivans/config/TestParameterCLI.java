@@ -29,6 +29,7 @@ class TestParameterCLI {
 
 		assertEquals("/path/to/metsmods.xml", dp.getPathInput().toString());
 		assertNull(dp.getPathConfig());
+		assertNull(dp.getHost());
 	}
 
 	@Test
@@ -43,4 +44,20 @@ class TestParameterCLI {
 		assertThrows(CmdLineException.class, () -> parser.parseArgument(args));
 
 	}
+
+	@Test
+	void testDaemonHost() throws CmdLineException {
+
+		// arrange
+		DerivansParameter dp = new DerivansParameter();
+		CmdLineParser parser = new CmdLineParser(dp, dp.getProperties());
+		String[] args = { "-D", "-H", "0.0.0.0", "/data/spool" };
+
+		// act
+		parser.parseArgument(args);
+
+		assertEquals("0.0.0.0", dp.getHost());
+		assertEquals("0.0.0.0", new DerivansParameter(dp).getHost());
+	}
 }
+
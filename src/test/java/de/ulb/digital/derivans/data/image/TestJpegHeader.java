@@ -0,0 +1,66 @@
+package de.ulb.digital.derivans.data.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import de.ulb.digital.derivans.TestResource;
+
+/**
+ *
+ * Test Specification for {@link JpegHeader}
+ *
+ * @author hartwig
+ *
+ */
+class TestJpegHeader {
+
+	private static JpegHeader read(Path path) throws Exception {
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(path))) {
+			return JpegHeader.read(in);
+		}
+	}
+
+	@Test
+	void testReadRGBFrame() throws Exception {
+		var header = read(TestResource.IMG_JPG_148811035_MAX_1.get());
+
+		assertNotNull(header);
+		assertEquals(2164, header.getWidth());
+		assertEquals(2448, header.getHeight());
+		assertEquals(3, header.getComponents());
+		assertTrue(header.isEmbeddable());
+	}
+
+	/**
+	 *
+	 * Progressive greyscale frame with ICC profile
+	 * must not be embedded as DeviceGray
+	 *
+	 */
+	@Test
+	void testReadGreyFrameWithICCProfile() throws Exception {
+		var header = read(TestResource.IMG_JPG_ZD2_GREY.get());
+
+		assertNotNull(header);
+		assertEquals(85, header.getWidth());
+		assertEquals(128, header.getHeight());
+		assertEquals(1, header.getComponents());
+		assertFalse(header.isEmbeddable());
+	}
+
+	@Test
+	void testReadIgnoresTIFFAndEmptyInput() throws Exception {
+		assertNull(read(TestResource.IMG_TIF_ZD1_GREY.get()));
+		assertNull(read(TestResource.IMG_JPG_ZERO.get()));
+	}
+}
@@ -0,0 +1,134 @@
+package de.ulb.digital.derivans.data.ocr;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+
+/**
+ *
+ * Test Specification for {@link OCRDataCache}
+ *
+ * @author hartwig
+ *
+ */
+class TestOCRDataCache {
+
+	static final Path OCR_320805 = Path.of("src/test/resources/ocr/alto/148811035/FULLTEXT/320805.xml");
+
+	static final Path OCR_320807 = Path.of("src/test/resources/ocr/alto/148811035/FULLTEXT/320807.xml");
+
+	static final Path OCR_320808 = Path.of("src/test/resources/ocr/alto/148811035/FULLTEXT/320808.xml");
+
+	@Test
+	void testDataReadOnce() throws Exception {
+		var cache = new OCRDataCache(4);
+
+		var first = cache.get(OCR_320805);
+		var second = cache.get(OCR_320805);
+
+		assertSame(first, second);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+	}
+
+	@Test
+	void testLeastRecentlyUsedEvicted() throws Exception {
+		var cache = new OCRDataCache(2);
+
+		cache.get(OCR_320805);
+		cache.get(OCR_320807);
+		cache.get(OCR_320805);
+		cache.get(OCR_320808);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertTrue(cache.contains(OCR_320805));
+		assertFalse(cache.contains(OCR_320807));
+	}
+
+	/**
+	 *
+	 * Consumed data is dropped and read again if requested once more
+	 *
+	 */
+	@Test
+	void testEvictConsumed() throws Exception {
+		var cache = new OCRDataCache(2);
+		var first = cache.get(OCR_320805);
+
+		cache.evict(OCR_320805);
+
+		assertEquals(0, cache.size());
+		assertNotSame(first, cache.get(OCR_320805));
+	}
+
+	@Test
+	void testInvalidDataNotCached() {
+		var cache = new OCRDataCache(2);
+		var invalid = Path.of("src/test/resources/ocr/alto/148811035/mets.xml");
+
+		assertThrows(DigitalDerivansException.class, () -> cache.get(invalid));
+		assertFalse(cache.contains(invalid));
+	}
+
+	/**
+	 *
+	 * Reserved room keeps pages read ahead from being evicted,
+	 * until it's returned
+	 *
+	 */
+	@Test
+	void testReservedRoom() throws Exception {
+		var cache = new OCRDataCache(1);
+
+		cache.reserve(2);
+		cache.get(OCR_320805);
+		cache.get(OCR_320807);
+		cache.get(OCR_320808);
+
+		assertEquals(3, cache.getBound());
+		assertEquals(3, cache.size());
+
+		cache.unreserve(2);
+
+		assertEquals(1, cache.getBound());
+		assertEquals(1, cache.size());
+		assertTrue(cache.contains(OCR_320808));
+	}
+
+	/**
+	 *
+	 * Data of a file changed since it was read isn't taken
+	 *
+	 */
+	@Test
+	void testChangedFileReadAgain(@TempDir Path tempDir) throws Exception {
+		var cache = new OCRDataCache(2);
+		Path ocrFile = tempDir.resolve("0001.xml");
+		Files.copy(OCR_320805, ocrFile);
+		var first = cache.get(ocrFile);
+
+		Files.copy(OCR_320807, ocrFile, StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(ocrFile, FileTime.fromMillis(0));
+		var second = cache.get(ocrFile);
+
+		assertNotSame(first, second);
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.size());
+		assertSame(second, cache.get(ocrFile));
+	}
+}
+
@@ -3,9 +3,11 @@ package de.ulb.digital.derivans.data.ocr;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.model.ocr.OCRData;
@@ -65,4 +67,67 @@ public class TestOCRReaderFactory {
 		// assert
 		assertEquals(Type.PAGE_2019, reader.getType());
 	}
+
+	/**
+	 * 
+	 * Data read with sniffed format from a single stream
+	 * equals data read by reader of detected format
+	 * 
+	 */
+	@Test
+	void testReadPAGE2019FromODEM() throws Exception {
+		// arrange
+		Path input = Path.of("src/test/resources/ocr/page/16258167.xml");
+
+		// act
+		OCRData data = OCRReaderFactory.read(input);
+
+		// assert
+		OCRData expected = new PAGEReader(Type.PAGE_2019).get(input);
+		assertEquals(expected.getTextlines().size(), data.getTextlines().size());
+		assertEquals(expected.getText().getNumberOfWords(), data.getText().getNumberOfWords());
+		assertEquals(expected.getPageHeight(), data.getPageHeight());
+	}
+
+	@Test
+	void testReadALTOV4() throws Exception {
+		// arrange
+		Path input = Path.of("./src/test/resources/ocr/alto/737429/FULLTEXT/FULLTEXT_737434.xml");
+
+		// act
+		OCRData data = OCRReaderFactory.read(input);
+
+		// assert
+		assertEquals(29, data.getTextlines().size());
+	}
+
+	/**
+	 * 
+	 * Format is detected for each file on it's own
+	 * 
+	 */
+	@Test
+	void testDetectOtherTypeInSameDirectory(@TempDir Path tempDir) throws Exception {
+		// arrange
+		Path alto = tempDir.resolve("0001.xml");
+		Files.copy(Path.of("src/test/resources/ocr/alto/1667524704_J_0150/1667524704_J_0150_0512.xml"), alto);
+		Path page = tempDir.resolve("0002.xml");
+		Files.copy(Path.of("src/test/resources/ocr/page/16258167.xml"), page);
+
+		// act
+		OCRReader altoReader = OCRReaderFactory.from(alto);
+		OCRReader pageReader = OCRReaderFactory.from(page);
+
+		// assert
+		assertEquals(Type.ALTO_V3, altoReader.getType());
+		assertEquals(Type.PAGE_2019, pageReader.getType());
+	}
+
+	@Test
+	void testMapPreludeToType() {
+		String alto3 = "<?xml version=\"1.0\"?><alto xmlns=\"http://www.loc.gov/standards/alto/ns-v3#\">";
+
+		assertEquals(Type.ALTO_V3, OCRReaderFactory.mapToType(alto3));
+		assertEquals(Type.UNKNOWN, OCRReaderFactory.mapToType("<mets:mets>"));
+	}
 }
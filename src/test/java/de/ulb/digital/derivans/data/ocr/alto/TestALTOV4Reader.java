@@ -6,10 +6,12 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.awt.Rectangle;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
 import de.ulb.digital.derivans.TestResource;
@@ -216,4 +218,37 @@ class TestALTOV4Reader {
 		assertEquals("No Page data: src/test/resources/ocr/alto/1981185920_94220/00000805.xml",
 				actual.getMessage());
 	}
+
+	/**
+	 * Words with nested glyphs and alternatives, followed
+	 * by hyphens and spaces, are read as plain words
+	 */
+	@Test
+	void testALTOV4SkipsGlyphsAndHyphens(@TempDir Path tempDir) throws Exception {
+		// arrange
+		String alto = "<alto xmlns=\"http://www.loc.gov/standards/alto/ns-v4#\"><Layout>"
+				+ "<Page WIDTH=\"1000\" HEIGHT=\"2000\"><PrintSpace><TextBlock>"
+				+ "<TextLine HPOS=\"10\" VPOS=\"20\" WIDTH=\"300\" HEIGHT=\"40\">"
+				+ "<String CONTENT=\"Grantzen\" HPOS=\"10\" VPOS=\"20\" WIDTH=\"120\" HEIGHT=\"40\">"
+				+ "<ALTERNATIVE>Grentzen</ALTERNATIVE>"
+				+ "<Glyph CONTENT=\"G\" HPOS=\"10\" VPOS=\"20\" WIDTH=\"15\" HEIGHT=\"40\"/></String>"
+				+ "<SP WIDTH=\"10\"/>"
+				+ "<String CONTENT=\"Hertzog\" HPOS=\"140\" VPOS=\"20\" WIDTH=\"150\" HEIGHT=\"40\"/>"
+				+ "<HYP CONTENT=\"-\"/></TextLine>"
+				+ "<TextLine><String CONTENT=\"/\" HPOS=\"1\" VPOS=\"2\" WIDTH=\"3\" HEIGHT=\"4\"/></TextLine>"
+				+ "</TextBlock></PrintSpace></Page></Layout></alto>";
+		Path input = tempDir.resolve("glyphs.xml");
+		Files.writeString(input, alto);
+		ALTOReader reader = new ALTOReader(Type.ALTO_V4);
+
+		// act
+		var actual = reader.get(input);
+
+		// assert
+		assertEquals(2000, actual.getPageHeight());
+		assertEquals(1, actual.getTextlines().size());
+		Textline line = actual.getTextlines().get(0);
+		assertEquals("Grantzen Hertzog", line.getText());
+		assertEquals(new Rectangle(10, 20, 280, 40), line.getArea().getBounds());
+	}
 }
@@ -2,11 +2,14 @@ package de.ulb.digital.derivans.data.ocr.page;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.awt.Rectangle;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import de.ulb.digital.derivans.data.ocr.PAGEReader;
 import de.ulb.digital.derivans.data.ocr.Type;
@@ -73,4 +76,60 @@ class TestPage2019Reader {
 		var line15Shape = loi.getArea();
 		assertEquals(new Rectangle(342, 1751, 1337, 81), line15Shape.getBounds());
 	}
+
+	/**
+	 * 
+	 * Ensure only Coords and TextEquiv of word itself are taken,
+	 * not those of it's glyphs, and lines without any valid word
+	 * are kept
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void testPAGEWithGlyphs(@TempDir Path tempDir) throws Exception {
+		// arrange
+		String page = "<PcGts xmlns=\"http://schema.primaresearch.org/PAGE/gts/pagecontent/2019-07-15\">"
+				+ "<Page imageWidth=\"1000\" imageHeight=\"2000\"><TextRegion>"
+				+ "<TextLine><Coords points=\"10,20 310,20 310,60 10,60\"/>"
+				+ "<Word><Coords points=\"10,22 130,20 130,60 10,58\"/>"
+				+ "<Glyph><Coords points=\"10,22 25,22 25,58 10,58\"/>"
+				+ "<TextEquiv><Unicode>G</Unicode></TextEquiv></Glyph>"
+				+ "<TextEquiv index=\"1\"><Unicode> Grantzen </Unicode></TextEquiv>"
+				+ "<TextEquiv index=\"2\"><Unicode>Grentzen</Unicode></TextEquiv></Word>"
+				+ "<Word><Coords points=\"140,20 290,20 290,60 140,60\"/>"
+				+ "<TextEquiv><Unicode>Hertzog</Unicode></TextEquiv></Word>"
+				+ "<TextEquiv><Unicode>Grantzen Hertzog</Unicode></TextEquiv></TextLine>"
+				+ "<TextLine><Coords points=\"1,2 3,4\"/>"
+				+ "<Word><Coords points=\"1,2 3,4\"/><TextEquiv><Unicode>/</Unicode></TextEquiv></Word>"
+				+ "</TextLine></TextRegion></Page></PcGts>";
+		Path input = tempDir.resolve("glyphs.xml");
+		Files.writeString(input, page);
+		PAGEReader reader = new PAGEReader(Type.PAGE_2019);
+
+		// act
+		var actual = reader.get(input);
+
+		// assert
+		assertEquals(1000, actual.getPageWidth());
+		assertEquals(2, actual.getTextlines().size());
+		Textline line = actual.getTextlines().get(0);
+		assertEquals("Grantzen Hertzog", line.getText());
+		assertEquals(new Rectangle(10, 20, 120, 40), line.getWords().get(0).getBox());
+		assertEquals(0, actual.getTextlines().get(1).getWords().size());
+	}
+
+	@Test
+	void testBoundsOfPoints() {
+		assertEquals(new Rectangle(362, 1764, 1126, 63), PAGEReader.bounds("362,1764 1488,1770 1488,1827 362,1820"));
+		assertEquals(new Rectangle(-5, 0, 15, 20), PAGEReader.bounds(" -5,20  10,0\n3,7 "));
+		assertEquals(new Rectangle(4, 2, 0, 0), PAGEReader.bounds("4,2"));
+	}
+
+	@Test
+	void testBoundsOfMalformedPoints() {
+		assertThrows(NumberFormatException.class, () -> PAGEReader.bounds(""));
+		assertThrows(NumberFormatException.class, () -> PAGEReader.bounds("10,20 30"));
+		assertThrows(NumberFormatException.class, () -> PAGEReader.bounds("10,20 30 40"));
+		assertThrows(NumberFormatException.class, () -> PAGEReader.bounds("10;20"));
+	}
 }
@@ -0,0 +1,131 @@
+package de.ulb.digital.derivans.data.xml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jdom2.Document;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+
+/**
+ *
+ * Test Specification for {@link XMLHandler}
+ *
+ * @author hartwig
+ *
+ */
+class TestXMLHandler {
+
+	private static final Logger LOGGER = LogManager.getLogger(TestXMLHandler.class);
+
+	static final Path METS_148811035 = Path.of("src/test/resources/ocr/alto/148811035/mets.xml");
+
+	static final Path ALTO_ZD1 = Path.of("src/test/resources/ocr/alto/1667524704_J_0150/1667524704_J_0150_0512.xml");
+
+	/**
+	 * Directory of files for {@link #benchmarkParseDirectory()}
+	 */
+	static final String PROP_BENCHMARK = "derivans.benchmark.xml";
+
+	private static String pretty(Document document) {
+		return new XMLOutputter(Format.getPrettyFormat()).outputString(document);
+	}
+
+	@Test
+	void testPathMatchesBytes() throws Exception {
+		var fromPath = new XMLHandler(ALTO_ZD1);
+		var fromBytes = new XMLHandler(Files.readAllBytes(ALTO_ZD1));
+
+		assertEquals(ALTO_ZD1, fromPath.getFilePath());
+		assertEquals(pretty(fromBytes.getDocument()), pretty(fromPath.getDocument()));
+	}
+
+	/**
+	 *
+	 * Builder of current thread is still usable after a failure
+	 *
+	 */
+	@Test
+	void testParseAfterMalformed(@TempDir Path tempDir) throws Exception {
+		Path malformed = tempDir.resolve("malformed.xml");
+		Files.writeString(malformed, "<mets><fileSec></mets>", StandardCharsets.UTF_8);
+
+		assertThrows(DigitalDerivansException.class, () -> new XMLHandler(malformed));
+		assertEquals(pretty(new XMLHandler(Files.readAllBytes(METS_148811035)).getDocument()),
+				pretty(new XMLHandler(METS_148811035).getDocument()));
+	}
+
+	@Test
+	void testParseConcurrently() throws Exception {
+		String expected = pretty(new XMLHandler(ALTO_ZD1).getDocument());
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Callable<String>> tasks = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				tasks.add(() -> pretty(new XMLHandler(ALTO_ZD1).getDocument()));
+			}
+			for (Future<String> result : executor.invokeAll(tasks)) {
+				assertEquals(expected, result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 *
+	 * Measure parse throughput over all XML files of a directory,
+	 * i.e. ALTO files of a work.
+	 *
+	 * Only run on demand, like
+	 * <pre>
+	 * mvn test -Dtest=TestXMLHandler -Dderivans.benchmark.xml=path/to/FULLTEXT
+	 * </pre>
+	 *
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = PROP_BENCHMARK, matches = ".+")
+	void benchmarkParseDirectory() throws Exception {
+		List<Path> files;
+		try (Stream<Path> paths = Files.walk(Path.of(System.getProperty(PROP_BENCHMARK)))) {
+			files = paths.filter(p -> p.toString().endsWith(".xml")).sorted().collect(Collectors.toList());
+		}
+		long bytes = 0;
+		for (Path file : files) {
+			bytes += Files.size(file);
+		}
+		int rounds = 5;
+		// first pass warms up
+		for (int pass = 0; pass < 2; pass++) {
+			long start = System.nanoTime();
+			for (int i = 0; i < rounds; i++) {
+				for (Path file : files) {
+					new XMLHandler(file);
+				}
+			}
+			double secs = (System.nanoTime() - start) / 1e9;
+			LOGGER.info("parsed {} files ({} bytes) {} times: {} files/s, {} MB/s", files.size(), bytes,
+					rounds, String.format("%.1f", rounds * files.size() / secs),
+					String.format("%.1f", rounds * bytes / 1e6 / secs));
+		}
+	}
+}
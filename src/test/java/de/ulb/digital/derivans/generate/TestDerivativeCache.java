@@ -0,0 +1,101 @@
+package de.ulb.digital.derivans.generate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ *
+ * Test Specification for {@link DerivativeCache}
+ *
+ * @author hartwig
+ *
+ */
+class TestDerivativeCache {
+
+	private static final long MB = 1024L * 1024L;
+
+	@Test
+	void testStoreAndFetch(@TempDir Path tempDir) throws Exception {
+		// arrange
+		DerivativeCache cache = DerivativeCache.get(tempDir.resolve("cache"), 10 * MB);
+		Path input = Files.write(tempDir.resolve("input.jpg"), new byte[] { 1, 2, 3 });
+		Path result = Files.write(tempDir.resolve("result.jpg"), new byte[] { 4, 5, 6, 7 });
+		String key = cache.key(input, "quality=80");
+		Path target = tempDir.resolve("target.jpg");
+
+		// act
+		boolean missed = cache.fetch(key, target).isEmpty();
+		cache.store(key, result, 1234);
+		var hit = cache.fetch(key, target);
+
+		// assert
+		assertTrue(missed);
+		assertTrue(hit.isPresent());
+		assertEquals(1234, hit.get().getFooterHeight().get());
+		assertArrayEquals(Files.readAllBytes(result), Files.readAllBytes(target));
+		assertEquals(1, cache.getHits());
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getStores());
+		assertNotEquals(key, cache.key(input, "quality=95"));
+		assertEquals(key, cache.key(Files.readAllBytes(input), "quality=80"));
+	}
+
+	@Test
+	void testEvictLeastRecentlyUsed(@TempDir Path tempDir) throws Exception {
+		// arrange
+		DerivativeCache cache = DerivativeCache.get(tempDir.resolve("cache"), 2 * MB);
+		Path result = Files.write(tempDir.resolve("result.jpg"), new byte[(int) (MB * 3 / 4)]);
+		Path target = tempDir.resolve("target.jpg");
+		cache.store("aa01", result, null);
+		Thread.sleep(5);
+		cache.store("aa02", result, null);
+		Thread.sleep(5);
+		cache.fetch("aa01", target);
+
+		// act
+		cache.store("aa03", result, null);
+
+		// assert
+		assertEquals(1, cache.getEvictions());
+		assertTrue(cache.getSize() <= 2 * MB);
+		assertTrue(cache.fetch("aa01", target).isPresent());
+		assertFalse(cache.fetch("aa02", target).isPresent());
+		assertTrue(cache.fetch("aa03", target).isPresent());
+	}
+
+	@Test
+	void testConcurrentWriters(@TempDir Path tempDir) throws Exception {
+		// arrange
+		DerivativeCache cache = DerivativeCache.get(tempDir.resolve("cache"), 10 * MB);
+		Path result = Files.write(tempDir.resolve("result.jpg"), new byte[64 * 1024]);
+		List<Integer> writers = IntStream.range(0, 16).boxed().collect(Collectors.toList());
+
+		// act
+		WorkerPool.get().forEach(WorkerPool.Lane.IO, writers, writers.size(), i -> {
+			cache.store("bb" + (i % 2), result, null);
+			cache.fetch("bb" + (i % 2), tempDir.resolve("target_" + i + ".jpg"));
+		});
+
+		// assert
+		assertEquals(2, cache.getNumberOfEntries());
+		assertEquals(2 * 64 * 1024, cache.getSize());
+		for (int i : writers) {
+			assertEquals(64 * 1024, Files.size(tempDir.resolve("target_" + i + ".jpg")));
+		}
+		try (var files = Files.walk(tempDir.resolve("cache"))) {
+			assertTrue(files.noneMatch(f -> f.toString().endsWith(".tmp")));
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package de.ulb.digital.derivans.generate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Test Specification for {@link MemoryBudget}
+ *
+ * @author hartwig
+ *
+ */
+class TestMemoryBudget {
+
+	private static final long MB = 1024L * 1024L;
+
+	private static final List<Integer> ITEMS = IntStream.rangeClosed(1, 12).boxed().collect(Collectors.toList());
+
+	/**
+	 *
+	 * Large pages run alone, even if more workers
+	 * are available and one exceeds the whole budget
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testLargePagesRunWithFewerPeers() throws Exception {
+		// arrange
+		MemoryBudget.setBudget(10 * MB);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		// act
+		try {
+			WorkerPool.get().forEach(WorkerPool.Lane.IO, ITEMS, ITEMS.size(), i -> {
+				long required = i % 2 == 0 ? 6 * MB : 20 * MB;
+				try (var lease = MemoryBudget.get().acquire(required)) {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					Thread.sleep(5);
+					running.decrementAndGet();
+				}
+			});
+
+			// assert
+			assertEquals(1, maxRunning.get());
+			assertEquals(10 * MB, MemoryBudget.get().getAvailable());
+		} finally {
+			MemoryBudget.setBudget(MemoryBudget.defaultBudget());
+		}
+	}
+
+	@Test
+	void testSmallPagesRunInParallel() throws Exception {
+		// arrange
+		MemoryBudget.setBudget(10 * MB);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+
+		// act
+		try {
+			WorkerPool.get().forEach(WorkerPool.Lane.IO, ITEMS, 4, i -> {
+				try (var lease = MemoryBudget.get().acquire(2 * MB)) {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					Thread.sleep(20);
+					running.decrementAndGet();
+				}
+			});
+
+			// assert
+			assertEquals(4, maxRunning.get());
+		} finally {
+			MemoryBudget.setBudget(MemoryBudget.defaultBudget());
+		}
+	}
+}
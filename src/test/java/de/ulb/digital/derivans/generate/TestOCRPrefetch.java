@@ -0,0 +1,186 @@
+package de.ulb.digital.derivans.generate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.data.ocr.OCRDataCache;
+import de.ulb.digital.derivans.model.DigitalPage;
+
+/**
+ *
+ * Test Specification for {@link OCRPrefetch}
+ *
+ * @author hartwig
+ *
+ */
+class TestOCRPrefetch {
+
+	static final Path FULLTEXT_148811035 = Path.of("src/test/resources/ocr/alto/148811035/FULLTEXT");
+
+	private static List<DigitalPage> pagesWithOcr() throws Exception {
+		List<Path> ocrFiles;
+		try (Stream<Path> files = Files.list(FULLTEXT_148811035)) {
+			ocrFiles = files.sorted().collect(Collectors.toList());
+		}
+		List<DigitalPage> pages = new ArrayList<>();
+		for (int i = 0; i < ocrFiles.size(); i++) {
+			DigitalPage page = new DigitalPage("FILE_" + i, i + 1, Path.of("MAX", i + ".jpg"));
+			page.setOcrFile(ocrFiles.get(i));
+			// shared cache might keep data from previous tests
+			page.releaseOcrData();
+			pages.add(page);
+		}
+		return pages;
+	}
+
+	@Test
+	void testOcrFileNotReadUntilRequested() throws Exception {
+		DigitalPage page = pagesWithOcr().get(0);
+
+		assertFalse(page.isOcrLoaded());
+		assertTrue(page.getOcrData().isPresent());
+		assertTrue(page.isOcrLoaded());
+	}
+
+	@Test
+	void testPrefetchAllPages() throws Exception {
+		// arrange
+		var pages = pagesWithOcr();
+		pages.get(0).getOcrData();
+		var prefetch = new OCRPrefetch(pages, 4);
+
+		// act
+		prefetch.start();
+		int nRead = prefetch.await();
+
+		// assert
+		assertEquals(pages.size() - 1, nRead);
+		for (DigitalPage page : pages) {
+			assertTrue(page.isOcrLoaded());
+			assertTrue(page.getOcrData().isPresent());
+		}
+		prefetch.stop();
+	}
+
+	/**
+	 *
+	 * Invalid OCR data doesn't stop reading other pages,
+	 * but fails when page is actually requested
+	 *
+	 */
+	@Test
+	void testPrefetchDefersError() throws Exception {
+		// arrange
+		var pages = pagesWithOcr();
+		DigitalPage invalid = pages.get(1);
+		invalid.setOcrFile(Path.of("src/test/resources/ocr/alto/148811035/mets.xml"));
+		var prefetch = new OCRPrefetch(pages, 2);
+
+		// act
+		prefetch.start();
+		prefetch.await();
+
+		// assert
+		assertTrue(pages.get(0).isOcrLoaded());
+		assertTrue(pages.get(2).isOcrLoaded());
+		assertFalse(invalid.isOcrLoaded());
+		assertThrows(DigitalDerivansException.class, invalid::getOcrData);
+		prefetch.stop();
+	}
+
+	/**
+	 *
+	 * Only a window of pages is read ahead, each page
+	 * released makes room for the next one
+	 *
+	 */
+	@Test
+	void testSlidingWindow() throws Exception {
+		// arrange
+		var pages = pagesWithOcr();
+		var prefetch = new OCRPrefetch(pages, 1, 2);
+
+		// act
+		prefetch.start();
+		int nFirst = prefetch.await();
+		boolean isThirdRead = pages.get(2).isOcrLoaded();
+		pages.get(0).getOcrData();
+		pages.get(0).releaseOcrData();
+		int nSecond = prefetch.await();
+
+		// assert
+		assertEquals(2, nFirst);
+		assertFalse(isThirdRead);
+		assertEquals(3, nSecond);
+		assertFalse(pages.get(0).isOcrLoaded());
+		assertTrue(pages.get(1).isOcrLoaded());
+		assertTrue(pages.get(2).isOcrLoaded());
+		assertFalse(pages.get(3).isOcrLoaded());
+		prefetch.stop();
+	}
+
+	/**
+	 *
+	 * Pages consumed before reading ahead reached
+	 * them aren't read again
+	 *
+	 */
+	@Test
+	void testSkipConsumedPages() throws Exception {
+		// arrange
+		var pages = pagesWithOcr();
+		var prefetch = new OCRPrefetch(pages, 1, 1);
+		prefetch.start();
+		prefetch.await();
+
+		// act
+		pages.get(1).getOcrData();
+		pages.get(1).releaseOcrData();
+		pages.get(0).releaseOcrData();
+		int nHanded = prefetch.await();
+
+		// assert
+		assertEquals(2, nHanded);
+		assertFalse(pages.get(1).isOcrLoaded());
+		assertTrue(pages.get(2).isOcrLoaded());
+		prefetch.stop();
+	}
+
+	/**
+	 *
+	 * Data not consumed is dropped when work is done,
+	 * and reserved room returned
+	 *
+	 */
+	@Test
+	void testStopDropsPagesNotConsumed() throws Exception {
+		// arrange
+		var pages = pagesWithOcr();
+		int bound = OCRDataCache.get().getBound();
+		var prefetch = new OCRPrefetch(pages, 2, 4);
+		prefetch.start();
+		prefetch.await();
+
+		// act
+		prefetch.stop();
+
+		// assert
+		for (DigitalPage page : pages) {
+			assertFalse(page.isOcrLoaded());
+		}
+		assertEquals(bound, OCRDataCache.get().getBound());
+	}
+}
+
@@ -0,0 +1,153 @@
+package de.ulb.digital.derivans.generate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import de.ulb.digital.derivans.DigitalDerivansException;
+
+/**
+ *
+ * Test Specification for {@link WorkerPool}
+ *
+ * @author hartwig
+ *
+ */
+class TestWorkerPool {
+
+	private static final List<Integer> ITEMS = IntStream.rangeClosed(1, 32).boxed().collect(Collectors.toList());
+
+	@Test
+	void testForEachRespectsParallelism() throws DigitalDerivansException {
+		// arrange
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		AtomicInteger done = new AtomicInteger();
+
+		// act
+		WorkerPool.get().forEach(WorkerPool.Lane.IO, ITEMS, 2, i -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			Thread.sleep(5);
+			running.decrementAndGet();
+			done.incrementAndGet();
+		});
+
+		// assert
+		assertEquals(32, done.get());
+		assertTrue(maxRunning.get() <= 2);
+	}
+
+	@Test
+	void testForEachCollectsErrors() {
+		// act
+		var exc = assertThrows(DigitalDerivansException.class,
+				() -> WorkerPool.get().forEach(WorkerPool.Lane.CPU, ITEMS, 4, i -> {
+					if (i % 16 == 0) {
+						throw new IllegalStateException("page " + i);
+					}
+				}));
+
+		// assert
+		assertTrue(exc.getMessage().contains("page 16"));
+		assertTrue(exc.getMessage().contains("page 32"));
+	}
+
+	/**
+	 *
+	 * Tasks submitted from within a worker must not
+	 * wait for workers of the same lane
+	 *
+	 * @throws DigitalDerivansException
+	 */
+	@Test
+	void testNestedSubmissionRunsInline() throws DigitalDerivansException {
+		// arrange
+		AtomicInteger done = new AtomicInteger();
+		WorkerPool pool = WorkerPool.get();
+
+		// act
+		pool.forEach(WorkerPool.Lane.CPU, ITEMS, ITEMS.size(),
+				i -> pool.forEach(WorkerPool.Lane.CPU, ITEMS, 2, j -> done.incrementAndGet()));
+
+		// assert
+		assertEquals(32 * 32, done.get());
+	}
+
+	/**
+	 *
+	 * Slots freed by cancelled tasks, which still sit in the
+	 * queue of a lane with all workers busy, must not let
+	 * further tasks be rejected
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testFloodFullLane() throws Exception {
+		// arrange
+		WorkerPool pool = WorkerPool.get();
+		int nThreads = pool.getThreads(WorkerPool.Lane.IO);
+		int nQueued = nThreads * WorkerPool.QUEUE_SLOTS_PER_THREAD;
+		CountDownLatch blocked = new CountDownLatch(1);
+		AtomicInteger done = new AtomicInteger();
+		List<Future<Object>> queued = new ArrayList<>();
+		for (int i = 0; i < nThreads + nQueued; i++) {
+			queued.add(pool.submit(WorkerPool.Lane.IO, () -> {
+				blocked.await();
+				done.incrementAndGet();
+				return null;
+			}));
+		}
+		int nCancelled = nQueued / 2;
+		for (int i = 0; i < nCancelled; i++) {
+			queued.get(queued.size() - 1 - i).cancel(false);
+		}
+
+		// act
+		int nFlooders = 4;
+		int nPerFlooder = 64;
+		List<Throwable> errors = new ArrayList<>();
+		List<Thread> flooders = new ArrayList<>();
+		for (int f = 0; f < nFlooders; f++) {
+			Thread flooder = new Thread(() -> {
+				try {
+					for (int i = 0; i < nPerFlooder; i++) {
+						pool.submit(WorkerPool.Lane.IO, () -> done.incrementAndGet());
+					}
+				} catch (Exception e) {
+					synchronized (errors) {
+						errors.add(e);
+					}
+				}
+			});
+			flooders.add(flooder);
+			flooder.start();
+		}
+		blocked.countDown();
+		for (Thread flooder : flooders) {
+			flooder.join();
+		}
+		for (Future<Object> future : queued) {
+			if (!future.isCancelled()) {
+				future.get();
+			}
+		}
+
+		// assert
+		assertTrue(errors.isEmpty(), () -> "submit failed: " + errors);
+		int expected = nThreads + nQueued - nCancelled + nFlooders * nPerFlooder;
+		for (int i = 0; i < 100 && done.get() < expected; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(expected, done.get());
+	}
+}
@@ -0,0 +1,163 @@
+package de.ulb.digital.derivans.generate.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.TestResource;
+import de.ulb.digital.derivans.generate.WorkerPool;
+
+/**
+ *
+ * Test Specification for {@link FooterCompositor}
+ * and {@link FooterBandCache}
+ *
+ * @author hartwig
+ *
+ */
+class TestFooterCompositor {
+
+	static ImageProcessor imageProcessor = new ImageProcessor(80, 3320);
+
+	static final List<String> LINES = List.of("Universitäts- und Landesbibliothek Sachsen-Anhalt", "");
+
+	private static Path writePage(Path dir, String name, int type, int width, int height) throws Exception {
+		BufferedImage page = new BufferedImage(width, height, type);
+		Graphics2D g2d = page.createGraphics();
+		g2d.setColor(Color.LIGHT_GRAY);
+		g2d.fillRect(width / 4, height / 4, width / 2, height / 2);
+		g2d.dispose();
+		Path pathPage = dir.resolve(name);
+		ImageIO.write(page, "jpg", pathPage.toFile());
+		return pathPage;
+	}
+
+	private static byte[] pixels(BufferedImage image) {
+		return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+	}
+
+	@Test
+	void testComposeLikeMerge(@TempDir Path tempDir) throws Exception {
+		// arrange
+		BufferedImage footer = ImageIO.read(TestResource.RES_FOOTER.get().toFile());
+		FooterCompositor compositor = new FooterCompositor(imageProcessor, lines -> footer, new FooterBandCache(), "font",
+				"template");
+
+		for (int type : new int[] { BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY }) {
+			Path pathPage = writePage(tempDir, "page_" + type + ".jpg", type, 1205, 1733);
+			BufferedImage expected = imageProcessor.appendFooter(ImageIO.read(pathPage.toFile()), footer, pathPage);
+
+			// act
+			BufferedImage composedFromPath = compositor.compose(pathPage, LINES);
+			BufferedImage composedFromBuffer = compositor.compose(ImageIO.read(pathPage.toFile()), LINES,
+					pathPage);
+
+			// assert
+			assertEquals(expected.getType(), composedFromPath.getType());
+			assertEquals(expected.getHeight(), composedFromPath.getHeight());
+			assertArrayEquals(pixels(expected), pixels(composedFromPath));
+			assertArrayEquals(pixels(expected), pixels(composedFromBuffer));
+		}
+	}
+
+	@Test
+	void testBandRenderedOncePerWidthAndText() {
+		// arrange
+		AtomicInteger nRendered = new AtomicInteger();
+		BufferedImage footer = new BufferedImage(2400, 120, BufferedImage.TYPE_3BYTE_BGR);
+		FooterBandCache bands = new FooterBandCache();
+		FooterCompositor compositor = new FooterCompositor(imageProcessor, lines -> {
+			nRendered.incrementAndGet();
+			return footer;
+		}, bands, "font", "template");
+
+		// act
+		BufferedImage first = compositor.band(1200, BufferedImage.TYPE_3BYTE_BGR, LINES);
+		BufferedImage second = compositor.band(1200, BufferedImage.TYPE_3BYTE_BGR, LINES);
+		compositor.band(1200, BufferedImage.TYPE_3BYTE_BGR, List.of("Label", "urn:nbn:de:gbv:3:1-123"));
+		compositor.band(1000, BufferedImage.TYPE_3BYTE_BGR, LINES);
+
+		// assert
+		assertSame(first, second);
+		assertEquals(1200, first.getWidth());
+		assertEquals(60, first.getHeight());
+		assertEquals(3, nRendered.get());
+		assertEquals(1, bands.getHits());
+		assertEquals(3, bands.getMisses());
+	}
+
+	@Test
+	void testBandRenderedOnceByConcurrentPages() throws Exception {
+		// arrange
+		AtomicInteger nRendered = new AtomicInteger();
+		BufferedImage footer = new BufferedImage(2400, 120, BufferedImage.TYPE_3BYTE_BGR);
+		FooterBandCache bands = new FooterBandCache();
+		FooterCompositor compositor = new FooterCompositor(imageProcessor, lines -> {
+			nRendered.incrementAndGet();
+			return footer;
+		}, bands, "font", "template");
+		List<Integer> pages = IntStream.range(0, 32).boxed().collect(Collectors.toList());
+
+		// act
+		WorkerPool.get().forEach(WorkerPool.Lane.IO, pages, 8,
+				i -> compositor.band(1200, BufferedImage.TYPE_3BYTE_BGR, LINES));
+
+		// assert
+		assertEquals(1, nRendered.get());
+		assertEquals(31, bands.getHits());
+		assertEquals(1, bands.getMisses());
+	}
+
+	@Test
+	void testLeastRecentlyUsedBandsEvicted() {
+		// arrange
+		FooterBandCache bands = new FooterBandCache(2);
+		BufferedImage band = new BufferedImage(10, 1, BufferedImage.TYPE_BYTE_GRAY);
+		var first = new FooterBandCache.Key(10, BufferedImage.TYPE_BYTE_GRAY, List.of("a"), "font", "template");
+		var second = new FooterBandCache.Key(10, BufferedImage.TYPE_BYTE_GRAY, List.of("b"), "font", "template");
+		var third = new FooterBandCache.Key(10, BufferedImage.TYPE_BYTE_GRAY, List.of("c"), "font", "template");
+		bands.get(first, () -> band);
+		bands.get(second, () -> band);
+		bands.get(first, () -> band);
+
+		// act
+		bands.get(third, () -> band);
+
+		// assert
+		assertEquals(2, bands.size());
+		assertEquals(1, bands.getEvictions());
+		assertSame(band, bands.get(first, () -> null));
+		assertNull(bands.get(second, () -> null));
+	}
+
+	@Test
+	void testNarrowPageCenteredLikeBefore(@TempDir Path tempDir) throws Exception {
+		// arrange
+		BufferedImage footer = ImageIO.read(TestResource.RES_FOOTER.get().toFile());
+		FooterCompositor compositor = new FooterCompositor(imageProcessor, lines -> footer, new FooterBandCache(), "font",
+				"template");
+		Path pathPage = writePage(tempDir, "narrow.jpg", BufferedImage.TYPE_3BYTE_BGR, 500, 900);
+
+		// act
+		BufferedImage composed = compositor.compose(pathPage, LINES);
+
+		// assert
+		assertEquals(ImageProcessor.DEFAULT_MINIMAL_DIMENSION, composed.getWidth());
+	}
+}
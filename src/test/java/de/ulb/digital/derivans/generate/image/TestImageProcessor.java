@@ -7,20 +7,27 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+
+import javax.imageio.ImageIO;
 
 import javax.imageio.metadata.IIOMetadata;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import de.ulb.digital.derivans.DigitalDerivansException;
+import de.ulb.digital.derivans.TestHelper;
 import de.ulb.digital.derivans.TestResource;
+import de.ulb.digital.derivans.data.image.ImageCodecs;
 import de.ulb.digital.derivans.data.image.ImageMetadata;
 
 /**
@@ -98,6 +105,35 @@ class TestImageProcessor {
 	}
 
 
+	/**
+	 * 
+	 * Metadata gathered while decoding pixels equals
+	 * metadata enriched from a separate pass
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void testReadMetadata_TIF_SinglePass() throws Exception {
+		Path sourcePath = TestResource.IMG_TIF_ZD1_GREY.get();
+		var separate = new ImageMetadata();
+		separate.enrichFrom(sourcePath);
+
+		// act
+		PageImage page = new ImageProcessor().read(sourcePath);
+
+		// assert
+		assertNotNull(page.getBuffer());
+		assertFalse(page.getMetadata().requiresProgressiveMode());
+		var expected = (Element) separate.getData().getAsTree(JAVAX_IMAGEIO_JPEG);
+		var actual = (Element) page.getMetadata().getData().getAsTree(JAVAX_IMAGEIO_JPEG);
+		var expectedJfif = (Element) expected.getElementsByTagName(JFIF_ROOT_NODE).item(0);
+		var actualJfif = (Element) actual.getElementsByTagName(JFIF_ROOT_NODE).item(0);
+		assertEquals(expectedJfif.getAttribute(METADATA_JPEG_XDENSITY),
+				actualJfif.getAttribute(METADATA_JPEG_XDENSITY));
+		assertEquals(expectedJfif.getAttribute(METADATA_JPEG_RESUNITS),
+				actualJfif.getAttribute(METADATA_JPEG_RESUNITS));
+	}
+
 	/**
 	 * 
 	 * Common grayscale TIFF ignores progressive mode
@@ -410,4 +446,89 @@ class TestImageProcessor {
 		// assert
 		assertEquals("Invalid fileSize 0 for src/test/resources/images/00000020.jpg!", actual.getMessage());
 	}
+
+	/**
+	 * 
+	 * Estimate from header must match actual
+	 * size of decoded pixel data
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void testEstimateDecodedSize() throws Exception {
+		for (Path sourcePath : List.of(TestResource.IMG_JPG_148811035_MAX_1.get(), TestResource.IMG_TIF_ZD1_GREY.get())) {
+			// act
+			long estimated = ImageProcessor.estimateDecodedSize(sourcePath);
+
+			// assert
+			BufferedImage decoded = ImageIO.read(sourcePath.toFile());
+			long expected = (long) decoded.getWidth() * decoded.getHeight()
+					* (decoded.getColorModel().getPixelSize() / 8);
+			assertEquals(expected, estimated);
+		}
+	}
+
+	/**
+	 * 
+	 * Scale on decode must yield same dimensions as if
+	 * the full image were decoded and scaled afterwards,
+	 * whereas less memory is estimated
+	 * 
+	 * @throws Exception
+	 */
+	@Test
+	void testWriteJPGScaledOnDecode(@TempDir Path tempDir) throws Exception {
+		Path tifDir = tempDir.resolve("TIF");
+		TestHelper.generateImages(tifDir, 2400, 3200, 1, "%04d.tif");
+		for (Path sourcePath : List.of(TestResource.IMG_JPG_148811035_MAX_1.get(), tifDir.resolve("0001.tif"))) {
+			// arrange
+			BufferedImage original = ImageIO.read(sourcePath.toFile());
+			ImageProcessor processor = new ImageProcessor(80, 256);
+			BufferedImage expected = processor.handleMaximalDimension(original);
+			Path targetPath = tempDir.resolve(sourcePath.getFileName() + ".jpg");
+
+			// act
+			processor.writeJPG(sourcePath, targetPath);
+
+			// assert
+			assertTrue(processor.subsampling(original.getWidth(), original.getHeight()) > 1);
+			BufferedImage written = ImageIO.read(targetPath.toFile());
+			assertEquals(expected.getWidth(), written.getWidth());
+			assertEquals(expected.getHeight(), written.getHeight());
+			long full = ImageProcessor.estimateDecodedSize(sourcePath);
+			assertTrue(processor.estimateScaledDecode(sourcePath) < full / 2);
+		}
+	}
+
+	/**
+	 * 
+	 * Codecs are borrowed from the pool for each page, and
+	 * target files are replaced, even if larger before
+	 * 
+	 */
+	@Test
+	void testWriteJPGReusesCodecs(@TempDir Path tempDir) throws Exception {
+		// arrange
+		Path sourcePath = TestResource.IMG_JPG_148811035_MAX_1.get();
+		ImageProcessor processor = new ImageProcessor(80, 512);
+		Path targetPath = tempDir.resolve("target.jpg");
+		Files.write(targetPath, new byte[(int) Files.size(sourcePath) * 2]);
+		processor.writeJPG(sourcePath, targetPath);
+		long created = ImageCodecs.getCreated();
+
+		// act
+		for (int i = 0; i < 8; i++) {
+			processor.writeJPG(sourcePath, targetPath);
+		}
+
+		// assert
+		assertEquals(created, ImageCodecs.getCreated());
+		assertTrue(ImageCodecs.getNumberOfIdle() <= 3 * ImageCodecs.MAX_IDLE);
+		BufferedImage written = ImageIO.read(targetPath.toFile());
+		assertEquals(512, Math.max(written.getWidth(), written.getHeight()));
+		var metadata = new ImageMetadata();
+		metadata.enrichFrom(sourcePath);
+		byte[] expected = processor.encodeJPG(processor.readScaled(sourcePath).getBuffer(), metadata, targetPath);
+		assertEquals(expected.length, Files.size(targetPath));
+	}
 }
@@ -0,0 +1,118 @@
+package de.ulb.digital.derivans.generate.image;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.imageio.plugins.jpeg.JPEGQTable;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.TestResource;
+
+/**
+ *
+ * Test Specification for {@link JpegPassthrough}
+ *
+ * @author hartwig
+ *
+ */
+class TestJpegPassthrough {
+
+	private static Path derive(Path tempDir) throws Exception {
+		Path derived = tempDir.resolve("derived.jpg");
+		new ImageProcessor(80, 512).writeJPG(TestResource.IMG_JPG_148811035_MAX_1.get(), derived);
+		return derived;
+	}
+
+	private static int uint16(byte[] data, int offset) {
+		return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+	}
+
+	@Test
+	void testEstimateQualityFromScaledStandardTable() {
+		assertEquals(50, JpegPassthrough.estimateQuality(JPEGQTable.K1Luminance.getTable()));
+		assertEquals(80, JpegPassthrough.estimateQuality(
+				JPEGQTable.K1Luminance.getScaledInstance(0.4f, true).getTable()));
+	}
+
+	/**
+	 *
+	 * Result of a previous step with same parameters
+	 * is taken byte by byte
+	 *
+	 */
+	@Test
+	void testTransferDerivedUnchanged(@TempDir Path tempDir) throws Exception {
+		// arrange
+		Path derived = derive(tempDir);
+		Path target = tempDir.resolve("target.jpg");
+		JpegPassthrough passthrough = new JpegPassthrough(new ImageProcessor(80, 512));
+
+		// act
+		var inspection = passthrough.inspect(derived);
+		boolean isTaken = passthrough.transfer(derived, target);
+
+		// assert
+		assertEquals(80, inspection.getQuality());
+		assertEquals(512, Math.max(inspection.getWidth(), inspection.getHeight()));
+		assertFalse(inspection.requiresPatch());
+		assertTrue(isTaken);
+		assertArrayEquals(Files.readAllBytes(derived), Files.readAllBytes(target));
+	}
+
+	@Test
+	void testTransferDeclinedIfQualityOrMaximalExceeded(@TempDir Path tempDir) throws Exception {
+		// arrange
+		Path derived = derive(tempDir);
+		Path target = tempDir.resolve("target.jpg");
+
+		// act + assert
+		assertFalse(new JpegPassthrough(new ImageProcessor(50, 512)).transfer(derived, target));
+		assertFalse(new JpegPassthrough(new ImageProcessor(80, 256)).transfer(derived, target));
+		assertFalse(Files.exists(target));
+		assertNull(new JpegPassthrough(new ImageProcessor(50, 512)).read(derived));
+	}
+
+	/**
+	 *
+	 * Unknown density gets patched to defaults,
+	 * like it would be when encoded
+	 *
+	 */
+	@Test
+	void testTransferPatchesUnknownDensity(@TempDir Path tempDir) throws Exception {
+		// arrange
+		byte[] data = Files.readAllBytes(derive(tempDir));
+		JpegPassthrough.patch(data, new int[] { 0, 1, 1 });
+		Path unknown = tempDir.resolve("unknown.jpg");
+		Files.write(unknown, data);
+		Path target = tempDir.resolve("target.jpg");
+		JpegPassthrough passthrough = new JpegPassthrough(new ImageProcessor(80, 512));
+
+		// act
+		boolean isTaken = passthrough.transfer(unknown, target);
+
+		// assert
+		assertTrue(isTaken);
+		byte[] patched = Files.readAllBytes(target);
+		assertEquals(data.length, patched.length);
+		assertEquals(1, patched[JpegPassthrough.OFFSET_RES_UNITS]);
+		assertEquals(300, uint16(patched, JpegPassthrough.OFFSET_X_DENSITY));
+		assertEquals(300, uint16(patched, JpegPassthrough.OFFSET_Y_DENSITY));
+		assertArrayEquals(patched, passthrough.read(unknown));
+	}
+
+	@Test
+	void testInspectIgnoresTIFF() throws Exception {
+		JpegPassthrough passthrough = new JpegPassthrough(new ImageProcessor(80, 512));
+		assertNull(passthrough.inspect(TestResource.IMG_TIF_ZD1_GREY.get()));
+		assertNull(passthrough.read(TestResource.IMG_TIF_ZD1_GREY.get()));
+	}
+}
@@ -0,0 +1,109 @@
+package de.ulb.digital.derivans.generate.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * Test Specification for {@link Resampler}
+ *
+ * @author hartwig
+ *
+ */
+class TestResampler {
+
+	private static BufferedImage uniform(int width, int height, int type, Color color) {
+		BufferedImage image = new BufferedImage(width, height, type);
+		Graphics2D g2d = image.createGraphics();
+		g2d.setColor(color);
+		g2d.fillRect(0, 0, width, height);
+		g2d.dispose();
+		return image;
+	}
+
+	@Test
+	void testModesKeepTypeAndDimension() {
+		// arrange
+		BufferedImage rgb = uniform(1210, 1630, BufferedImage.TYPE_3BYTE_BGR, Color.WHITE);
+		BufferedImage grey = uniform(1210, 1630, BufferedImage.TYPE_BYTE_GRAY, Color.WHITE);
+
+		for (Resampler.Mode mode : Resampler.Mode.values()) {
+			// act
+			BufferedImage scaledRGB = Resampler.scale(rgb, 201, 271, mode);
+			BufferedImage scaledGrey = Resampler.scale(grey, 201, 271, mode);
+
+			// assert
+			assertEquals(201, scaledRGB.getWidth());
+			assertEquals(271, scaledRGB.getHeight());
+			assertEquals(BufferedImage.TYPE_3BYTE_BGR, scaledRGB.getType());
+			assertEquals(201, scaledGrey.getWidth());
+			assertEquals(271, scaledGrey.getHeight());
+			assertEquals(BufferedImage.TYPE_BYTE_GRAY, scaledGrey.getType());
+		}
+	}
+
+	@Test
+	void testUniformColorPreserved() {
+		// arrange
+		Color color = new Color(200, 120, 40);
+		BufferedImage rgb = uniform(900, 700, BufferedImage.TYPE_INT_RGB, color);
+
+		// act
+		BufferedImage lanczos = Resampler.scale(rgb, 250, 190, Resampler.Mode.LANCZOS);
+		BufferedImage fast = Resampler.scale(rgb, 250, 190, Resampler.Mode.FAST);
+
+		// assert
+		for (BufferedImage scaled : new BufferedImage[] { lanczos, fast }) {
+			assertEquals(color.getRGB(), scaled.getRGB(0, 0));
+			assertEquals(color.getRGB(), scaled.getRGB(125, 95));
+			assertEquals(color.getRGB(), scaled.getRGB(249, 189));
+		}
+	}
+
+	@Test
+	void testBoxAveragesPartialEdges() {
+		// arrange
+		BufferedImage grey = uniform(5, 3, BufferedImage.TYPE_BYTE_GRAY, Color.BLACK);
+		grey.getRaster().setSample(0, 0, 0, 200);
+		grey.getRaster().setSample(4, 2, 0, 90);
+
+		// act
+		BufferedImage reduced = Resampler.box(grey, 2);
+
+		// assert
+		assertEquals(3, reduced.getWidth());
+		assertEquals(2, reduced.getHeight());
+		assertEquals(50, reduced.getRaster().getSample(0, 0, 0));
+		assertEquals(90, reduced.getRaster().getSample(2, 1, 0));
+	}
+
+	@Test
+	void testLanczosKeepsEdgeSharp() {
+		// arrange
+		BufferedImage grey = uniform(800, 800, BufferedImage.TYPE_BYTE_GRAY, Color.BLACK);
+		Graphics2D g2d = grey.createGraphics();
+		g2d.setColor(Color.WHITE);
+		g2d.fillRect(400, 0, 400, 800);
+		g2d.dispose();
+
+		// act
+		BufferedImage scaled = Resampler.scale(grey, 200, 200, Resampler.Mode.LANCZOS);
+
+		// assert
+		assertTrue(scaled.getRaster().getSample(90, 100, 0) < 5);
+		assertTrue(scaled.getRaster().getSample(110, 100, 0) > 250);
+	}
+
+	@Test
+	void testUnknownMode() {
+		assertThrows(IllegalArgumentException.class, () -> Resampler.Mode.forLabel("nearest"));
+		assertEquals(Resampler.Mode.LANCZOS, Resampler.Mode.forLabel(" Lanczos "));
+	}
+}
@@ -0,0 +1,86 @@
+package de.ulb.digital.derivans.generate.pdf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.ulb.digital.derivans.IDerivans;
+import de.ulb.digital.derivans.TestHelper;
+import de.ulb.digital.derivans.config.TypeConfiguration;
+import de.ulb.digital.derivans.generate.GeneratorPDF;
+import de.ulb.digital.derivans.model.DerivateFS;
+import de.ulb.digital.derivans.model.pdf.PDFResult;
+import de.ulb.digital.derivans.model.step.DerivateStepPDF;
+
+/**
+ *
+ * MWE:
+ * PDF with 1 page, Textlayer, written in low memory mode,
+ * i.e. result keeps only a summary of the written page
+ *
+ * @author hartwig
+ *
+ */
+class TestPDFLowMemory {
+
+	static PDFResult resultDoc;
+
+	static Path pdfPath;
+
+	@BeforeAll
+	static void initAll(@TempDir Path tempDir) throws Exception {
+		Path pathTarget = tempDir.resolve("zd1");
+		Path sourceOcr = Path.of("src/test/resources/ocr/alto/1667524704_J_0150/1667524704_J_0150_0512.xml");
+		Path targetDir = pathTarget.resolve(IDerivans.FULLTEXT_DIR);
+		Files.createDirectories(targetDir);
+		Files.copy(sourceOcr, targetDir.resolve(sourceOcr.getFileName()));
+		Path pathImageMax = pathTarget.resolve(IDerivans.IMAGE_DIR_MAX);
+		Files.createDirectory(pathImageMax);
+		Path imagePath = pathImageMax.resolve("1667524704_J_0150_0512.jpg");
+		TestHelper.writeImage(imagePath, 754, 1053, BufferedImage.TYPE_BYTE_GRAY, "JPG");
+		DerivateStepPDF stepPdf = new DerivateStepPDF(IDerivans.IMAGE_DIR_MAX, ".");
+		stepPdf.setRenderLevel(TypeConfiguration.RENDER_LEVEL_LINE);
+		stepPdf.setLowMemory(true);
+		pdfPath = pathTarget.resolve("zd1.pdf");
+		stepPdf.setPathPDF(pdfPath);
+		DerivateFS derivate = new DerivateFS(pathTarget);
+		derivate.init(TestHelper.ULB_MAX_PATH);
+		GeneratorPDF generator = new GeneratorPDF();
+		generator.setDerivate(derivate);
+		generator.setStep(stepPdf);
+		generator.create();
+		resultDoc = generator.getPDFResult();
+	}
+
+	@Test
+	void inspectPageOneSummary() {
+		assertEquals(1, resultDoc.getPdfPages().size());
+		var pageOne = resultDoc.getPdfPages().get(0);
+		assertEquals(1, pageOne.getNumber());
+		assertEquals(180, pageOne.getDimension().getWidth());
+		assertEquals(252, pageOne.getDimension().getHeight());
+	}
+
+	@Test
+	void inspectPageOneTextReleased() {
+		var pageOne = resultDoc.getPdfPages().get(0);
+		assertTrue(pageOne.isTextReleased());
+		assertFalse(pageOne.getTextcontent().isPresent());
+		assertTrue(pageOne.containsText());
+		assertTrue(pageOne.getNumberOfLines() > 1);
+	}
+
+	@Test
+	void inspectPageOneTextWritten() throws Exception {
+		var textPage01 = TestHelper.getTextAsSingleLine(pdfPath, 1);
+		assertTrue(textPage01.contains("Seite 2"));
+	}
+}
@@ -0,0 +1,147 @@
+package de.ulb.digital.derivans.model.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+
+import org.junit.jupiter.api.Test;
+
+import de.ulb.digital.derivans.model.pdf.PDFTextElement;
+
+/**
+ *
+ * Compact text must behave like lines and words
+ *
+ * @author hartwig
+ *
+ */
+class TestPageText {
+
+	private static PageText twoLines() {
+		return new PageText.Builder()
+				.addWord("Grantzen", 10, 22, 120, 38)
+				.addWord("Hertzog", 140, 20, 150, 40)
+				.endLine()
+				.addWord("zu", 10, 80, 20, 30)
+				.endLine()
+				.build();
+	}
+
+	@Test
+	void testLinesBeforeWords() {
+		PageText text = twoLines();
+
+		assertEquals(2, text.getNumberOfLines());
+		assertEquals(3, text.getNumberOfWords());
+		assertTrue(text.isLine(1));
+		assertFalse(text.isLine(2));
+		assertEquals(2, text.getFirstWord(0));
+		assertEquals(4, text.getEndWord(0));
+		assertEquals(4, text.getFirstWord(1));
+		assertEquals(5, text.getEndWord(1));
+		assertEquals("Hertzog", text.getText(3));
+		assertEquals("Grantzen Hertzog", text.getText(0));
+		assertEquals("zu", text.getText(1));
+	}
+
+	@Test
+	void testLineBoundsFromWords() {
+		PageText text = twoLines();
+
+		assertEquals(10f, text.getX(0));
+		assertEquals(20f, text.getY(0));
+		assertEquals(280f, text.getWidth(0));
+		assertEquals(40f, text.getHeight(0));
+	}
+
+	/**
+	 *
+	 * Words not completed by a line are dropped
+	 *
+	 */
+	@Test
+	void testPendingWordsNotTaken() {
+		var builder = new PageText.Builder()
+				.addWord("Hertzog", 140, 20, 150, 40)
+				.endLine()
+				.addWord("zu", 10, 80, 20, 30);
+
+		assertEquals(1, builder.getPendingWords());
+		PageText text = builder.build();
+		assertEquals(1, text.getNumberOfLines());
+		assertEquals(1, text.getNumberOfWords());
+	}
+
+	@Test
+	void testScaleLikeWords() {
+		PageText text = twoLines();
+		Word word = new Word("Grantzen", new Rectangle(10, 22, 120, 38));
+
+		text.scale(0.5f);
+		word.scale(0.5f);
+
+		assertEquals((float) word.getBox().getX(), text.getX(2));
+		assertEquals((float) word.getBox().getY(), text.getY(2));
+		assertEquals((float) word.getBox().getWidth(), text.getWidth(2));
+		assertEquals((float) word.getBox().getHeight(), text.getHeight(2));
+		assertEquals(5f, text.getX(0));
+		assertEquals(10f, text.getY(0));
+		assertEquals(20f, text.getHeight(0));
+	}
+
+	@Test
+	void testInvertAndAlignWords() {
+		PageText text = twoLines();
+
+		text.invert(1000f);
+		text.alignWords();
+
+		// line spans 20 to 60 from top
+		assertEquals(940f, text.getY(0));
+		assertEquals(940f, text.getY(2));
+		assertEquals(40f, text.getHeight(2));
+		assertEquals(940f, text.getY(3));
+		assertEquals(890f, text.getY(4));
+	}
+
+	@Test
+	void testCopyIsIndependent() {
+		PageText text = twoLines();
+		PageText copy = text.copy();
+
+		copy.scale(2f);
+
+		assertEquals(10f, text.getX(0));
+		assertEquals(20f, copy.getX(0));
+		assertEquals(text.getText(0), copy.getText(0));
+	}
+
+	@Test
+	void testRTLPrintedReverse() {
+		PageText text = new PageText.Builder()
+				.addWord("بسم", 100, 10, 50, 20)
+				.addWord("الله", 40, 10, 50, 20)
+				.endLine()
+				.build();
+
+		assertTrue(text.isRTL(0));
+		assertTrue(text.isRTL(1));
+		assertEquals("مسب", text.forPrint(1));
+		assertEquals("مسب" + PDFTextElement.ZERO_WIDTH + " هللا" + PDFTextElement.ZERO_WIDTH,
+				text.forPrint(0));
+		assertFalse(twoLines().isRTL(0));
+		assertEquals("Grantzen Hertzog", twoLines().forPrint(0));
+	}
+
+	@Test
+	void testLineWithoutWords() {
+		PageText text = new PageText.Builder().endLine().build();
+
+		assertEquals(1, text.getNumberOfLines());
+		assertEquals("", text.getText(0));
+		assertFalse(text.isRTL(0));
+		assertEquals(0f, text.getWidth(0));
+	}
+}
@@ -0,0 +1,63 @@
+package de.ulb.digital.derivans.model.text;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 
+ * Bounds of lines must match union of their word areas
+ * 
+ * @author hartwig
+ *
+ */
+class TestTextline {
+
+	@Test
+	void testBoundsMatchArea() {
+		List<Word> words = new ArrayList<>();
+		words.add(new Word("Grantzen", new Rectangle(10, 22, 120, 38)));
+		words.add(new Word("Hertzog", new Rectangle(140, 20, 150, 40)));
+		words.add(new Word("zu", new Rectangle2D.Float(300.5f, 25.25f, 20.0f, 30.0f)));
+
+		Textline line = new Textline(words);
+
+		assertEquals(new Rectangle2D.Double(10, 20, 310.5, 40), line.getBox());
+		assertEquals(line.getArea().getBounds2D(), line.getBox());
+		assertEquals("Grantzen Hertzog zu", line.getText());
+		assertEquals("[311.0x40.0]Grantzen Hertzog zu", line.toString());
+	}
+
+	/**
+	 * 
+	 * Empty boxes, i.e. from single points, don't contribute,
+	 * which is just the same as for an area
+	 * 
+	 */
+	@Test
+	void testBoundsIgnoreEmptyBoxes() {
+		List<Word> words = new ArrayList<>();
+		words.add(new Word("x", new Rectangle(500, 500, 0, 10)));
+		words.add(new Word("Hertzog", new Rectangle(140, 20, 150, 40)));
+
+		Textline line = new Textline(words);
+
+		assertEquals(new Rectangle2D.Double(140, 20, 150, 40), line.getBox());
+		assertEquals(line.getArea().getBounds2D(), line.getBox());
+	}
+
+	@Test
+	void testBoundsWithoutWords() {
+		Textline line = new Textline(new ArrayList<>());
+
+		assertTrue(line.getBox().isEmpty());
+		assertTrue(line.getArea().isEmpty());
+		assertEquals(line.getArea().getBounds2D(), line.getBox());
+	}
+}